@@ -30,22 +30,130 @@ import pascal.taie.language.classes.ClassHierarchy;
 import pascal.taie.language.classes.JClass;
 import pascal.taie.language.classes.JMethod;
 import pascal.taie.language.classes.Subsignature;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
 import soot.util.ArraySet;
 import java.util.*;
+import java.util.stream.Collectors;
 
 /**
  * Implementation of the CHA algorithm.
+ * <p>
+ * Besides building a call graph from scratch, this builder supports
+ * updating the call graph it built after some classes of the program
+ * are added, removed or changed, see {@link #update}.
  */
-class CHABuilder implements CGBuilder<Invoke, JMethod> {
+public class CHABuilder implements CGBuilder<Invoke, JMethod> {
 
     private ClassHierarchy hierarchy;
 
+    private DefaultCallGraph callGraph;
+
+    /**
+     * Map from a class to the resolved call sites whose method references
+     * are declared in the class. The resolution results of these call sites
+     * depend on the subtree (and the superclasses) of the class.
+     */
+    private final MultiMap<JClass, Invoke> callSitesByRefClass = Maps.newMultiMap();
+
+    /**
+     * Classes that have been removed from the program.
+     * {@link ClassHierarchy} does not support removing classes,
+     * thus we skip them during resolution.
+     */
+    private final Set<JClass> removedClasses = Sets.newSet();
+
     @Override
     public CallGraph<Invoke, JMethod> build() {
         hierarchy = World.get().getClassHierarchy();
         return buildCallGraph(World.get().getMainMethod());
     }
 
+    /**
+     * Updates the call graph built by {@link #build()} after the given
+     * classes are added to, removed from, or changed in the program.
+     * Only the call sites whose resolution depends on the changed classes
+     * are re-resolved, and only the methods whose reachability is affected
+     * by the re-resolution are added to or removed from the call graph.
+     * <p>
+     * The added classes should have been added to the class hierarchy.
+     * A changed class is a class whose method bodies are changed, while
+     * the {@link JClass} object (and its declared methods) stays the same.
+     * If a new version of a class is represented by a new {@link JClass}
+     * object, the old version should be given as removed and the new
+     * version should be given as added.
+     *
+     * @param added   the classes added to the program
+     * @param removed the classes removed from the program
+     * @param changed the classes whose method bodies are changed
+     * @return the updated call graph.
+     * @throws AnalysisException if this builder has not built a call graph.
+     */
+    public CallGraph<Invoke, JMethod> update(Collection<JClass> added,
+                                             Collection<JClass> removed,
+                                             Collection<JClass> changed) {
+        if (callGraph == null) {
+            throw new AnalysisException("Call graph has not been built");
+        }
+        removedClasses.removeAll(added);
+        removedClasses.addAll(removed);
+        // collect the call sites whose resolution may be affected
+        Set<Invoke> affected = Sets.newSet();
+        for (Collection<JClass> classes : List.of(added, removed, changed)) {
+            classes.forEach(c -> collectAffectedCallSites(c, affected));
+        }
+        // retract the methods of removed and changed classes,
+        // and collect the methods that may become unreachable
+        Set<JMethod> mayBeUnreachable = Sets.newSet();
+        for (JClass jclass : removed) {
+            for (JMethod method : jclass.getDeclaredMethods()) {
+                if (callGraph.contains(method)) {
+                    callGraph.edgesInTo(method)
+                            .toList()
+                            .forEach(callGraph::removeEdge);
+                    retractMethod(method, mayBeUnreachable);
+                }
+            }
+        }
+        LinkedList<JMethod> workList = new LinkedList<>();
+        for (JClass jclass : changed) {
+            for (JMethod method : jclass.getDeclaredMethods()) {
+                if (callGraph.contains(method)) {
+                    retractMethod(method, mayBeUnreachable);
+                    // the method is still reachable, process its new body
+                    workList.add(method);
+                }
+            }
+        }
+        // re-resolve the affected call sites
+        for (Invoke callSite : affected) {
+            if (!callGraph.getCallSitesIn(callSite.getContainer()).contains(callSite)) {
+                continue; // container of the call site has been retracted
+            }
+            Set<JMethod> targets = resolve(callSite);
+            CallKind kind = getCallKind(callSite);
+            for (Edge<Invoke, JMethod> edge : callGraph.edgesOutOf(callSite).toList()) {
+                if (!targets.contains(edge.getCallee())) {
+                    callGraph.removeEdge(edge);
+                    mayBeUnreachable.add(edge.getCallee());
+                }
+            }
+            if (kind != null) {
+                for (JMethod target : targets) {
+                    if (target != null &&
+                            callGraph.addEdge(new Edge<>(kind, callSite, target))) {
+                        workList.add(target);
+                    }
+                }
+            }
+        }
+        processWorkList(workList);
+        removeUnreachableMethods(mayBeUnreachable);
+        return callGraph;
+    }
+
     private CallKind getCallKind(Invoke callSite) {
         if (callSite.isVirtual()) {
             return CallKind.VIRTUAL;
@@ -62,12 +170,20 @@ class CHABuilder implements CGBuilder<Invoke, JMethod> {
     }
 
     private CallGraph<Invoke, JMethod> buildCallGraph(JMethod entry) {
-        DefaultCallGraph callGraph = new DefaultCallGraph();
+        callGraph = new DefaultCallGraph();
         callGraph.addEntryMethod(entry);
         // TODO - finish me
         LinkedList<JMethod> workList = new LinkedList<>();
         workList.add(entry);
+        processWorkList(workList);
+        return callGraph;
+    }
 
+    /**
+     * Adds the methods in the work list, and the methods transitively
+     * called by them, to the call graph.
+     */
+    private void processWorkList(LinkedList<JMethod> workList) {
         while (!workList.isEmpty()) {
             JMethod method = workList.removeFirst();
             if (!callGraph.contains(method)) {
@@ -86,11 +202,105 @@ class CHABuilder implements CGBuilder<Invoke, JMethod> {
                 }
             }
         }
-        return callGraph;
     }
 
+    /**
+     * Removes given method (except its incoming call edges) from the call
+     * graph, and adds its callees to {@code mayBeUnreachable}.
+     */
+    private void retractMethod(JMethod method, Set<JMethod> mayBeUnreachable) {
+        for (Invoke callSite : callGraph.getCallSitesIn(method)) {
+            callSitesByRefClass.remove(
+                    callSite.getMethodRef().getDeclaringClass(), callSite);
+            mayBeUnreachable.addAll(callGraph.getCalleesOf(callSite));
+        }
+        callGraph.removeReachableMethod(method);
+    }
 
+    /**
+     * Collects the resolved call sites whose resolution results may be
+     * affected by the change of given class, i.e., the call sites whose
+     * method references are declared in a superclass/superinterface of
+     * the class (the subtree traversal reaches the class), in the class
+     * itself, or in a subclass of the class (the dispatch reaches the class).
+     */
+    private void collectAffectedCallSites(JClass jclass, Set<Invoke> affected) {
+        Set<JClass> visited = Sets.newSet();
+        LinkedList<JClass> supers = new LinkedList<>();
+        supers.add(jclass);
+        while (!supers.isEmpty()) {
+            JClass c = supers.removeFirst();
+            if (visited.add(c)) {
+                affected.addAll(callSitesByRefClass.get(c));
+                if (c.getSuperClass() != null) {
+                    supers.add(c.getSuperClass());
+                }
+                supers.addAll(c.getInterfaces());
+            }
+        }
+        LinkedList<JClass> subs = new LinkedList<>(getDirectSubtypesOf(jclass));
+        while (!subs.isEmpty()) {
+            JClass c = subs.removeFirst();
+            if (visited.add(c)) {
+                affected.addAll(callSitesByRefClass.get(c));
+                subs.addAll(getDirectSubtypesOf(c));
+            }
+        }
+    }
+
+    private Collection<JClass> getDirectSubtypesOf(JClass jclass) {
+        if (jclass.isInterface()) {
+            List<JClass> subtypes = new ArrayList<>();
+            subtypes.addAll(hierarchy.getDirectImplementorsOf(jclass));
+            subtypes.addAll(hierarchy.getDirectSubinterfacesOf(jclass));
+            return subtypes;
+        } else {
+            return hierarchy.getDirectSubclassesOf(jclass);
+        }
+    }
 
+    /**
+     * Removes the methods that are no longer reachable from the entry
+     * methods. Only the methods in {@code mayBeUnreachable}, and the methods
+     * transitively called by them, are examined: they are removed tentatively,
+     * and the ones still called by a remaining method are then restored.
+     */
+    private void removeUnreachableMethods(Set<JMethod> mayBeUnreachable) {
+        Set<JMethod> entries = callGraph.entryMethods()
+                .collect(Collectors.toSet());
+        // collect the methods whose reachability may change
+        Set<JMethod> suspects = Sets.newSet();
+        LinkedList<JMethod> workList = new LinkedList<>(mayBeUnreachable);
+        while (!workList.isEmpty()) {
+            JMethod method = workList.removeFirst();
+            if (callGraph.contains(method) && !entries.contains(method)
+                    && suspects.add(method)) {
+                workList.addAll(callGraph.getCalleesOfM(method));
+            }
+        }
+        // restore the suspects that are still called by remaining methods
+        for (JMethod method : suspects) {
+            if (callGraph.getCallersOf(method)
+                    .stream()
+                    .map(callGraph::getContainerOf)
+                    .anyMatch(caller -> !suspects.contains(caller))) {
+                workList.add(method);
+            }
+        }
+        Set<JMethod> restored = Sets.newSet();
+        while (!workList.isEmpty()) {
+            JMethod method = workList.removeFirst();
+            if (restored.add(method)) {
+                callGraph.getCalleesOfM(method)
+                        .stream()
+                        .filter(suspects::contains)
+                        .forEach(workList::add);
+            }
+        }
+        suspects.stream()
+                .filter(method -> !restored.contains(method))
+                .forEach(method -> retractMethod(method, Sets.newSet()));
+    }
 
     /**
      * Resolves call targets (callees) of a call site via CHA.
@@ -98,16 +308,22 @@ class CHABuilder implements CGBuilder<Invoke, JMethod> {
     private Set<JMethod> resolve(Invoke callSite) {
         // TODO - finish me
         Set<JMethod> methods = new HashSet<>();
+        // record the call site for incremental update
+        callSitesByRefClass.put(callSite.getMethodRef().getDeclaringClass(), callSite);
 
         if (callSite.isStatic()) {
             MethodRef methodRef = callSite.getMethodRef();
-            JMethod method = methodRef.getDeclaringClass().getDeclaredMethod(methodRef.getSubsignature());
-            methods.add(method);
+            if (!removedClasses.contains(methodRef.getDeclaringClass())) {
+                JMethod method = methodRef.getDeclaringClass().getDeclaredMethod(methodRef.getSubsignature());
+                methods.add(method);
+            }
         } else if (callSite.isSpecial()) {
             JClass jClass = callSite.getMethodRef().getDeclaringClass();
-            JMethod method = dispatch(jClass, callSite.getMethodRef().getSubsignature());
-            if (method != null) {
-                methods.add(method);
+            if (!removedClasses.contains(jClass)) {
+                JMethod method = dispatch(jClass, callSite.getMethodRef().getSubsignature());
+                if (method != null) {
+                    methods.add(method);
+                }
             }
         } else if (callSite.isInterface() || callSite.isVirtual()) {
             LinkedList<JClass> subClasses = new LinkedList<>();
@@ -116,9 +332,13 @@ class CHABuilder implements CGBuilder<Invoke, JMethod> {
 
             while (!subClasses.isEmpty()) {
                 JClass subClass = subClasses.removeFirst();
-                JMethod jmethod = dispatch(subClass, callSite.getMethodRef().getSubsignature());
-                if (jmethod != null) {
-                    methods.add(jmethod);
+                // a removed class has no instances, but its subclasses
+                // which are still present may have
+                if (!removedClasses.contains(subClass)) {
+                    JMethod jmethod = dispatch(subClass, callSite.getMethodRef().getSubsignature());
+                    if (jmethod != null) {
+                        methods.add(jmethod);
+                    }
                 }
                 if (subClass.isInterface()) {
                     subClasses.addAll(hierarchy.getDirectImplementorsOf(subClass));
@@ -142,7 +362,10 @@ class CHABuilder implements CGBuilder<Invoke, JMethod> {
      */
     private JMethod dispatch(JClass jclass, Subsignature subsignature) {
         // TODO - finish me
-        JMethod jMethod = jclass.getDeclaredMethod(subsignature);
+        // the methods of removed classes are skipped,
+        // and the lookup continues in the superclass
+        JMethod jMethod = removedClasses.contains(jclass) ?
+                null : jclass.getDeclaredMethod(subsignature);
         if (jMethod != null && !jMethod.isAbstract()) {
             return jMethod;
         } else {
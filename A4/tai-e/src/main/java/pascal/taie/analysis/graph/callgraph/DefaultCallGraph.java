@@ -26,6 +26,7 @@ import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.ir.stmt.Stmt;
 import pascal.taie.language.classes.JMethod;
 
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -61,6 +62,28 @@ public class DefaultCallGraph extends AbstractCallGraph<Invoke, JMethod> {
         return false;
     }
 
+    /**
+     * Removes a reachable method from this call graph, together with
+     * the call sites in the method and the call edges out of them.
+     * Call edges targeting the method are NOT removed.
+     *
+     * @return true if this call graph changed as a result of the call,
+     * otherwise false.
+     */
+    public boolean removeReachableMethod(JMethod method) {
+        if (reachableMethods.remove(method)) {
+            List<Invoke> callSites = List.copyOf(callSitesIn.get(method));
+            for (Invoke callSite : callSites) {
+                List.copyOf(callSiteToEdges.get(callSite))
+                        .forEach(this::removeEdge);
+                callSiteToContainer.remove(callSite);
+            }
+            callSitesIn.removeAll(method);
+            return true;
+        }
+        return false;
+    }
+
     /**
      * Adds a new call graph edge to this call graph.
      *
@@ -77,6 +100,22 @@ public class DefaultCallGraph extends AbstractCallGraph<Invoke, JMethod> {
         }
     }
 
+    /**
+     * Removes a call graph edge from this call graph.
+     *
+     * @param edge the call edge to be removed
+     * @return true if the call graph changed as a result of the call,
+     * otherwise false.
+     */
+    public boolean removeEdge(Edge<Invoke, JMethod> edge) {
+        if (callSiteToEdges.remove(edge.getCallSite(), edge)) {
+            calleeToEdges.remove(edge.getCallee(), edge);
+            return true;
+        } else {
+            return false;
+        }
+    }
+
     @Override
     public JMethod getContainerOf(Invoke invoke) {
         return invoke.getContainer();
@@ -22,8 +22,20 @@
 
 package pascal.taie.analysis.graph.callgraph.cha;
 
+import org.junit.Assert;
 import org.junit.Test;
+import pascal.taie.World;
 import pascal.taie.analysis.Tests;
+import pascal.taie.analysis.graph.callgraph.CHABuilder;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.callgraph.Edge;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 public class CHATest {
     
@@ -50,4 +62,54 @@ public class CHATest {
     public void testAbstractMethod() {
         test("AbstractMethod");
     }
+
+    @Test
+    public void testIncrementalUpdate() {
+        test("VirtualCall");
+        CHABuilder builder = new CHABuilder();
+        CallGraph<Invoke, JMethod> callGraph = builder.build();
+        Set<Edge<Invoke, JMethod>> edges = getEdges(callGraph);
+        JClass c = World.get().getClassHierarchy().getClass("C");
+        JMethod foo = c.getDeclaredMethod("foo");
+        Assert.assertTrue(callGraph.contains(foo));
+        // remove class C
+        callGraph = builder.update(List.of(), List.of(c), List.of());
+        Assert.assertFalse(callGraph.contains(foo));
+        Assert.assertEquals(edges.size() - 1, callGraph.getNumberOfEdges());
+        // add class C back
+        callGraph = builder.update(List.of(c), List.of(), List.of());
+        Assert.assertTrue(callGraph.contains(foo));
+        Assert.assertEquals(edges, getEdges(callGraph));
+        // re-process all application classes
+        List<JClass> appClasses = World.get().getClassHierarchy()
+                .applicationClasses()
+                .toList();
+        callGraph = builder.update(List.of(), List.of(), appClasses);
+        Assert.assertEquals(edges, getEdges(callGraph));
+    }
+
+    @Test
+    public void testIncrementalUpdateRemoveSuperclass() {
+        test("VirtualCall");
+        CHABuilder builder = new CHABuilder();
+        CallGraph<Invoke, JMethod> callGraph = builder.build();
+        Set<Edge<Invoke, JMethod>> edges = getEdges(callGraph);
+        JClass a = World.get().getClassHierarchy().getClass("A");
+        JClass b = World.get().getClassHierarchy().getClass("B");
+        JClass c = World.get().getClassHierarchy().getClass("C");
+        JClass d = World.get().getClassHierarchy().getClass("D");
+        // remove class B, whose subclasses C and D are still present
+        callGraph = builder.update(List.of(), List.of(b), List.of());
+        Assert.assertTrue(callGraph.contains(c.getDeclaredMethod("foo")));
+        Assert.assertTrue(callGraph.contains(d.getDeclaredMethod("foo")));
+        Assert.assertFalse(callGraph.contains(a.getDeclaredMethod("foo")));
+        // add class B back
+        callGraph = builder.update(List.of(b), List.of(), List.of());
+        Assert.assertEquals(edges, getEdges(callGraph));
+    }
+
+    private static Set<Edge<Invoke, JMethod>> getEdges(
+            CallGraph<Invoke, JMethod> callGraph) {
+        return callGraph.edges().collect(Collectors.toSet());
+    }
 }
@@ -27,6 +27,8 @@ import pascal.taie.analysis.pta.PointerAnalysisResult;
 import pascal.taie.analysis.pta.core.heap.AllocationSiteBasedModel;
 import pascal.taie.analysis.pta.core.heap.HeapModel;
 import pascal.taie.config.AnalysisConfig;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.config.ConfigException;
 
 /**
  * Context-insensitive pointer analysis.
@@ -35,6 +37,11 @@ public class CIPTA extends ProgramAnalysis {
 
     public static final String ID = "cipta";
 
+    /**
+     * Default number of steps that a demand-driven query can take.
+     */
+    private static final int DEFAULT_DEMAND_BUDGET = 100000;
+
     public CIPTA(AnalysisConfig config) {
         super(config);
     }
@@ -42,10 +49,40 @@ public class CIPTA extends ProgramAnalysis {
     @Override
     public PointerAnalysisResult analyze() {
         HeapModel heapModel = new AllocationSiteBasedModel(getOptions());
-        Solver solver = new Solver(heapModel);
+        if (getOptions().getBooleanOrDefault("demand-driven", false)) {
+            DemandPTAResult result = new DemandPTAResult(
+                    new DemandSolver(heapModel, getDemandBudget(getOptions())),
+                    () -> {
+                        // shares the heap model with the demand-driven solver,
+                        // so that both results consist of the same objects
+                        Solver solver = new Solver(getOptions(), heapModel);
+                        solver.solve();
+                        return solver.getResult();
+                    });
+            // points-to sets are computed when they are queried, thus
+            // the whole-program result is computed only if the result
+            // is dumped or compared, which enumerates all pointers
+            if (getOptions().getString("action") != null) {
+                new ResultProcessor(getOptions()).process(
+                        result.getFallback(), result);
+            }
+            return result;
+        }
+        Solver solver = new Solver(getOptions(), heapModel);
         solver.solve();
         CIPTAResult result = solver.getResult();
         new ResultProcessor(getOptions()).process(result);
         return result;
     }
+
+    private static int getDemandBudget(AnalysisOptions options) {
+        if (options.get("demand-budget") == null) {
+            return DEFAULT_DEMAND_BUDGET;
+        }
+        int budget = options.getInt("demand-budget");
+        if (budget <= 0) {
+            throw new ConfigException("Invalid demand-budget: " + budget);
+        }
+        return budget;
+    }
 }
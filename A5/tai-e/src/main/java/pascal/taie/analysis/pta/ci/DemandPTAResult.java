@@ -0,0 +1,127 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.ci;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Pointer analysis result which answers points-to queries on demand
+ * by {@link DemandSolver}. If a query runs out of budget, or the
+ * requested result is about the whole program (e.g., the call graph),
+ * the whole-program result is computed (only once) and used instead.
+ */
+class DemandPTAResult implements PointerAnalysisResult {
+
+    private static final Logger logger = LogManager.getLogger(DemandPTAResult.class);
+
+    private final DemandSolver solver;
+
+    private final Supplier<CIPTAResult> fallbackSupplier;
+
+    private CIPTAResult fallback;
+
+    /**
+     * @param solver           the demand-driven solver
+     * @param fallbackSupplier supplier of whole-program result, which is
+     *                         called at most once
+     */
+    DemandPTAResult(DemandSolver solver,
+                    Supplier<CIPTAResult> fallbackSupplier) {
+        this.solver = solver;
+        this.fallbackSupplier = fallbackSupplier;
+    }
+
+    @Override
+    public Collection<Var> getVars() {
+        return getFallback().getVars();
+    }
+
+    @Override
+    public Collection<Obj> getObjects() {
+        return getFallback().getObjects();
+    }
+
+    @Override
+    public Set<Obj> getPointsToSet(Var var) {
+        Set<Obj> pts = solver.getPointsToSet(var);
+        if (pts == null) {
+            logger.debug("Query for {} runs out of budget", var);
+            return getFallback().getPointsToSet(var);
+        }
+        return pts;
+    }
+
+    @Override
+    public Set<Obj> getPointsToSet(Var base, JField field) {
+        if (field.isStatic()) {
+            logger.warn("{} is not instance field", field);
+        }
+        Set<Obj> pts = solver.getPointsToSet(base, field);
+        if (pts == null) {
+            logger.debug("Query for {}.{} runs out of budget", base, field.getName());
+            return getFallback().getPointsToSet(base, field);
+        }
+        return pts;
+    }
+
+    @Override
+    public Set<Obj> getPointsToSet(JField field) {
+        if (!field.isStatic()) {
+            logger.warn("{} is not static field", field);
+        }
+        Set<Obj> pts = solver.getPointsToSet(field);
+        if (pts == null) {
+            logger.debug("Query for {} runs out of budget", field);
+            return getFallback().getPointsToSet(field);
+        }
+        return pts;
+    }
+
+    @Override
+    public CallGraph<Invoke, JMethod> getCallGraph() {
+        return getFallback().getCallGraph();
+    }
+
+    /**
+     * @return the whole-program result, which is computed on the first call.
+     */
+    CIPTAResult getFallback() {
+        if (fallback == null) {
+            logger.info("Computing whole-program pointer analysis result");
+            fallback = fallbackSupplier.get();
+        }
+        return fallback;
+    }
+}
@@ -0,0 +1,590 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.ci;
+
+import pascal.taie.World;
+import pascal.taie.analysis.graph.callgraph.CallGraphs;
+import pascal.taie.analysis.pta.core.heap.HeapModel;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.InstanceFieldAccess;
+import pascal.taie.ir.exp.InvokeInstanceExp;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.LoadArray;
+import pascal.taie.ir.stmt.LoadField;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.StoreArray;
+import pascal.taie.ir.stmt.StoreField;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+import pascal.taie.util.collection.TwoKeyMap;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Demand-driven context-insensitive pointer analysis.
+ * <p>
+ * Instead of analyzing the whole program, this solver computes the
+ * points-to sets of the queried pointers only. It starts from the queried
+ * pointer and explores, backwards along the IR, the pointers from which
+ * objects may flow to it, i.e., it builds the part of the PFG that the
+ * queried pointer depends on, and propagates objects on this part until
+ * a fixed point is reached. The part is extended on the fly:
+ * <ul>
+ *     <li>for x = y.f, the flow from o.f to x is added for the objects o
+ *     that y points to, and o.f depends on the stores z.f = w whose base
+ *     z also points to o, which matches field stores and loads as in
+ *     CFL-reachability;</li>
+ *     <li>calls are resolved by the points-to sets of their receivers;</li>
+ *     <li>flows into parameters come from the call sites that may call
+ *     the method, which are found in the CHA call graph and then refined
+ *     by the points-to sets of their receivers.</li>
+ * </ul>
+ * The flows into a variable are explored only after the method containing
+ * the variable is proved reachable, i.e., it is the main method, or it is
+ * called by a static call site or by a receiver object at a call site in
+ * a reachable method. Thus, the variables in the methods which are
+ * reachable in the CHA call graph but unreachable in pointer analysis
+ * point to nothing, and the results are the same as the ones of
+ * {@link Solver}.
+ * <p>
+ * Each query has a budget of steps. When the budget runs out, the query
+ * fails and the remaining work is kept, so that the following queries
+ * continue from where it stops. Partial results are never returned.
+ */
+class DemandSolver {
+
+    private final HeapModel heapModel;
+
+    private final int budget;
+
+    private final Map<Var, Node> varNodes = Maps.newMap();
+
+    private final Map<JField, Node> staticFieldNodes = Maps.newMap();
+
+    private final Map<Obj, Map<JField, Node>> instanceFieldNodes = Maps.newMap();
+
+    private final Map<Obj, Node> arrayIndexNodes = Maps.newMap();
+
+    /**
+     * Nodes of the instance fields queried by base.field, i.e., o.field
+     * for the objects o pointed to by base. The list of each queried pair
+     * is filled by a handler on the base, which is added only once.
+     */
+    private final TwoKeyMap<Var, JField, List<Node>> queriedFieldNodes =
+            Maps.newTwoKeyMap();
+
+    private final Queue<Entry> workList = new ArrayDeque<>();
+
+    /**
+     * Definitions of the variables, indexed when the containing method
+     * is queried for the first time.
+     */
+    private final MultiMap<Var, Stmt> definitions = Maps.newMultiMap();
+
+    private final Set<JMethod> indexedMethods = Sets.newSet();
+
+    /**
+     * Methods which are proved reachable.
+     */
+    private final Set<JMethod> reachableMethods = Sets.newSet();
+
+    /**
+     * Methods whose reachability has been demanded.
+     */
+    private final Set<JMethod> demandedMethods = Sets.newSet();
+
+    /**
+     * Actions which are performed when a method is proved reachable.
+     */
+    private final Map<JMethod, List<Runnable>> reachableHandlers = Maps.newMap();
+
+    /**
+     * The CHA call graph and the statements in its reachable methods,
+     * built when a query needs the callers of a method or the stores
+     * of a field for the first time.
+     */
+    private ProgramIndex programIndex;
+
+    /**
+     * Number of steps taken by the current query.
+     */
+    private int steps;
+
+    DemandSolver(HeapModel heapModel, int budget) {
+        this.heapModel = heapModel;
+        this.budget = budget;
+    }
+
+    /**
+     * @return the objects pointed to by given variable, or null if
+     * the query runs out of budget.
+     */
+    Set<Obj> getPointsToSet(Var var) {
+        Node node = getVarNode(var);
+        return solve() ? node.getObjects() : null;
+    }
+
+    /**
+     * @return the objects pointed to by given static field, or null if
+     * the query runs out of budget.
+     */
+    Set<Obj> getPointsToSet(JField field) {
+        Node node = getStaticFieldNode(field);
+        return solve() ? node.getObjects() : null;
+    }
+
+    /**
+     * @return the objects pointed to by base.field, or null if
+     * the query runs out of budget.
+     */
+    Set<Obj> getPointsToSet(Var base, JField field) {
+        List<Node> fieldNodes = queriedFieldNodes.computeIfAbsent(base, field,
+                (b, f) -> {
+                    List<Node> nodes = new ArrayList<>();
+                    getVarNode(b).addHandler(o ->
+                            nodes.add(getInstanceFieldNode(o, f)));
+                    return nodes;
+                });
+        if (!solve()) {
+            return null;
+        }
+        Set<Obj> pts = Sets.newHybridSet();
+        fieldNodes.forEach(n -> pts.addAll(n.pts));
+        return Collections.unmodifiableSet(pts);
+    }
+
+    /**
+     * Processes the work-list until it is empty or the budget runs out.
+     *
+     * @return true if the work-list is empty, i.e., the points-to sets
+     * of all pointers explored so far are complete.
+     */
+    private boolean solve() {
+        steps = 0;
+        while (!workList.isEmpty()) {
+            if (++steps > budget) {
+                return false;
+            }
+            Entry entry = workList.poll();
+            Node node = entry.node();
+            Set<Obj> delta = Sets.newHybridSet();
+            for (Obj obj : entry.objs()) {
+                if (node.pts.add(obj)) {
+                    delta.add(obj);
+                }
+            }
+            if (!delta.isEmpty()) {
+                for (Node succ : node.succs) {
+                    workList.add(new Entry(succ, delta));
+                }
+                // handlers may be added during the iteration
+                for (int i = 0; i < node.handlers.size(); ++i) {
+                    delta.forEach(node.handlers.get(i));
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds flow edge "source -> target", where source is demanded.
+     */
+    private void addEdge(Node source, Node target) {
+        if (source.succs.add(target) && !source.pts.isEmpty()) {
+            workList.add(new Entry(target, Set.copyOf(source.pts)));
+        }
+    }
+
+    private Node getVarNode(Var var) {
+        Node node = varNodes.get(var);
+        if (node == null) {
+            Node varNode = node = new Node();
+            varNodes.put(var, varNode);
+            onReachable(var.getMethod(), () -> initialize(var, varNode));
+        }
+        return node;
+    }
+
+    private Node getStaticFieldNode(JField field) {
+        Node node = staticFieldNodes.get(field);
+        if (node == null) {
+            node = new Node();
+            staticFieldNodes.put(field, node);
+            for (StoreField store : getProgramIndex().staticStores.get(field)) {
+                addEdge(getVarNode(store.getRValue()), node);
+            }
+        }
+        return node;
+    }
+
+    private Node getInstanceFieldNode(Obj base, JField field) {
+        Map<JField, Node> nodes = instanceFieldNodes.computeIfAbsent(
+                base, unused -> Maps.newMap());
+        Node node = nodes.get(field);
+        if (node == null) {
+            Node fieldNode = node = new Node();
+            nodes.put(field, fieldNode);
+            // match the stores of the field whose bases point to base
+            for (StoreField store : getProgramIndex().instanceStores.get(field)) {
+                Var storeBase = ((InstanceFieldAccess) store.getFieldAccess()).getBase();
+                getVarNode(storeBase).addHandler(o -> {
+                    if (o.equals(base)) {
+                        addEdge(getVarNode(store.getRValue()), fieldNode);
+                    }
+                });
+            }
+        }
+        return node;
+    }
+
+    private Node getArrayIndexNode(Obj array) {
+        Node node = arrayIndexNodes.get(array);
+        if (node == null) {
+            Node arrayNode = node = new Node();
+            arrayIndexNodes.put(array, arrayNode);
+            for (StoreArray store : getProgramIndex().arrayStores) {
+                Var storeBase = store.getArrayAccess().getBase();
+                getVarNode(storeBase).addHandler(o -> {
+                    if (o.equals(array)) {
+                        addEdge(getVarNode(store.getRValue()), arrayNode);
+                    }
+                });
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Adds the flows into the node of given variable.
+     */
+    private void initialize(Var var, Node node) {
+        JMethod method = var.getMethod();
+        indexDefinitions(method);
+        for (Stmt def : definitions.get(var)) {
+            if (def instanceof New newStmt) {
+                workList.add(new Entry(node, Set.of(heapModel.getObj(newStmt))));
+            } else if (def instanceof Copy copy) {
+                addEdge(getVarNode(copy.getRValue()), node);
+            } else if (def instanceof LoadField load) {
+                JField field = load.getFieldRef().resolve();
+                if (load.isStatic()) {
+                    addEdge(getStaticFieldNode(field), node);
+                } else {
+                    Var base = ((InstanceFieldAccess) load.getFieldAccess()).getBase();
+                    getVarNode(base).addHandler(o ->
+                            addEdge(getInstanceFieldNode(o, field), node));
+                }
+            } else if (def instanceof LoadArray load) {
+                getVarNode(load.getArrayAccess().getBase()).addHandler(o ->
+                        addEdge(getArrayIndexNode(o), node));
+            } else if (def instanceof Invoke invoke) {
+                addReturnFlows(invoke, node);
+            }
+        }
+        IR ir = method.getIR();
+        if (var == ir.getThis()) {
+            addReceiverFlows(method, node);
+        } else {
+            int i = ir.getParams().indexOf(var);
+            if (i >= 0) {
+                addArgumentFlows(method, i, node);
+            }
+        }
+    }
+
+    /**
+     * Adds the flows from the return variables of the callees of
+     * given call site to its left-hand side variable.
+     */
+    private void addReturnFlows(Invoke invoke, Node lhsNode) {
+        Consumer<JMethod> calleeHandler = callee -> {
+            if (callee != null && !callee.isAbstract()) {
+                for (Var ret : callee.getIR().getReturnVars()) {
+                    addEdge(getVarNode(ret), lhsNode);
+                }
+            }
+        };
+        if (invoke.isStatic()) {
+            calleeHandler.accept(CallGraphs.resolveCallee(null, invoke));
+        } else {
+            Var recv = ((InvokeInstanceExp) invoke.getInvokeExp()).getBase();
+            Set<JMethod> callees = Sets.newSet();
+            getVarNode(recv).addHandler(o -> {
+                JMethod callee = CallGraphs.resolveCallee(o.getType(), invoke);
+                if (callees.add(callee)) {
+                    calleeHandler.accept(callee);
+                }
+            });
+        }
+    }
+
+    /**
+     * Adds the flows from the receiver objects of the call sites which
+     * call given method to its this variable.
+     */
+    private void addReceiverFlows(JMethod method, Node thisNode) {
+        for (Invoke invoke : getProgramIndex().callers.get(method)) {
+            if (!invoke.isStatic()) {
+                Var recv = ((InvokeInstanceExp) invoke.getInvokeExp()).getBase();
+                getVarNode(recv).addHandler(o -> {
+                    if (method.equals(CallGraphs.resolveCallee(o.getType(), invoke))) {
+                        workList.add(new Entry(thisNode, Set.of(o)));
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Adds the flows from the i-th arguments of the call sites which
+     * call given method to its i-th parameter.
+     */
+    private void addArgumentFlows(JMethod method, int i, Node paramNode) {
+        for (Invoke invoke : getProgramIndex().callers.get(method)) {
+            List<Var> args = invoke.getInvokeExp().getArgs();
+            if (args.size() != method.getParamCount()) {
+                continue;
+            }
+            Var arg = args.get(i);
+            if (invoke.isStatic()) {
+                addEdge(getVarNode(arg), paramNode);
+            } else {
+                Var recv = ((InvokeInstanceExp) invoke.getInvokeExp()).getBase();
+                boolean[] added = {false};
+                getVarNode(recv).addHandler(o -> {
+                    if (!added[0] && method.equals(
+                            CallGraphs.resolveCallee(o.getType(), invoke))) {
+                        added[0] = true;
+                        addEdge(getVarNode(arg), paramNode);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Performs given action when given method is proved reachable.
+     */
+    private void onReachable(JMethod method, Runnable action) {
+        if (reachableMethods.contains(method)) {
+            action.run();
+        } else {
+            reachableHandlers.computeIfAbsent(method, unused -> new ArrayList<>())
+                    .add(action);
+            demandReachable(method);
+        }
+    }
+
+    /**
+     * Explores the call sites which may make given method reachable.
+     */
+    private void demandReachable(JMethod method) {
+        if (!demandedMethods.add(method)) {
+            return;
+        }
+        if (method.equals(World.get().getMainMethod())) {
+            addReachable(method);
+            return;
+        }
+        for (Invoke invoke : getProgramIndex().callers.get(method)) {
+            onReachable(invoke.getContainer(), () -> {
+                if (invoke.isStatic()) {
+                    addReachable(method);
+                } else {
+                    Var recv = ((InvokeInstanceExp) invoke.getInvokeExp()).getBase();
+                    getVarNode(recv).addHandler(o -> {
+                        if (method.equals(CallGraphs.resolveCallee(o.getType(), invoke))) {
+                            addReachable(method);
+                        }
+                    });
+                }
+            });
+        }
+    }
+
+    private void addReachable(JMethod method) {
+        if (reachableMethods.add(method)) {
+            List<Runnable> actions = reachableHandlers.remove(method);
+            if (actions != null) {
+                actions.forEach(Runnable::run);
+            }
+        }
+    }
+
+    private void indexDefinitions(JMethod method) {
+        if (indexedMethods.add(method) && !method.isAbstract()) {
+            for (Stmt stmt : method.getIR()) {
+                if (stmt instanceof New newStmt) {
+                    definitions.put(newStmt.getLValue(), stmt);
+                } else if (stmt instanceof Copy copy) {
+                    definitions.put(copy.getLValue(), stmt);
+                } else if (stmt instanceof LoadField load) {
+                    definitions.put(load.getLValue(), stmt);
+                } else if (stmt instanceof LoadArray load) {
+                    definitions.put(load.getLValue(), stmt);
+                } else if (stmt instanceof Invoke invoke &&
+                        invoke.getLValue() != null) {
+                    definitions.put(invoke.getLValue(), stmt);
+                }
+            }
+        }
+    }
+
+    private ProgramIndex getProgramIndex() {
+        if (programIndex == null) {
+            programIndex = new ProgramIndex();
+        }
+        return programIndex;
+    }
+
+    /**
+     * A pointer explored by the solver.
+     */
+    private static class Node {
+
+        private final Set<Obj> pts = Sets.newHybridSet();
+
+        private final Set<Node> succs = Sets.newHybridSet();
+
+        /**
+         * Handlers of the objects pointed to by this node, which add
+         * new flows when this node points to new objects.
+         */
+        private final List<Consumer<Obj>> handlers = new ArrayList<>(0);
+
+        /**
+         * Adds a handler, and applies it to the objects pointed to by
+         * this node so far.
+         */
+        private void addHandler(Consumer<Obj> handler) {
+            handlers.add(handler);
+            List.copyOf(pts).forEach(handler);
+        }
+
+        private Set<Obj> getObjects() {
+            return Collections.unmodifiableSet(pts);
+        }
+    }
+
+    private record Entry(Node node, Set<Obj> objs) {
+    }
+
+    /**
+     * Call sites and stores in the methods reachable in the CHA call graph.
+     */
+    private static class ProgramIndex {
+
+        private final ClassHierarchy hierarchy = World.get().getClassHierarchy();
+
+        private final MultiMap<JMethod, Invoke> callers = Maps.newMultiMap();
+
+        private final MultiMap<JField, StoreField> staticStores = Maps.newMultiMap();
+
+        private final MultiMap<JField, StoreField> instanceStores = Maps.newMultiMap();
+
+        private final List<StoreArray> arrayStores = new ArrayList<>();
+
+        private ProgramIndex() {
+            Set<JMethod> reachable = Sets.newSet();
+            Queue<JMethod> queue = new ArrayDeque<>();
+            JMethod main = World.get().getMainMethod();
+            reachable.add(main);
+            queue.add(main);
+            while (!queue.isEmpty()) {
+                JMethod method = queue.poll();
+                if (method.isAbstract()) {
+                    continue;
+                }
+                for (Stmt stmt : method.getIR()) {
+                    if (stmt instanceof Invoke invoke) {
+                        for (JMethod callee : resolve(invoke)) {
+                            callers.put(callee, invoke);
+                            if (reachable.add(callee)) {
+                                queue.add(callee);
+                            }
+                        }
+                    } else if (stmt instanceof StoreField store) {
+                        JField field = store.getFieldRef().resolve();
+                        (store.isStatic() ? staticStores : instanceStores)
+                                .put(field, store);
+                    } else if (stmt instanceof StoreArray store) {
+                        arrayStores.add(store);
+                    }
+                }
+            }
+        }
+
+        /**
+         * @return the callees of given call site in the CHA call graph.
+         */
+        private Set<JMethod> resolve(Invoke invoke) {
+            Set<JMethod> callees = Sets.newSet();
+            if (invoke.isStatic() || invoke.isSpecial()) {
+                JMethod callee = CallGraphs.resolveCallee(null, invoke);
+                if (callee != null) {
+                    callees.add(callee);
+                }
+            } else if (invoke.isVirtual() || invoke.isInterface()) {
+                JClass declaringClass = invoke.getMethodRef().getDeclaringClass();
+                Set<JClass> visited = Sets.newSet();
+                Queue<JClass> classes = new ArrayDeque<>();
+                classes.add(declaringClass);
+                while (!classes.isEmpty()) {
+                    JClass c = classes.poll();
+                    if (!visited.add(c)) {
+                        continue;
+                    }
+                    if (!c.isInterface() && !c.isAbstract()) {
+                        JMethod callee = hierarchy.dispatch(c, invoke.getMethodRef());
+                        if (callee != null && !callee.isAbstract()) {
+                            callees.add(callee);
+                        }
+                    }
+                    if (c.isInterface()) {
+                        classes.addAll(hierarchy.getDirectImplementorsOf(c));
+                        classes.addAll(hierarchy.getDirectSubinterfacesOf(c));
+                    } else {
+                        classes.addAll(hierarchy.getDirectSubclassesOf(c));
+                    }
+                }
+            }
+            return callees;
+        }
+    }
+}
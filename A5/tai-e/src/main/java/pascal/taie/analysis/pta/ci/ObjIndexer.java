@@ -0,0 +1,96 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.ci;
+
+import pascal.taie.World;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.util.collection.Maps;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assigns dense indexes to abstract objects, so that points-to sets
+ * can be represented as bit sets.
+ * <p>
+ * {@link Obj} does not carry an index, thus each object obtains its index
+ * when it is first added to a points-to set. The indexes are kept until
+ * the world is reset.
+ */
+final class ObjIndexer {
+
+    private static final Map<Obj, Integer> indexes = Maps.newMap(4096);
+
+    private static final List<Obj> objs = new ArrayList<>(4096);
+
+    static {
+        World.registerResetCallback(ObjIndexer::clear);
+    }
+
+    private ObjIndexer() {
+    }
+
+    /**
+     * @return the index of given object.
+     */
+    static int getIndex(Obj obj) {
+        Integer index = indexes.get(obj);
+        if (index == null) {
+            index = objs.size();
+            indexes.put(obj, index);
+            objs.add(obj);
+        }
+        return index;
+    }
+
+    /**
+     * @return the index of given object, or -1 if given object
+     * has not been indexed. Unlike {@link #getIndex(Obj)}, this method
+     * never assigns an index.
+     */
+    static int indexOf(Obj obj) {
+        Integer index = indexes.get(obj);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * @return the object of given index.
+     */
+    static Obj getObject(int index) {
+        return objs.get(index);
+    }
+
+    /**
+     * @return the number of indexed objects. The indexes of all
+     * indexed objects are smaller than this number.
+     */
+    static int size() {
+        return objs.size();
+    }
+
+    private static void clear() {
+        indexes.clear();
+        objs.clear();
+    }
+}
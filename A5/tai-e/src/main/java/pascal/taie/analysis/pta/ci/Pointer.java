@@ -22,6 +22,8 @@
 
 package pascal.taie.analysis.pta.ci;
 
+import pascal.taie.language.type.Type;
+
 /**
  * Represents pointers in pointer analysis and nodes in pointer flow graph.
  *
@@ -29,9 +31,22 @@ package pascal.taie.analysis.pta.ci;
  */
 abstract class Pointer {
 
-    private final PointsToSet pointsToSet = new PointsToSet();
+    private PointsToSet pointsToSet = new PointsToSet();
 
     PointsToSet getPointsToSet() {
         return pointsToSet;
     }
+
+    /**
+     * Sets the points-to set of this pointer. This is used to let
+     * the pointers in a collapsed PFG cycle share one points-to set.
+     */
+    void setPointsToSet(PointsToSet pointsToSet) {
+        this.pointsToSet = pointsToSet;
+    }
+
+    /**
+     * @return the type of this pointer.
+     */
+    abstract Type getType();
 }
@@ -30,7 +30,13 @@ import pascal.taie.util.collection.MultiMap;
 import pascal.taie.util.collection.Sets;
 import pascal.taie.util.collection.TwoKeyMap;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -39,6 +45,11 @@ import java.util.Set;
  */
 class PointerFlowGraph {
 
+    /**
+     * Maximum number of pointers visited by each search of {@link #findCycle}.
+     */
+    private static final int MAX_CYCLE_SEARCH = 1024;
+
     /**
      * Set of all pointer in this PFG.
      */
@@ -69,6 +80,17 @@ class PointerFlowGraph {
      */
     private final MultiMap<Pointer, Pointer> successors = Maps.newMultiMap();
 
+    /**
+     * Map from a pointer in a collapsed cycle to the representative
+     * of the cycle.
+     */
+    private final Map<Pointer, Pointer> representatives = Maps.newMap();
+
+    /**
+     * Map from a representative to the other pointers merged into it.
+     */
+    private final MultiMap<Pointer, Pointer> mergedPointers = Maps.newMultiMap();
+
     /**
      * Returns all pointers in this PFG.
      */
@@ -122,19 +144,117 @@ class PointerFlowGraph {
     }
 
     /**
-     * Adds an edge (source -> target) to this PFG.
+     * Adds an edge (source -> target) to this PFG. The edge is added
+     * between the representatives of source and target, and is dropped
+     * if both of them have been merged into the same representative.
      *
      * @return true if this PFG changed as a result of the call,
      * otherwise false.
      */
     boolean addEdge(Pointer source, Pointer target) {
-        return successors.put(source, target);
+        Pointer sourceRep = getRepresentative(source);
+        Pointer targetRep = getRepresentative(target);
+        return sourceRep != targetRep &&
+                successors.put(sourceRep, targetRep);
     }
 
     /**
-     * @return successors of given pointer in the PFG.
+     * @return successors of given pointer in the PFG. If the pointer
+     * has been merged, returns the successors of its representative.
+     * The successors may contain pointers that have been merged
+     * after the edges were added, so callers should map them to
+     * their representatives when necessary.
      */
     Set<Pointer> getSuccsOf(Pointer pointer) {
-        return successors.get(pointer);
+        return successors.get(getRepresentative(pointer));
+    }
+
+    /**
+     * @return the representative of given pointer, i.e., the pointer that
+     * it has been merged into, or the pointer itself if it is not merged.
+     */
+    Pointer getRepresentative(Pointer pointer) {
+        return representatives.getOrDefault(pointer, pointer);
+    }
+
+    /**
+     * @return the pointers that have been merged into given representative,
+     * excluding the representative itself.
+     */
+    Set<Pointer> getMergedPointers(Pointer rep) {
+        return mergedPointers.get(rep);
+    }
+
+    /**
+     * Finds a cycle closed by edge (source -> target), i.e., a path from
+     * target to source. The search only visits the pointers whose points-to
+     * sets are as large as the one of source, as the pointers in a cycle
+     * share the same points-to set after propagation, and it stops as soon
+     * as source is reached, or gives up after visiting
+     * {@link #MAX_CYCLE_SEARCH} pointers.
+     *
+     * @return the representatives of the pointers on the found cycle,
+     * or an empty list if no cycle is found.
+     */
+    List<Pointer> findCycle(Pointer source, Pointer target) {
+        source = getRepresentative(source);
+        target = getRepresentative(target);
+        int size = source.getPointsToSet().size();
+        // map from each visited pointer to the pointer it is reached from
+        Map<Pointer, Pointer> parents = new HashMap<>();
+        Deque<Pointer> stack = new ArrayDeque<>();
+        parents.put(target, null);
+        stack.push(target);
+        while (!stack.isEmpty()) {
+            Pointer node = stack.pop();
+            for (Pointer succ : successors.get(node)) {
+                succ = getRepresentative(succ);
+                if (succ == source) {
+                    List<Pointer> cycle = new ArrayList<>();
+                    cycle.add(source);
+                    for (Pointer p = node; p != null; p = parents.get(p)) {
+                        cycle.add(p);
+                    }
+                    return cycle;
+                }
+                if (succ != node && !parents.containsKey(succ)
+                        && succ.getPointsToSet().size() == size) {
+                    if (parents.size() >= MAX_CYCLE_SEARCH) {
+                        return List.of();
+                    }
+                    parents.put(succ, node);
+                    stack.push(succ);
+                }
+            }
+        }
+        return List.of();
+    }
+
+    /**
+     * Merges given representatives into rep, so that they share the
+     * successors of each other. This method does NOT touch the points-to
+     * sets of the pointers, which are handled by the solver.
+     */
+    void merge(Collection<Pointer> cycle, Pointer rep) {
+        Set<Pointer> succs = Sets.newSet();
+        for (Pointer pointer : cycle) {
+            successors.get(pointer).forEach(succ ->
+                    succs.add(getRepresentative(succ)));
+        }
+        for (Pointer pointer : cycle) {
+            if (pointer != rep) {
+                successors.removeAll(pointer);
+                representatives.put(pointer, rep);
+                mergedPointers.put(rep, pointer);
+                for (Pointer merged : Set.copyOf(mergedPointers.get(pointer))) {
+                    representatives.put(merged, rep);
+                    mergedPointers.put(rep, merged);
+                }
+                mergedPointers.removeAll(pointer);
+            }
+        }
+        succs.removeAll(cycle);
+        successors.removeAll(rep);
+        succs.forEach(succ -> successors.put(rep, succ));
     }
 }
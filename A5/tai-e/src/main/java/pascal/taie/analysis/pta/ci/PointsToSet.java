@@ -23,19 +23,37 @@
 package pascal.taie.analysis.pta.ci;
 
 import pascal.taie.analysis.pta.core.heap.Obj;
-import pascal.taie.util.collection.Sets;
 
-import java.util.Collections;
+import java.util.AbstractSet;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.stream.Stream;
 
 /**
  * Represents of points-to sets.
+ * <p>
+ * Each points-to set is a bit set over the indexes of abstract objects
+ * (see {@link ObjIndexer}), so that the union and difference of two
+ * points-to sets can be computed word by word.
  */
 class PointsToSet implements Iterable<Obj> {
 
-    private final Set<Obj> set = Sets.newHybridSet();
+    private static final int ADDRESS_BITS_PER_WORD = 6;
+
+    private static final long[] EMPTY_WORDS = new long[0];
+
+    /**
+     * Words of the bit set. The i-th bit is set iff the object
+     * of index i is in this set.
+     */
+    private long[] words = EMPTY_WORDS;
+
+    /**
+     * Number of objects in this set.
+     */
+    private int size = 0;
 
     /**
      * Constructs an empty points-to set.
@@ -57,51 +75,235 @@ class PointsToSet implements Iterable<Obj> {
      * otherwise false.
      */
     boolean addObject(Obj obj) {
-        return set.add(obj);
+        int index = ObjIndexer.getIndex(obj);
+        int wordIndex = index >>> ADDRESS_BITS_PER_WORD;
+        ensureCapacity(wordIndex + 1);
+        long mask = 1L << index;
+        if ((words[wordIndex] & mask) == 0) {
+            words[wordIndex] |= mask;
+            ++size;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Adds all objects in given points-to set to this set.
+     *
+     * @return true if this points-to set changed as a result of the call,
+     * otherwise false.
+     */
+    boolean addAll(PointsToSet other) {
+        long[] otherWords = other.words;
+        ensureCapacity(otherWords.length);
+        int oldSize = size;
+        for (int i = 0; i < otherWords.length; ++i) {
+            long newBits = otherWords[i] & ~words[i];
+            if (newBits != 0) {
+                words[i] |= newBits;
+                size += Long.bitCount(newBits);
+            }
+        }
+        return size != oldSize;
+    }
+
+    /**
+     * Adds all objects in given points-to set to this set.
+     *
+     * @return a new points-to set containing the objects that are
+     * in {@code other} but were not in this set, i.e., the objects
+     * newly added to this set.
+     */
+    PointsToSet addAllDiff(PointsToSet other) {
+        PointsToSet diff = new PointsToSet();
+        long[] otherWords = other.words;
+        int length = otherWords.length;
+        while (length > 0 && otherWords[length - 1] == 0) {
+            --length;
+        }
+        if (length == 0) {
+            return diff;
+        }
+        ensureCapacity(length);
+        long[] diffWords = null;
+        for (int i = 0; i < length; ++i) {
+            long newBits = otherWords[i] & ~words[i];
+            if (newBits != 0) {
+                if (diffWords == null) {
+                    diffWords = new long[length];
+                }
+                diffWords[i] = newBits;
+                words[i] |= newBits;
+                int count = Long.bitCount(newBits);
+                size += count;
+                diff.size += count;
+            }
+        }
+        if (diffWords != null) {
+            diff.words = diffWords;
+        }
+        return diff;
     }
 
     /**
      * @return true if this points-to set contains the given object, otherwise false.
      */
     boolean contains(Obj obj) {
-        return set.contains(obj);
+        int index = ObjIndexer.indexOf(obj);
+        if (index < 0) {
+            // an object without index is not in any points-to set
+            return false;
+        }
+        int wordIndex = index >>> ADDRESS_BITS_PER_WORD;
+        return wordIndex < words.length &&
+                (words[wordIndex] & (1L << index)) != 0;
+    }
+
+    /**
+     * @param mask bit set over object indexes, which must cover
+     *             the indexes of all objects in this set.
+     * @return a points-to set containing the objects in this set whose
+     * bits in mask are set. If all objects pass the mask, returns
+     * this set itself.
+     */
+    PointsToSet filter(long[] mask) {
+        long[] filtered = null;
+        int count = 0;
+        for (int i = 0; i < words.length; ++i) {
+            long word = words[i];
+            if (word != 0) {
+                long bits = i < mask.length ? word & mask[i] : 0;
+                if (bits != word && filtered == null) {
+                    filtered = Arrays.copyOf(words, words.length);
+                }
+                if (filtered != null) {
+                    filtered[i] = bits;
+                }
+                count += Long.bitCount(bits);
+            }
+        }
+        if (filtered == null) {
+            return this;
+        }
+        PointsToSet result = new PointsToSet();
+        result.words = filtered;
+        result.size = count;
+        return result;
+    }
+
+    /**
+     * @return true if this points-to set contains all objects
+     * in given points-to set, otherwise false.
+     */
+    boolean containsAll(PointsToSet other) {
+        long[] otherWords = other.words;
+        for (int i = 0; i < otherWords.length; ++i) {
+            long word = i < words.length ? words[i] : 0;
+            if ((otherWords[i] & ~word) != 0) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
      * @return whether this set if empty.
      */
     boolean isEmpty() {
-        return set.isEmpty();
+        return size == 0;
     }
 
     /**
      * @return the number of objects in this set.
      */
     int size() {
-        return set.size();
+        return size;
     }
 
     /**
      * @return all objects in this set.
      */
     Stream<Obj> objects() {
-        return set.stream();
+        return getObjects().stream();
     }
 
     /**
      * @return all objects in this set.
      */
     Set<Obj> getObjects() {
-        return Collections.unmodifiableSet(set);
+        return new AbstractSet<>() {
+
+            @Override
+            public Iterator<Obj> iterator() {
+                return PointsToSet.this.iterator();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof Obj obj && PointsToSet.this.contains(obj);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
     }
 
     @Override
     public Iterator<Obj> iterator() {
-        return set.iterator();
+        return new Iterator<>() {
+
+            private int next = nextSetBit(0);
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public Obj next() {
+                if (next < 0) {
+                    throw new NoSuchElementException();
+                }
+                Obj obj = ObjIndexer.getObject(next);
+                next = nextSetBit(next + 1);
+                return obj;
+            }
+        };
     }
 
     @Override
     public String toString() {
-        return set.toString();
+        return getObjects().toString();
+    }
+
+    /**
+     * @return the index of the first set bit that occurs on or after
+     * the given index, or -1 if there is no such bit.
+     */
+    private int nextSetBit(int fromIndex) {
+        int wordIndex = fromIndex >>> ADDRESS_BITS_PER_WORD;
+        if (wordIndex >= words.length) {
+            return -1;
+        }
+        long word = words[wordIndex] & (-1L << fromIndex);
+        while (true) {
+            if (word != 0) {
+                return (wordIndex << ADDRESS_BITS_PER_WORD) +
+                        Long.numberOfTrailingZeros(word);
+            }
+            if (++wordIndex == words.length) {
+                return -1;
+            }
+            word = words[wordIndex];
+        }
+    }
+
+    private void ensureCapacity(int wordsRequired) {
+        if (words.length < wordsRequired) {
+            int newLength = Math.max(2 * words.length, wordsRequired);
+            words = Arrays.copyOf(words, newLength);
+        }
     }
 }
@@ -24,6 +24,7 @@ package pascal.taie.analysis.pta.ci;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
 import pascal.taie.config.AnalysisOptions;
 import pascal.taie.util.AnalysisException;
 import pascal.taie.util.collection.Streams;
@@ -43,6 +44,7 @@ import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.ToIntFunction;
 
@@ -68,6 +70,30 @@ class ResultProcessor {
     }
 
     void process(CIPTAResult result) {
+        process(result, p -> toString(p.getPointsToSet()));
+    }
+
+    /**
+     * Processes the result, where the points-to sets of variables and
+     * static fields are given by {@code answers}, e.g., the answers of
+     * demand-driven queries, and the pointers and other points-to sets
+     * are given by the whole-program result.
+     */
+    void process(CIPTAResult result, PointerAnalysisResult answers) {
+        process(result, p -> {
+            if (p instanceof VarPtr varPtr) {
+                return Streams.toString(
+                        answers.getPointsToSet(varPtr.getVar()).stream());
+            } else if (p instanceof StaticField staticField) {
+                return Streams.toString(
+                        answers.getPointsToSet(staticField.getField()).stream());
+            } else {
+                return toString(p.getPointsToSet());
+            }
+        });
+    }
+
+    private void process(CIPTAResult result, Function<Pointer, String> ptsToString) {
         logStatistics(result);
         String action = options.getString("action");
         if (action == null) {
@@ -75,8 +101,8 @@ class ResultProcessor {
         }
         String file = options.getString("file");
         switch (action) {
-            case "dump" -> dumpPointsToSet(result, file);
-            case "compare" -> comparePointsToSet(result, file);
+            case "dump" -> dumpPointsToSet(result, file, ptsToString);
+            case "compare" -> comparePointsToSet(result, file, ptsToString);
         }
     }
 
@@ -104,7 +130,8 @@ class ResultProcessor {
         return formatter.format(i);
     }
 
-    private static void dumpPointsToSet(CIPTAResult result, String output) {
+    private static void dumpPointsToSet(CIPTAResult result, String output,
+                                        Function<Pointer, String> ptsToString) {
         PrintStream out;
         if (output != null) {  // if output file is given, then dump to the file
             File outFile = new File(output);
@@ -117,10 +144,10 @@ class ResultProcessor {
         } else {  // otherwise, dump to System.out
             out = System.out;
         }
-        dumpPointers(out, getPointers(result, VarPtr.class), "variables");
-        dumpPointers(out, getPointers(result, StaticField.class), "static fields");
-        dumpPointers(out, getPointers(result, InstanceField.class), "instance fields");
-        dumpPointers(out, getPointers(result, ArrayIndex.class), "array indexes");
+        dumpPointers(out, getPointers(result, VarPtr.class), "variables", ptsToString);
+        dumpPointers(out, getPointers(result, StaticField.class), "static fields", ptsToString);
+        dumpPointers(out, getPointers(result, InstanceField.class), "instance fields", ptsToString);
+        dumpPointers(out, getPointers(result, ArrayIndex.class), "array indexes", ptsToString);
         if (out != System.out) {
             out.close();
         }
@@ -134,11 +161,12 @@ class ResultProcessor {
     }
 
     private static void dumpPointers(
-            PrintStream out, Collection<? extends Pointer> pointers, String desc) {
+            PrintStream out, Collection<? extends Pointer> pointers, String desc,
+            Function<Pointer, String> ptsToString) {
         out.println(HEADER + desc);
         pointers.stream()
                 .sorted(Comparator.comparing(Pointer::toString))
-                .forEach(p -> out.println(p + SEP + toString(p.getPointsToSet())));
+                .forEach(p -> out.println(p + SEP + ptsToString.apply(p)));
         out.println();
     }
 
@@ -146,7 +174,8 @@ class ResultProcessor {
         return Streams.toString(pts.objects());
     }
 
-    private void comparePointsToSet(CIPTAResult result, String input) {
+    private void comparePointsToSet(CIPTAResult result, String input,
+                                    Function<Pointer, String> ptsToString) {
         logger.info("Comparing points-to set with {} ...", input);
         var inputs = readPointsToSets(input);
         Map<String, Pointer> pointers = new LinkedHashMap<>();
@@ -156,7 +185,7 @@ class ResultProcessor {
         addPointers(pointers, getPointers(result, ArrayIndex.class));
         List<String> mismatches = new ArrayList<>();
         pointers.forEach((pointerStr, pointer) -> {
-            String given = toString(pointer.getPointsToSet());
+            String given = ptsToString.apply(pointer);
             String expected = inputs.get(pointerStr);
             if (!given.equals(expected)) {
                 mismatches.add(String.format("%s, expected: %s, given: %s",
@@ -31,22 +31,33 @@ import pascal.taie.analysis.graph.callgraph.DefaultCallGraph;
 import pascal.taie.analysis.graph.callgraph.Edge;
 import pascal.taie.analysis.pta.core.heap.HeapModel;
 import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.config.AnalysisOptions;
 import pascal.taie.ir.exp.InvokeExp;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.ir.proginfo.MethodRef;
 import pascal.taie.ir.stmt.*;
 import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JField;
 import pascal.taie.language.classes.JMethod;
 import pascal.taie.util.AnalysisException;
 import pascal.taie.language.type.Type;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Pair;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
 
 class Solver {
 
     private static final Logger logger = LogManager.getLogger(Solver.class);
 
+    private final AnalysisOptions options;
+
     private final HeapModel heapModel;
 
     private DefaultCallGraph callGraph;
@@ -59,7 +70,43 @@ class Solver {
 
     private ClassHierarchy hierarchy;
 
-    Solver(HeapModel heapModel) {
+    /**
+     * Whether to detect and collapse cycles in the PFG.
+     */
+    private boolean collapseCycles;
+
+    /**
+     * PFG edges that have been checked for cycles. Each edge is checked
+     * at most once, as in lazy cycle detection.
+     */
+    private MultiMap<Pointer, Pointer> checkedEdges;
+
+    /**
+     * PFG edges that may close cycles and are waiting to be checked.
+     */
+    private Queue<Pair<Pointer, Pointer>> cycleCandidates;
+
+    /**
+     * Whether to substitute copy-equivalent variables before solving.
+     */
+    private boolean substituteVars;
+
+    private VarSubstitution varSubstitution;
+
+    /**
+     * Filter of the objects propagated along PFG edges,
+     * or null if type filtering is disabled.
+     */
+    private TypeFilter typeFilter;
+
+    /**
+     * Map from a variable to the resolved statements that take
+     * the variable as base.
+     */
+    private Map<Var, VarHandlers> varHandlers;
+
+    Solver(AnalysisOptions options, HeapModel heapModel) {
+        this.options = options;
         this.heapModel = heapModel;
     }
 
@@ -69,14 +116,26 @@ class Solver {
     void solve() {
         initialize();
         analyze();
+        if (substituteVars) {
+            expandSubstitutedVars();
+        }
     }
 
     /**
      * Initializes pointer analysis.
      */
     private void initialize() {
-        workList = new WorkList();
+        workList = options.getBooleanOrDefault("coalesce-worklist", false) ?
+                new CoalescingWorkList() : new WorkList();
         pointerFlowGraph = new PointerFlowGraph();
+        collapseCycles = options.getBooleanOrDefault("collapse-pfg-cycles", false);
+        checkedEdges = Maps.newMultiMap();
+        cycleCandidates = new ArrayDeque<>();
+        substituteVars = options.getBooleanOrDefault("substitute-vars", false);
+        varSubstitution = new VarSubstitution();
+        varHandlers = Maps.newMap();
+        typeFilter = options.getBooleanOrDefault("type-filter", false) ?
+                new TypeFilter(World.get().getTypeSystem()) : null;
         callGraph = new DefaultCallGraph();
         stmtProcessor = new StmtProcessor();
         hierarchy = World.get().getClassHierarchy();
@@ -93,6 +152,9 @@ class Solver {
         // TODO - finish me
         if (!callGraph.contains(method)) {
             callGraph.addReachableMethod(method);
+            if (substituteVars) {
+                varSubstitution.process(method.getIR());
+            }
             List<Stmt> stmts = method.getIR().getStmts();
             for (Stmt stmt : stmts) {
                 stmt.accept(stmtProcessor);
@@ -100,6 +162,51 @@ class Solver {
         }
     }
 
+    /**
+     * Builds the handlers of given variable. The Var nodes of the handlers
+     * are created here, so the handlers are built when the variable points
+     * to objects for the first time, when the nodes are needed anyway.
+     */
+    private VarHandlers buildHandlers(Var var) {
+        List<StoreField> storeFields = var.getStoreFields();
+        List<LoadField> loadFields = var.getLoadFields();
+        List<StoreArray> storeArrays = var.getStoreArrays();
+        List<LoadArray> loadArrays = var.getLoadArrays();
+        List<Invoke> invokes = var.getInvokes();
+        if (storeFields.isEmpty() && loadFields.isEmpty() &&
+                storeArrays.isEmpty() && loadArrays.isEmpty() &&
+                invokes.isEmpty()) {
+            return VarHandlers.EMPTY;
+        }
+        return new VarHandlers(
+                storeFields.stream()
+                        .map(s -> s.getFieldRef().resolve())
+                        .toArray(JField[]::new),
+                storeFields.stream()
+                        .map(s -> getVarPtr(s.getRValue()))
+                        .toArray(VarPtr[]::new),
+                loadFields.stream()
+                        .map(s -> s.getFieldRef().resolve())
+                        .toArray(JField[]::new),
+                loadFields.stream()
+                        .map(s -> getVarPtr(s.getLValue()))
+                        .toArray(VarPtr[]::new),
+                storeArrays.stream()
+                        .map(s -> getVarPtr(s.getRValue()))
+                        .toArray(VarPtr[]::new),
+                loadArrays.stream()
+                        .map(s -> getVarPtr(s.getLValue()))
+                        .toArray(VarPtr[]::new),
+                invokes.toArray(new Invoke[0]));
+    }
+
+    /**
+     * @return the handlers of given variable.
+     */
+    private VarHandlers getHandlers(Var var) {
+        return varHandlers.computeIfAbsent(var, this::buildHandlers);
+    }
+
     /**
      * Processes statements in new reachable methods.
      */
@@ -109,15 +216,15 @@ class Solver {
 
         @Override
         public Void visit(New stmt) {
-            Pointer ptr = pointerFlowGraph.getVarPtr(stmt.getLValue());
+            Pointer ptr = getVarPtr(stmt.getLValue());
             workList.addEntry(ptr, new PointsToSet(heapModel.getObj(stmt)));
             return null;
         }
 
         @Override
         public Void visit(Copy stmt) {
-            Pointer ptrLVar = pointerFlowGraph.getVarPtr(stmt.getLValue());
-            Pointer ptrRVar = pointerFlowGraph.getVarPtr(stmt.getRValue());
+            Pointer ptrLVar = getVarPtr(stmt.getLValue());
+            Pointer ptrRVar = getVarPtr(stmt.getRValue());
             pointerFlowGraph.addEdge(ptrRVar, ptrLVar);
             return null;
         }
@@ -134,7 +241,7 @@ class Solver {
         @Override
         public Void visit(LoadField stmt) {
             if (stmt.isStatic()) {
-                Pointer ptrLVar = pointerFlowGraph.getVarPtr(stmt.getLValue());
+                Pointer ptrLVar = getVarPtr(stmt.getLValue());
                 Pointer ptrRVar = pointerFlowGraph.getStaticField(stmt.getFieldRef().resolve());
                 pointerFlowGraph.addEdge(ptrRVar, ptrLVar);
             }
@@ -145,7 +252,7 @@ class Solver {
         public Void visit(StoreField stmt) {
             if (stmt.isStatic()) {
                 Pointer ptrLVar = pointerFlowGraph.getStaticField(stmt.getFieldRef().resolve());
-                Pointer ptrRVar = pointerFlowGraph.getVarPtr(stmt.getRValue());
+                Pointer ptrRVar = getVarPtr(stmt.getRValue());
                 pointerFlowGraph.addEdge(ptrRVar, ptrLVar);
             }
             return null;
@@ -158,9 +265,8 @@ class Solver {
      */
     private void addPFGEdge(Pointer source, Pointer target) {
         // TODO - finish me
-        if(!pointerFlowGraph.getSuccsOf(source).contains(target)) {
-            pointerFlowGraph.addEdge(source, target);
-            PointsToSet pts = source.getPointsToSet();
+        if (pointerFlowGraph.addEdge(source, target)) {
+            PointsToSet pts = filter(source.getPointsToSet(), target);
             if (!pts.isEmpty()) {
                 workList.addEntry(target, pts);
             }
@@ -176,46 +282,140 @@ class Solver {
         while (!workList.isEmpty()) {
             WorkList.Entry entry = workList.pollEntry();
             PointsToSet pts = entry.pointsToSet();
-            Pointer ptr = entry.pointer();
+            Pointer ptr = pointerFlowGraph.getRepresentative(entry.pointer());
             PointsToSet delta = propagate(ptr, pts);
-            if (ptr instanceof VarPtr varPtr) {
-                Var var = varPtr.getVar();
-                for (Obj obj : delta) {
-                    // Store Field
-                    List<StoreField> storeFieldStmts = var.getStoreFields();
-                    for (StoreField storeField : storeFieldStmts) {
-                        Pointer ptrLVar = pointerFlowGraph.getInstanceField(obj, storeField.getFieldAccess().getFieldRef().resolve());
-                        Pointer ptrRVar = pointerFlowGraph.getVarPtr(storeField.getRValue());
-                        addPFGEdge(ptrRVar, ptrLVar);
-                    }
-                    // Load Field
-                    List<LoadField> loadFieldStmts = var.getLoadFields();
-                    for (LoadField loadField : loadFieldStmts) {
-                        Pointer ptrLVar = pointerFlowGraph.getVarPtr(loadField.getLValue());
-                        Pointer ptrRVar = pointerFlowGraph.getInstanceField(obj, loadField.getFieldAccess().getFieldRef().resolve());
-                        addPFGEdge(ptrRVar, ptrLVar);
-                    }
-                    // Store Array
-                    List<StoreArray> storeArrayStmts = var.getStoreArrays();
-                    for (StoreArray storeArray : storeArrayStmts) {
-                        Pointer ptrLVar = pointerFlowGraph.getArrayIndex(obj);
-                        Pointer ptrRVar = pointerFlowGraph.getVarPtr(storeArray.getRValue());
-                        addPFGEdge(ptrRVar, ptrLVar);
-                    }
-                    // Load Array
-                    List<LoadArray> loadArrayStmts = var.getLoadArrays();
-                    for (LoadArray loadArray : loadArrayStmts) {
-                        Pointer ptrLVar = pointerFlowGraph.getVarPtr(loadArray.getLValue());
-                        Pointer ptrRVar = pointerFlowGraph.getArrayIndex(obj);
-                        addPFGEdge(ptrRVar, ptrLVar);
-                    }
-                    // Process Call
-                    processCall(var, obj);
+            if (!delta.isEmpty()) {
+                processNewObjects(ptr, delta);
+                for (Pointer merged : pointerFlowGraph.getMergedPointers(ptr)) {
+                    processNewObjects(merged, delta);
+                }
+            }
+            if (collapseCycles) {
+                collapseCycles();
+            }
+        }
+    }
+
+    /**
+     * Processes the objects newly pointed to by given pointer.
+     */
+    private void processNewObjects(Pointer ptr, PointsToSet delta) {
+        if (ptr instanceof VarPtr varPtr) {
+            Var var = varPtr.getVar();
+            processVar(var, delta);
+            for (Var substituted : varSubstitution.getSubstitutedVars(var)) {
+                processVar(substituted, delta);
+            }
+        }
+    }
+
+    /**
+     * Processes the statements that use given variable, whose points-to
+     * set has new objects.
+     */
+    private void processVar(Var var, PointsToSet delta) {
+        VarHandlers handlers = getHandlers(var);
+        if (handlers == VarHandlers.EMPTY) {
+            return;
+        }
+        for (Obj obj : delta) {
+            // Store Field
+            for (int i = 0; i < handlers.storeFields.length; ++i) {
+                addPFGEdge(handlers.storeFieldSources[i],
+                        pointerFlowGraph.getInstanceField(obj, handlers.storeFields[i]));
+            }
+            // Load Field
+            for (int i = 0; i < handlers.loadFields.length; ++i) {
+                addPFGEdge(pointerFlowGraph.getInstanceField(obj, handlers.loadFields[i]),
+                        handlers.loadFieldTargets[i]);
+            }
+            // Store Array and Load Array
+            if (handlers.storeArraySources.length > 0 ||
+                    handlers.loadArrayTargets.length > 0) {
+                ArrayIndex arrayIndex = pointerFlowGraph.getArrayIndex(obj);
+                for (VarPtr source : handlers.storeArraySources) {
+                    addPFGEdge(source, arrayIndex);
+                }
+                for (VarPtr target : handlers.loadArrayTargets) {
+                    addPFGEdge(arrayIndex, target);
                 }
             }
+            // Process Call
+            if (handlers.invokes.length > 0) {
+                processCall(var, obj);
+            }
+        }
+    }
+
+    /**
+     * Collapses the PFG cycles closed by the candidate edges.
+     */
+    private void collapseCycles() {
+        while (!cycleCandidates.isEmpty()) {
+            Pair<Pointer, Pointer> edge = cycleCandidates.poll();
+            List<Pointer> cycle = pointerFlowGraph.findCycle(
+                    edge.first(), edge.second());
+            if (!cycle.isEmpty() && isCollapsible(cycle)) {
+                collapseCycle(cycle);
+            }
         }
     }
 
+    /**
+     * @return true if the pointers in given cycle can be merged. When type
+     * filtering is enabled, pointers of different types may have different
+     * points-to sets, thus only the cycles whose pointers are of the same
+     * type are collapsed.
+     */
+    private boolean isCollapsible(List<Pointer> cycle) {
+        if (typeFilter == null) {
+            return true;
+        }
+        Type type = cycle.get(0).getType();
+        return cycle.stream().allMatch(p -> p.getType().equals(type));
+    }
+
+    /**
+     * Merges the pointers in given cycle into one representative, so that
+     * they share one points-to set. For each merged pointer, the objects
+     * that it gains from the merge are processed as if they were
+     * propagated to it.
+     */
+    private void collapseCycle(List<Pointer> cycle) {
+        Pointer rep = cycle.get(0);
+        PointsToSet union = new PointsToSet();
+        cycle.forEach(p -> union.addAll(p.getPointsToSet()));
+        Map<Pointer, PointsToSet> diffs = Maps.newMap();
+        Map<Pointer, List<Pointer>> members = Maps.newMap();
+        for (Pointer p : cycle) {
+            PointsToSet pts = new PointsToSet();
+            pts.addAll(p.getPointsToSet());
+            diffs.put(p, pts.addAllDiff(union));
+            List<Pointer> ptrs = new ArrayList<>();
+            ptrs.add(p);
+            ptrs.addAll(pointerFlowGraph.getMergedPointers(p));
+            members.put(p, ptrs);
+        }
+        PointsToSet repPts = rep.getPointsToSet();
+        repPts.addAll(union);
+        members.values().forEach(ptrs ->
+                ptrs.forEach(p -> p.setPointsToSet(repPts)));
+        pointerFlowGraph.merge(cycle, rep);
+        logger.trace("Collapsed PFG cycle of {} pointers into {}",
+                cycle.size(), rep);
+        for (Pointer p : cycle) {
+            PointsToSet diff = diffs.get(p);
+            if (!diff.isEmpty()) {
+                members.get(p).forEach(ptr -> processNewObjects(ptr, diff));
+                for (Pointer succ : pointerFlowGraph.getSuccsOf(rep)) {
+                    PointsToSet pts = filter(diff, succ);
+                    if (!pts.isEmpty()) {
+                        workList.addEntry(succ, pts);
+                    }
+                }
+            }
+        }
+    }
 
     /**
      * Propagates pointsToSet to pt(pointer) and its PFG successors,
@@ -223,24 +423,45 @@ class Solver {
      */
     private PointsToSet propagate(Pointer pointer, PointsToSet pointsToSet) {
         // TODO - finish me
-        PointsToSet delta = new PointsToSet();
-        for (Obj obj: pointsToSet) {
-            if (!pointer.getPointsToSet().contains(obj)) {
-                delta.addObject(obj);
-            }
-        }
+        PointsToSet delta = pointer.getPointsToSet().addAllDiff(pointsToSet);
         if (!delta.isEmpty()) {
-            for (Obj obj: delta) {
-                pointer.getPointsToSet().addObject(obj);
-            }
             Set<Pointer> succs = pointerFlowGraph.getSuccsOf(pointer);
             for (Pointer succ: succs) {
-                workList.addEntry(succ, delta);
+                PointsToSet pts = filter(delta, succ);
+                if (!pts.isEmpty()) {
+                    workList.addEntry(succ, pts);
+                }
+                if (collapseCycles) {
+                    checkCycle(pointer, succ);
+                }
             }
         }
         return delta;
     }
 
+    /**
+     * @return the objects in given points-to set that can flow to target.
+     */
+    private PointsToSet filter(PointsToSet pts, Pointer target) {
+        return typeFilter == null ? pts : typeFilter.filter(pts, target.getType());
+    }
+
+    /**
+     * Lazy cycle detection: if the points-to sets of the two ends of
+     * edge (source -> target) are identical after propagation, the edge
+     * is likely in a cycle, thus records it for cycle detection.
+     */
+    private void checkCycle(Pointer source, Pointer target) {
+        target = pointerFlowGraph.getRepresentative(target);
+        PointsToSet sourcePts = source.getPointsToSet();
+        PointsToSet targetPts = target.getPointsToSet();
+        if (source != target && sourcePts.size() == targetPts.size()
+                && targetPts.containsAll(sourcePts)
+                && checkedEdges.put(source, target)) {
+            cycleCandidates.add(new Pair<>(source, target));
+        }
+    }
+
     private void processSingleCall(Invoke callSite, JMethod callee) {
         if (!callGraph.getCalleesOf(callSite).contains(callee)) {
             CallKind kind = null;
@@ -255,15 +476,15 @@ class Solver {
                 List<Var> args = callee.getIR().getParams();
                 if (args.size() == callSite.getRValue().getArgs().size()) {
                     for (int i = 0; i < args.size(); i++) {
-                        Pointer argPtr = pointerFlowGraph.getVarPtr(callSite.getRValue().getArgs().get(i));
-                        Pointer paraPtr = pointerFlowGraph.getVarPtr(args.get(i));
+                        Pointer argPtr = getVarPtr(callSite.getRValue().getArgs().get(i));
+                        Pointer paraPtr = getVarPtr(args.get(i));
                         addPFGEdge(argPtr, paraPtr);
                     }
                     if (callSite.getLValue() != null) {
                         List<Var> returnVars = callee.getIR().getReturnVars();
                         for (Var var: returnVars) {
-                            Pointer varPtr = pointerFlowGraph.getVarPtr(var);
-                            Pointer ptrLVar = pointerFlowGraph.getVarPtr(callSite.getLValue());
+                            Pointer varPtr = getVarPtr(var);
+                            Pointer ptrLVar = getVarPtr(callSite.getLValue());
                             addPFGEdge(varPtr, ptrLVar);
                         }
                     }
@@ -280,10 +501,9 @@ class Solver {
      */
     private void processCall(Var var, Obj recv) {
         // TODO - finish me
-        List<Invoke> callSites = var.getInvokes();
-        for (Invoke callSite: callSites) {
+        for (Invoke callSite : getHandlers(var).invokes) {
             JMethod callee = resolveCallee(recv, callSite);
-            VarPtr thisPtr = pointerFlowGraph.getVarPtr(callee.getIR().getThis());
+            VarPtr thisPtr = getVarPtr(callee.getIR().getThis());
             workList.addEntry(thisPtr, new PointsToSet(recv));
             processSingleCall(callSite, callee);
         }
@@ -302,6 +522,26 @@ class Solver {
         return CallGraphs.resolveCallee(type, callSite);
     }
 
+    /**
+     * @return the Var node for given variable, or the node of its
+     * representative if the variable is substituted.
+     */
+    private VarPtr getVarPtr(Var var) {
+        return pointerFlowGraph.getVarPtr(varSubstitution.getRepresentative(var));
+    }
+
+    /**
+     * Lets each substituted variable share the points-to set of its
+     * representative, so that the substitution is transparent to
+     * the queries on the analysis result.
+     */
+    private void expandSubstitutedVars() {
+        for (Var var : varSubstitution.getSubstitutedVars()) {
+            pointerFlowGraph.getVarPtr(var)
+                    .setPointsToSet(getVarPtr(var).getPointsToSet());
+        }
+    }
+
     CIPTAResult getResult() {
         return new CIPTAResult(pointerFlowGraph, callGraph);
     }
@@ -0,0 +1,96 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.ci;
+
+import pascal.taie.language.type.Type;
+import pascal.taie.language.type.TypeSystem;
+import pascal.taie.util.collection.Maps;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Filters the objects propagated along PFG edges by the types of
+ * the target pointers, so that a pointer only receives the objects
+ * that can be assigned to it.
+ * <p>
+ * For each pointer type, the filter keeps a bit set over the indexes
+ * of objects (see {@link ObjIndexer}), where the bit of an object is set
+ * iff the type of the object is a subtype of the pointer type. As objects
+ * are indexed on the fly, each bit set is extended lazily to cover
+ * the objects indexed since its last use.
+ */
+class TypeFilter {
+
+    private final TypeSystem typeSystem;
+
+    private final Map<Type, Mask> masks = Maps.newMap();
+
+    TypeFilter(TypeSystem typeSystem) {
+        this.typeSystem = typeSystem;
+    }
+
+    /**
+     * @return the objects in given points-to set that can be assigned
+     * to a pointer of given type.
+     */
+    PointsToSet filter(PointsToSet pts, Type type) {
+        if (pts.isEmpty()) {
+            return pts;
+        }
+        return pts.filter(masks.computeIfAbsent(type, Mask::new).getBits());
+    }
+
+    private class Mask {
+
+        private final Type type;
+
+        private long[] bits = new long[0];
+
+        /**
+         * Number of objects that have been checked for this mask.
+         */
+        private int checked = 0;
+
+        private Mask(Type type) {
+            this.type = type;
+        }
+
+        private long[] getBits() {
+            int size = ObjIndexer.size();
+            if (checked < size) {
+                int length = (size + 63) >>> 6;
+                if (bits.length < length) {
+                    bits = Arrays.copyOf(bits, Math.max(length, bits.length * 2));
+                }
+                for (int i = checked; i < size; ++i) {
+                    if (typeSystem.isSubtype(type, ObjIndexer.getObject(i).getType())) {
+                        bits[i >>> 6] |= 1L << i;
+                    }
+                }
+                checked = size;
+            }
+            return bits;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.ci;
+
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JField;
+
+/**
+ * Resolved statements that take a variable as base, i.e., the statements
+ * to be processed when the variable points to new objects. The field
+ * references are resolved and the variables are mapped to their Var nodes
+ * in advance, so that processing a new object is a flat scan of arrays.
+ */
+final class VarHandlers {
+
+    static final VarHandlers EMPTY = new VarHandlers(
+            new JField[0], new VarPtr[0],
+            new JField[0], new VarPtr[0],
+            new VarPtr[0], new VarPtr[0],
+            new Invoke[0]);
+
+    /**
+     * Fields and right-hand-side Var nodes of stores x.f = y.
+     */
+    final JField[] storeFields;
+
+    final VarPtr[] storeFieldSources;
+
+    /**
+     * Fields and left-hand-side Var nodes of loads y = x.f.
+     */
+    final JField[] loadFields;
+
+    final VarPtr[] loadFieldTargets;
+
+    /**
+     * Right-hand-side Var nodes of array stores x[i] = y.
+     */
+    final VarPtr[] storeArraySources;
+
+    /**
+     * Left-hand-side Var nodes of array loads y = x[i].
+     */
+    final VarPtr[] loadArrayTargets;
+
+    /**
+     * Instance call sites whose receiver is the variable.
+     */
+    final Invoke[] invokes;
+
+    VarHandlers(JField[] storeFields, VarPtr[] storeFieldSources,
+                JField[] loadFields, VarPtr[] loadFieldTargets,
+                VarPtr[] storeArraySources, VarPtr[] loadArrayTargets,
+                Invoke[] invokes) {
+        this.storeFields = storeFields;
+        this.storeFieldSources = storeFieldSources;
+        this.loadFields = loadFields;
+        this.loadFieldTargets = loadFieldTargets;
+        this.storeArraySources = storeArraySources;
+        this.loadArrayTargets = loadArrayTargets;
+        this.invokes = invokes;
+    }
+}
@@ -23,6 +23,7 @@
 package pascal.taie.analysis.pta.ci;
 
 import pascal.taie.ir.exp.Var;
+import pascal.taie.language.type.Type;
 
 /**
  * Represents local variable pointer in PFG.
@@ -42,6 +43,11 @@ class VarPtr extends Pointer {
         return var;
     }
 
+    @Override
+    Type getType() {
+        return var.getType();
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
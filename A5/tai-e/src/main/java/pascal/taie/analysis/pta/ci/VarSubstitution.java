@@ -0,0 +1,133 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.ci;
+
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Offline variable substitution for pointer analysis.
+ * <p>
+ * If all definitions of a variable are copies from the same variable,
+ * e.g., x = y, then the variable always has the same points-to set as
+ * the source, thus it can be substituted by the source (or, for copy
+ * chains, by the head of the chain) during solving. This saves
+ * the pointers and the PFG edges of the substituted variables.
+ * <p>
+ * Note that this only eliminates single-copy chains. It does not number
+ * the values of loads, calls, or variables copied from multiple sources,
+ * thus it finds a subset of the equivalences found by hash-based value
+ * numbering (HVN).
+ */
+class VarSubstitution {
+
+    /**
+     * Map from a substituted variable to its representative.
+     */
+    private final Map<Var, Var> representatives = Maps.newMap();
+
+    /**
+     * Map from a representative to the variables substituted by it.
+     */
+    private final MultiMap<Var, Var> substitutedVars = Maps.newMultiMap();
+
+    /**
+     * IRs that have been processed.
+     */
+    private final Set<IR> processedIRs = Sets.newSet();
+
+    /**
+     * Finds the substitutable variables in given IR. Each IR is
+     * processed only once.
+     */
+    void process(IR ir) {
+        if (!processedIRs.add(ir)) {
+            return;
+        }
+        Map<Var, Var> sources = Maps.newMap();
+        Set<Var> others = Sets.newSet();
+        others.addAll(ir.getParams());
+        if (ir.getThis() != null) {
+            others.add(ir.getThis());
+        }
+        for (Stmt stmt : ir) {
+            stmt.getDef().ifPresent(def -> {
+                if (def instanceof Var var) {
+                    if (stmt instanceof Copy copy) {
+                        Var source = copy.getRValue();
+                        Var prev = sources.putIfAbsent(var, source);
+                        if (source == var || (prev != null && prev != source)) {
+                            others.add(var);
+                        }
+                    } else {
+                        others.add(var);
+                    }
+                }
+            });
+        }
+        others.forEach(sources::remove);
+        for (Var var : sources.keySet()) {
+            Var rep = var;
+            Set<Var> visited = Sets.newSet();
+            while (sources.containsKey(rep) && visited.add(rep)) {
+                rep = sources.get(rep);
+            }
+            // a copy cycle without other definitions points to nothing,
+            // thus its variables are simply left alone
+            if (!sources.containsKey(rep)) {
+                representatives.put(var, rep);
+                substitutedVars.put(rep, var);
+            }
+        }
+    }
+
+    /**
+     * @return the representative of given variable, or the variable
+     * itself if it is not substituted.
+     */
+    Var getRepresentative(Var var) {
+        return representatives.getOrDefault(var, var);
+    }
+
+    /**
+     * @return the variables substituted by given representative.
+     */
+    Set<Var> getSubstitutedVars(Var rep) {
+        return substitutedVars.get(rep);
+    }
+
+    /**
+     * @return all substituted variables.
+     */
+    Set<Var> getSubstitutedVars() {
+        return representatives.keySet();
+    }
+}
@@ -78,4 +78,61 @@ public class CIPTATest {
     public void testMergeParam() {
         Tests.testCIPTA(DIR, "MergeParam");
     }
+
+    @Test
+    public void testExampleCoalesceWorkList() {
+        Tests.testCIPTA(DIR, "Example", "coalesce-worklist:true");
+    }
+
+    @Test
+    public void testAssign2CollapseCycles() {
+        Tests.testCIPTA(DIR, "Assign2", "collapse-pfg-cycles:true");
+    }
+
+    @Test
+    public void testStoreLoadSubstituteVars() {
+        Tests.testCIPTA(DIR, "StoreLoad", "substitute-vars:true");
+    }
+
+    @Test
+    public void testCallTypeFilter() {
+        Tests.testCIPTA(DIR, "Call", "type-filter:true");
+    }
+
+    @Test
+    public void testExampleDemandDriven() {
+        Tests.testCIPTA(DIR, "Example", "demand-driven:true");
+    }
+
+    @Test
+    public void testArrayDemandDriven() {
+        Tests.testCIPTA(DIR, "Array", "demand-driven:true");
+    }
+
+    @Test
+    public void testCallDemandDriven() {
+        Tests.testCIPTA(DIR, "Call", "demand-driven:true");
+    }
+
+    @Test
+    public void testInstanceFieldDemandDriven() {
+        Tests.testCIPTA(DIR, "InstanceField", "demand-driven:true");
+    }
+
+    @Test
+    public void testStaticFieldDemandDriven() {
+        Tests.testCIPTA(DIR, "StaticField", "demand-driven:true");
+    }
+
+    @Test
+    public void testStaticCallDemandDriven() {
+        Tests.testCIPTA(DIR, "StaticCall", "demand-driven:true");
+    }
+
+    @Test
+    public void testCallDemandBudget() {
+        // most queries run out of budget and fall back to
+        // the whole-program result
+        Tests.testCIPTA(DIR, "Call", "demand-driven:true", "demand-budget:1");
+    }
 }
@@ -0,0 +1,48 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.ci;
+
+import org.junit.Test;
+import pascal.taie.analysis.pta.core.heap.MockObj;
+import pascal.taie.analysis.pta.core.heap.Obj;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PointsToSetTest {
+
+    @Test
+    public void testContainsDoesNotIndex() {
+        Obj o1 = new MockObj("o1", "o1", null);
+        Obj o2 = new MockObj("o2", "o2", null);
+        PointsToSet pts = new PointsToSet(o1);
+        int size = ObjIndexer.size();
+        assertTrue(pts.contains(o1));
+        assertFalse(pts.contains(o2));
+        // querying an unknown object does not assign an index to it
+        assertEquals(size, ObjIndexer.size());
+        assertEquals(-1, ObjIndexer.indexOf(o2));
+    }
+}
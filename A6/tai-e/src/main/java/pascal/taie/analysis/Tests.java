@@ -23,7 +23,10 @@
 package pascal.taie.analysis;
 
 import pascal.taie.Main;
+import pascal.taie.World;
 import pascal.taie.analysis.misc.ClassDumper;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.cs.CSPTA;
 
 import java.nio.file.Paths;
 import java.util.ArrayList;
@@ -49,11 +52,42 @@ public final class Tests {
     private static final boolean DUMP_IR = true;
 
     public static void testCSPTA(String dir, String main, String... opts) {
-        doTestPTA("cspta", dir, main, opts);
+        doTestPTA("cspta", dir, main, null, opts);
     }
 
-    private static void doTestPTA(
-            String id, String dir, String main, String... opts) {
+    /**
+     * Tests pointer analysis against a variant of the expected results
+     * of the test case, which is for the analysis under the given options.
+     *
+     * @param variant name of the variant, which is part of the name of
+     *                the expected file, e.g., TwoCall-variant-cspta-expected.txt
+     */
+    public static void testCSPTAVariant(
+            String dir, String main, String variant, String... opts) {
+        doTestPTA("cspta", dir, main, variant, opts);
+    }
+
+    /**
+     * Runs pointer analysis on the test case without processing its result.
+     *
+     * @return the result of the analysis.
+     */
+    public static PointerAnalysisResult runCSPTA(
+            String dir, String main, String... opts) {
+        runPTA(CSPTA.ID, dir, main, null, opts);
+        return World.get().getResult(CSPTA.ID);
+    }
+
+    private static void doTestPTA(String id, String dir, String main,
+                                  String variant, String... opts) {
+        String action = GENERATE_EXPECTED_RESULTS ? "dump" : "compare";
+        String file = getExpectedFile("src/test/resources/pta/" + dir,
+                variant == null ? main : main + "-" + variant, id);
+        runPTA(id, dir, main, List.of("action:" + action, "file:" + file), opts);
+    }
+
+    private static void runPTA(String id, String dir, String main,
+                               List<String> actionArgs, String... opts) {
         List<String> args = new ArrayList<>();
         args.add("-pp");
         String classPath = "src/test/resources/pta/" + dir;
@@ -65,10 +99,9 @@ public final class Tests {
         }
         List<String> ptaArgs = new ArrayList<>();
         ptaArgs.add("implicit-entries:false");
-        String action = GENERATE_EXPECTED_RESULTS ? "dump" : "compare";
-        ptaArgs.add("action:" + action);
-        String file = getExpectedFile(classPath, main, id);
-        ptaArgs.add("file:" + file);
+        if (actionArgs != null) {
+            ptaArgs.addAll(actionArgs);
+        }
         boolean specifyOnlyApp = false;
         for (String opt : opts) {
             ptaArgs.add(opt);
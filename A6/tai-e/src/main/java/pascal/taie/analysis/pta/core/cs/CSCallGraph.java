@@ -31,10 +31,12 @@ import pascal.taie.analysis.pta.core.cs.element.CSMethod;
 import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.ir.stmt.Stmt;
 import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
 import pascal.taie.util.collection.Sets;
 import pascal.taie.util.collection.Views;
 
 import java.util.Collections;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Stream;
 
@@ -45,6 +47,11 @@ public class CSCallGraph extends AbstractCallGraph<CSCallSite, CSMethod> {
 
     private final CSManager csManager;
 
+    /**
+     * Call sites in each method, shared by all contexts of the method.
+     */
+    private final Map<JMethod, Invoke[]> methodInvokes = Maps.newMap();
+
     public CSCallGraph(CSManager csManager) {
         this.csManager = csManager;
     }
@@ -64,14 +71,33 @@ public class CSCallGraph extends AbstractCallGraph<CSCallSite, CSMethod> {
      */
     public boolean addReachableMethod(CSMethod csMethod) {
         if (reachableMethods.add(csMethod)) {
-            callSitesIn(csMethod).forEach(csCallSite ->
-                    csCallSite.setContainer(csMethod));
+            Set<CSCallSite> callSites = createCallSitesIn(csMethod);
+            callSites.forEach(csCallSite -> csCallSite.setContainer(csMethod));
+            csMethod.setCallSites(callSites);
             return true;
         } else {
             return false;
         }
     }
 
+    /**
+     * Updates the call sites of given reachable method after its body
+     * has changed. The call sites of all contexts of the method are
+     * re-collected from the current IR of the method.
+     */
+    public void updateCallSitesIn(JMethod method) {
+        methodInvokes.remove(method);
+        reachableMethods.stream()
+                .filter(csMethod -> csMethod.getMethod().equals(method))
+                .forEach(csMethod -> {
+                    Set<CSCallSite> callSites = createCallSitesIn(csMethod);
+                    callSites.stream()
+                            .filter(csCallSite -> csCallSite.getContainer() == null)
+                            .forEach(csCallSite -> csCallSite.setContainer(csMethod));
+                    csMethod.setCallSites(callSites);
+                });
+    }
+
     /**
      * Adds a new call graph edge to this call graph.
      *
@@ -88,6 +114,22 @@ public class CSCallGraph extends AbstractCallGraph<CSCallSite, CSMethod> {
         }
     }
 
+    /**
+     * Removes a call graph edge from this call graph.
+     *
+     * @param edge the call edge to be removed
+     * @return true if the call graph changed as a result of the call,
+     * otherwise false.
+     */
+    public boolean removeEdge(Edge<CSCallSite, CSMethod> edge) {
+        if (edge.getCallSite().removeEdge(edge)) {
+            edge.getCallee().removeEdge(edge);
+            return true;
+        } else {
+            return false;
+        }
+    }
+
     @Override
     public Set<CSCallSite> getCallersOf(CSMethod callee) {
         return Views.toMappedSet(callee.getEdges(), Edge::getCallSite);
@@ -105,18 +147,35 @@ public class CSCallGraph extends AbstractCallGraph<CSCallSite, CSMethod> {
 
     @Override
     public Set<CSCallSite> getCallSitesIn(CSMethod csMethod) {
-        JMethod method = csMethod.getMethod();
+        Set<CSCallSite> callSites = csMethod.getCallSites();
+        // call sites are cached for reachable methods only
+        return callSites != null ? callSites : createCallSitesIn(csMethod);
+    }
+
+    private Set<CSCallSite> createCallSitesIn(CSMethod csMethod) {
         Context context = csMethod.getContext();
+        Invoke[] invokes = getInvokesIn(csMethod.getMethod());
+        if (invokes.length == 0) {
+            return Set.of();
+        }
         Set<CSCallSite> callSites = Sets.newHybridOrderedSet();
-        for (Stmt s : method.getIR()) {
-            if (s instanceof Invoke) {
-                CSCallSite csCallSite = csManager.getCSCallSite(context, (Invoke) s);
-                callSites.add(csCallSite);
-            }
+        for (Invoke invoke : invokes) {
+            callSites.add(csManager.getCSCallSite(context, invoke));
         }
         return Collections.unmodifiableSet(callSites);
     }
 
+    /**
+     * @return the call sites in given method, in the order of their
+     * appearance in the IR.
+     */
+    private Invoke[] getInvokesIn(JMethod method) {
+        return methodInvokes.computeIfAbsent(method, m -> m.getIR()
+                .stmts()
+                .filter(s -> s instanceof Invoke)
+                .toArray(Invoke[]::new));
+    }
+
     @Override
     public Stream<Edge<CSCallSite, CSMethod>> edgesOutOf(CSCallSite csCallSite) {
         return csCallSite.getEdges().stream();
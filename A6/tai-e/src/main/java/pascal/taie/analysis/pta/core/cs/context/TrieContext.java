@@ -0,0 +1,251 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.cs.context;
+
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Contexts which are interned as the nodes of a context trie.
+ * Each context is represented by its parent, i.e., the context without
+ * the last element, and its last element.
+ * <p>
+ * All contexts are created by a {@link Factory}, which guarantees that
+ * equal contexts created by the same factory are the same object, so that
+ * contexts can be compared by identity. Appending an element to a context
+ * looks up the child node of the context, which allocates nothing when
+ * the resulting context already exists.
+ * <p>
+ * Each context is also given an int id, which is dense among the contexts
+ * created by the same factory, so that the context can be used as
+ * a part of int keys without looking it up in a map.
+ */
+public class TrieContext implements Context {
+
+    private final TrieContext root;
+
+    private final TrieContext parent;
+
+    private final Object element;
+
+    private final int length;
+
+    private final int id;
+
+    /**
+     * Counter of the ids of the contexts in this trie, which is only
+     * present in the root.
+     */
+    private final AtomicInteger nextId;
+
+    /**
+     * Cached hash code, computed in the same way as {@link List#hashCode()}
+     * over the context elements, so that it agrees with {@link ListContext}.
+     */
+    private final int hashCode;
+
+    /**
+     * Child contexts, i.e., the contexts which consist of the elements
+     * of this context followed by one more element. Created on demand.
+     */
+    private volatile ConcurrentMap<Object, TrieContext> children;
+
+    /**
+     * Cached context which consists of the elements of this context
+     * except the first one. Computed on demand.
+     */
+    private volatile TrieContext tail;
+
+    private TrieContext(TrieContext parent, Object element) {
+        this.parent = parent;
+        this.element = element;
+        if (parent == null) {
+            this.root = this;
+            this.nextId = new AtomicInteger();
+            this.length = 0;
+            this.hashCode = 1;
+        } else {
+            this.root = parent.root;
+            this.nextId = null;
+            this.length = parent.length + 1;
+            this.hashCode = 31 * parent.hashCode + element.hashCode();
+        }
+        this.id = root.nextId.getAndIncrement();
+    }
+
+    /**
+     * @return the id of this context. The ids of the contexts created
+     * by the same factory are distinct, and range from 0 to the number
+     * of these contexts (exclusive).
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @return true if this context and given context are created by
+     * the same factory, i.e., their ids are comparable.
+     */
+    public boolean isInSameTrie(TrieContext other) {
+        return root == other.root;
+    }
+
+    @Override
+    public int getLength() {
+        return length;
+    }
+
+    @Override
+    public Object getElementAt(int i) {
+        if (i < 0 || i >= length) {
+            throw new AnalysisException(
+                    "Context " + this + " doesn't have " + i + "-th element");
+        }
+        TrieContext c = this;
+        for (int j = length - 1; j > i; --j) {
+            c = c.parent;
+        }
+        return c.element;
+    }
+
+    /**
+     * @return the last element of this context, or null if this context
+     * is empty.
+     */
+    public Object getLastElement() {
+        return element;
+    }
+
+    private TrieContext getChild(Object element) {
+        ConcurrentMap<Object, TrieContext> children = this.children;
+        if (children == null) {
+            synchronized (this) {
+                children = this.children;
+                if (children == null) {
+                    this.children = children = Maps.newConcurrentMap(4);
+                }
+            }
+        }
+        TrieContext child = children.get(element);
+        return child != null ? child :
+                children.computeIfAbsent(element, e -> new TrieContext(this, e));
+    }
+
+    private TrieContext getTail() {
+        TrieContext tail = this.tail;
+        if (tail == null) {
+            // the tail of a one-element context is the empty context
+            tail = length == 1 ? root : parent.getTail().getChild(element);
+            this.tail = tail;
+        }
+        return tail;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        // contexts are interned, thus equal contexts are identical
+        return this == o;
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        List<Object> elements = new ArrayList<>(length);
+        for (TrieContext c = this; c.length > 0; c = c.parent) {
+            elements.add(c.element);
+        }
+        Collections.reverse(elements);
+        return elements.toString();
+    }
+
+    /**
+     * Creates and interns {@link TrieContext}s. This class is thread-safe.
+     */
+    public static class Factory {
+
+        private final TrieContext root = new TrieContext(null, null);
+
+        /**
+         * @return the empty context.
+         */
+        public Context getEmptyContext() {
+            return root;
+        }
+
+        /**
+         * @return a context that consists of given context elements.
+         */
+        public Context make(Object... elements) {
+            TrieContext c = root;
+            for (Object element : elements) {
+                c = c.getChild(element);
+            }
+            return c;
+        }
+
+        /**
+         * Appends an element to a context, and keeps the last (at most)
+         * {@code limit} elements of the result.
+         *
+         * @return the resulting context.
+         */
+        public Context append(Context parent, Object element, int limit) {
+            if (limit <= 0) {
+                return root;
+            }
+            return truncate(cast(parent), limit - 1).getChild(element);
+        }
+
+        /**
+         * @return a context that consists of the last (at most)
+         * {@code limit} elements of given context.
+         */
+        public Context limit(Context context, int limit) {
+            return truncate(cast(context), Math.max(limit, 0));
+        }
+
+        private TrieContext truncate(TrieContext context, int limit) {
+            while (context.length > limit) {
+                context = context.getTail();
+            }
+            return context;
+        }
+
+        private TrieContext cast(Context context) {
+            if (context instanceof TrieContext c && c.root == root) {
+                return c;
+            }
+            throw new AnalysisException(context + " is not created by this factory");
+        }
+    }
+}
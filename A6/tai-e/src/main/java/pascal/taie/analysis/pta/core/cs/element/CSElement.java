@@ -23,14 +23,23 @@
 package pascal.taie.analysis.pta.core.cs.element;
 
 import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.util.Indexable;
 
 /**
  * Context-sensitive elements. Each element is associate with a context.
  */
-public interface CSElement {
+public interface CSElement extends Indexable {
 
     /**
      * @return the context of the context-sensitive element.
      */
     Context getContext();
+
+    /**
+     * @return the global index of the context-sensitive element, which
+     * is dense among all elements created by the same {@link IndexedCSManager}.
+     * Returns -1 if the element is not created by {@link IndexedCSManager}.
+     */
+    @Override
+    int getIndex();
 }
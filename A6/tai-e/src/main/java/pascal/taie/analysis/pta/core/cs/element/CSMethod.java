@@ -46,6 +46,12 @@ public class CSMethod extends AbstractCSElement {
      */
     private final Set<Edge<CSCallSite, CSMethod>> edges = Sets.newHybridSet();
 
+    /**
+     * Call sites in this CS method, set when this method becomes reachable,
+     * and reset when the body of this method changes.
+     */
+    private Set<CSCallSite> callSites;
+
     private final ResultHolder resultHolder = new AbstractResultHolder() {};
 
     CSMethod(JMethod method, Context context) {
@@ -60,10 +66,26 @@ public class CSMethod extends AbstractCSElement {
         return method;
     }
 
+    public void setCallSites(Set<CSCallSite> callSites) {
+        this.callSites = callSites;
+    }
+
+    /**
+     * @return the call sites in this CS method, or null if they have
+     * not been set, i.e., this method has not been reachable.
+     */
+    public Set<CSCallSite> getCallSites() {
+        return callSites;
+    }
+
     public void addEdge(Edge<CSCallSite, CSMethod> edge) {
         edges.add(edge);
     }
 
+    public void removeEdge(Edge<CSCallSite, CSMethod> edge) {
+        edges.remove(edge);
+    }
+
     public Set<Edge<CSCallSite, CSMethod>> getEdges() {
         return Collections.unmodifiableSet(edges);
     }
@@ -35,6 +35,8 @@ public class CSVar extends AbstractPointer implements CSElement {
 
     private final Context context;
 
+    private int index = -1;
+
     CSVar(Var var, Context context) {
         this.var = var;
         this.context = context;
@@ -45,6 +47,16 @@ public class CSVar extends AbstractPointer implements CSElement {
         return context;
     }
 
+    @Override
+    public int getIndex() {
+        return index;
+    }
+
+    void setIndex(int index) {
+        assert this.index == -1; // should be set only once
+        this.index = index;
+    }
+
     /**
      * @return the variable (without context).
      */
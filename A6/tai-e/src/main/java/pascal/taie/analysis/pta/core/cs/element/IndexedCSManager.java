@@ -0,0 +1,272 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.cs.element;
+
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.context.TrieContext;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.pts.PointsToSetFactory;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link CSManager} which gives contexts and elements int ids.
+ * <p>
+ * Each context and each element without context (variable, object,
+ * call site, method and field) is given an int id, and context-sensitive
+ * elements are stored in {@link LongKeyTable}s keyed by the pair of
+ * the ids, so that retrieving an element does not go through nested maps.
+ * The id of a {@link TrieContext} is carried by the context itself, thus
+ * retrieving an element with such a context takes one map lookup (for
+ * the element without context) and one probe of the table. Other contexts
+ * are given ids by a map.
+ * In addition, every {@link CSElement} created by this manager is given
+ * a dense global index (see {@link CSElement#getIndex()}), which can be
+ * used to index arrays and bit sets.
+ */
+public class IndexedCSManager implements CSManager {
+
+    /**
+     * A {@link TrieContext} passed to this manager, or null if there is none.
+     * The ids of the trie contexts in the same trie as this context are
+     * used as context ids (doubled, to be distinguished from the ids of
+     * other contexts).
+     */
+    private TrieContext trie;
+
+    /**
+     * Ids of the other contexts, keyed by contexts which are equal
+     * to the stored ones.
+     */
+    private final Map<Context, Integer> contextIds = Maps.newMap();
+
+    /**
+     * The other contexts, indexed by their ids (halved).
+     */
+    private final List<Context> contexts = new ArrayList<>();
+
+    /**
+     * Ids of elements without contexts.
+     */
+    private final Map<Object, Integer> baseIds = new IdentityHashMap<>();
+
+    private final LongKeyTable<CSVar> vars = new LongKeyTable<>(4096);
+
+    private final LongKeyTable<CSObj> objs = new LongKeyTable<>(4096);
+
+    private final LongKeyTable<CSCallSite> callSites = new LongKeyTable<>(1024);
+
+    private final LongKeyTable<CSMethod> methods = new LongKeyTable<>(1024);
+
+    private final LongKeyTable<InstanceField> instanceFields = new LongKeyTable<>(1024);
+
+    private final LongKeyTable<ArrayIndex> arrayIndexes = new LongKeyTable<>(1024);
+
+    private final Map<JField, StaticField> staticFields = Maps.newMap();
+
+    private final MultiMap<Var, CSVar> var2CSVars = Maps.newMultiMap();
+
+    /**
+     * All created context-sensitive elements, indexed by their global index.
+     */
+    private final List<CSElement> elements = new ArrayList<>(8192);
+
+    @Override
+    public CSVar getCSVar(Context context, Var var) {
+        int contextId = getContextId(context);
+        return vars.computeIfAbsent(
+                LongKeyTable.key(contextId, getBaseId(var)), unused -> {
+                    CSVar csVar = new CSVar(var, getContext(context, contextId));
+                    csVar.setPointsToSet(PointsToSetFactory.make());
+                    csVar.setIndex(elements.size());
+                    elements.add(csVar);
+                    var2CSVars.put(var, csVar);
+                    return csVar;
+                });
+    }
+
+    @Override
+    public CSObj getCSObj(Context heapContext, Obj obj) {
+        int contextId = getContextId(heapContext);
+        return objs.computeIfAbsent(
+                LongKeyTable.key(contextId, getBaseId(obj)), unused ->
+                        addElement(new CSObj(obj, getContext(heapContext, contextId))));
+    }
+
+    @Override
+    public CSCallSite getCSCallSite(Context context, Invoke callSite) {
+        int contextId = getContextId(context);
+        return callSites.computeIfAbsent(
+                LongKeyTable.key(contextId, getBaseId(callSite)), unused ->
+                        addElement(new CSCallSite(callSite, getContext(context, contextId))));
+    }
+
+    @Override
+    public CSMethod getCSMethod(Context context, JMethod method) {
+        int contextId = getContextId(context);
+        return methods.computeIfAbsent(
+                LongKeyTable.key(contextId, getBaseId(method)), unused ->
+                        addElement(new CSMethod(method, getContext(context, contextId))));
+    }
+
+    @Override
+    public StaticField getStaticField(JField field) {
+        return staticFields.computeIfAbsent(field, f -> {
+            StaticField staticField = new StaticField(f);
+            staticField.setPointsToSet(PointsToSetFactory.make());
+            return staticField;
+        });
+    }
+
+    @Override
+    public InstanceField getInstanceField(CSObj base, JField field) {
+        return instanceFields.computeIfAbsent(
+                LongKeyTable.key(getIndexOf(base), getBaseId(field)), unused -> {
+                    InstanceField instanceField = new InstanceField(base, field);
+                    instanceField.setPointsToSet(PointsToSetFactory.make());
+                    return instanceField;
+                });
+    }
+
+    @Override
+    public ArrayIndex getArrayIndex(CSObj array) {
+        return arrayIndexes.computeIfAbsent(getIndexOf(array), unused -> {
+            ArrayIndex arrayIndex = new ArrayIndex(array);
+            arrayIndex.setPointsToSet(PointsToSetFactory.make());
+            return arrayIndex;
+        });
+    }
+
+    /**
+     * @return the context-sensitive element of given global index.
+     */
+    public CSElement getElement(int index) {
+        return elements.get(index);
+    }
+
+    /**
+     * @return the number of context-sensitive elements created by
+     * this manager, i.e., the upper bound (exclusive) of their indexes.
+     */
+    public int getNumberOfElements() {
+        return elements.size();
+    }
+
+    @Override
+    public Collection<Var> getVars() {
+        return Collections.unmodifiableSet(var2CSVars.keySet());
+    }
+
+    @Override
+    public Collection<CSVar> getCSVarsOf(Var var) {
+        return var2CSVars.get(var);
+    }
+
+    @Override
+    public Collection<CSVar> getCSVars() {
+        return vars.values();
+    }
+
+    @Override
+    public Collection<CSObj> getObjects() {
+        return objs.values();
+    }
+
+    @Override
+    public Collection<StaticField> getStaticFields() {
+        return Collections.unmodifiableCollection(staticFields.values());
+    }
+
+    @Override
+    public Collection<InstanceField> getInstanceFields() {
+        return instanceFields.values();
+    }
+
+    @Override
+    public Collection<ArrayIndex> getArrayIndexes() {
+        return arrayIndexes.values();
+    }
+
+    private int getContextId(Context context) {
+        if (context instanceof TrieContext trieContext) {
+            if (trie == null) {
+                trie = trieContext;
+            }
+            if (trieContext.isInSameTrie(trie)) {
+                return trieContext.getId() << 1;
+            }
+        }
+        Integer id = contextIds.get(context);
+        if (id == null) {
+            id = (contexts.size() << 1) | 1;
+            contexts.add(context);
+            contextIds.put(context, id);
+        }
+        return id;
+    }
+
+    /**
+     * @return the context to be stored in the element created for
+     * given context, whose id is given. The equal contexts of
+     * the elements are the same object.
+     */
+    private Context getContext(Context context, int contextId) {
+        return (contextId & 1) == 0 ? context : contexts.get(contextId >>> 1);
+    }
+
+    private int getBaseId(Object element) {
+        Integer id = baseIds.get(element);
+        if (id == null) {
+            id = baseIds.size();
+            baseIds.put(element, id);
+        }
+        return id;
+    }
+
+    private <E extends AbstractCSElement> E addElement(E element) {
+        element.setIndex(elements.size());
+        elements.add(element);
+        return element;
+    }
+
+    private int getIndexOf(CSObj obj) {
+        int index = obj.getIndex();
+        if (index == -1) {
+            throw new AnalysisException(
+                    obj + " is not created by " + getClass().getSimpleName());
+        }
+        return index;
+    }
+}
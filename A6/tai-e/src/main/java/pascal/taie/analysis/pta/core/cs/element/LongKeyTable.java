@@ -0,0 +1,126 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.cs.element;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.LongFunction;
+
+/**
+ * Open-addressing hash table with non-negative {@code long} keys,
+ * which avoids boxing keys and allocating entries. Values are never
+ * removed, and they are also kept in insertion order for iteration.
+ *
+ * @param <V> type of values
+ */
+final class LongKeyTable<V> {
+
+    private static final long EMPTY = -1L;
+
+    private long[] keys;
+
+    private Object[] values;
+
+    private final List<V> valueList = new ArrayList<>();
+
+    LongKeyTable(int initialCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(initialCapacity, 8) - 1) << 1;
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        values = new Object[capacity];
+    }
+
+    /**
+     * @return a key composed of two non-negative ints.
+     */
+    static long key(int high, int low) {
+        return ((long) high << 32) | low;
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        int mask = keys.length - 1;
+        for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+            long k = keys[i];
+            if (k == key) {
+                return (V) values[i];
+            } else if (k == EMPTY) {
+                return null;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    V computeIfAbsent(long key, LongFunction<V> creator) {
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        for (long k; (k = keys[i]) != EMPTY; i = (i + 1) & mask) {
+            if (k == key) {
+                return (V) values[i];
+            }
+        }
+        V value = creator.apply(key);
+        keys[i] = key;
+        values[i] = value;
+        valueList.add(value);
+        if (valueList.size() * 2 > keys.length) {
+            resize();
+        }
+        return value;
+    }
+
+    Collection<V> values() {
+        return Collections.unmodifiableList(valueList);
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new long[oldKeys.length << 1];
+        Arrays.fill(keys, EMPTY);
+        values = new Object[keys.length];
+        int mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; ++j) {
+            long key = oldKeys[j];
+            if (key != EMPTY) {
+                int i = hash(key) & mask;
+                while (keys[i] != EMPTY) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = key;
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    private static int hash(long key) {
+        // mixes both halves of the key into the low bits, as the keys
+        // composed of small ints would collide if the halves were
+        // simply folded together by xor
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
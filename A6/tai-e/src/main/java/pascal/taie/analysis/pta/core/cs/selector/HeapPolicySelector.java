@@ -0,0 +1,109 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.cs.selector;
+
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.context.TrieContext;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.heap.MergedObj;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.Type;
+
+import java.util.Set;
+
+/**
+ * Context selector which enforces the heap abstraction policy on the
+ * heap contexts selected by another selector:
+ * <ul>
+ *     <li>merged objects (see {@link MergedObj}) are not cloned,
+ *     i.e., they always have the empty heap context;</li>
+ *     <li>heap contexts are limited to a maximum depth;</li>
+ *     <li>the objects of given auto-merged types are not cloned.</li>
+ * </ul>
+ * The auto-merged types are fixed before the analysis (see
+ * {@code CSPTA}), so that the selected contexts do not depend on
+ * the order in which the objects are allocated.
+ * Method contexts are selected by the underlying selector as is.
+ * This class is thread-safe if the underlying selector is.
+ */
+public class HeapPolicySelector implements ContextSelector {
+
+    /**
+     * Value of depth and threshold which means no limit.
+     */
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    private final ContextSelector delegate;
+
+    private final TrieContext.Factory factory;
+
+    private final int maxHeapContextDepth;
+
+    private final Set<Type> autoMergedTypes;
+
+    /**
+     * @param delegate            the selector which selects the contexts
+     * @param factory             the factory used by delegate
+     * @param maxHeapContextDepth maximum length of heap contexts
+     * @param autoMergedTypes     types whose objects are not cloned
+     */
+    public HeapPolicySelector(ContextSelector delegate,
+                              TrieContext.Factory factory,
+                              int maxHeapContextDepth,
+                              Set<Type> autoMergedTypes) {
+        this.delegate = delegate;
+        this.factory = factory;
+        this.maxHeapContextDepth = maxHeapContextDepth;
+        this.autoMergedTypes = Set.copyOf(autoMergedTypes);
+    }
+
+    @Override
+    public Context getEmptyContext() {
+        return delegate.getEmptyContext();
+    }
+
+    @Override
+    public Context selectContext(CSCallSite callSite, JMethod callee) {
+        return delegate.selectContext(callSite, callee);
+    }
+
+    @Override
+    public Context selectContext(CSCallSite callSite, CSObj recv, JMethod callee) {
+        return delegate.selectContext(callSite, recv, callee);
+    }
+
+    @Override
+    public Context selectHeapContext(CSMethod method, Obj obj) {
+        if (obj instanceof MergedObj || autoMergedTypes.contains(obj.getType())) {
+            return getEmptyContext();
+        }
+        Context heapContext = delegate.selectHeapContext(method, obj);
+        if (maxHeapContextDepth != UNLIMITED) {
+            heapContext = factory.limit(heapContext, maxHeapContextDepth);
+        }
+        return heapContext;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.cs.selector;
+
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.context.TrieContext;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.Map;
+
+/**
+ * Context selector which applies different context-sensitivity variants
+ * to different methods, e.g., as selected by Scaler.
+ * Contexts of callees are selected by the selector of the callee, and
+ * heap contexts are selected by the selector of the allocating method.
+ * All selectors must make contexts with the same {@link TrieContext.Factory},
+ * as the contexts selected by one selector are extended by the others.
+ */
+public class SelectiveSelector implements ContextSelector {
+
+    private final TrieContext.Factory factory;
+
+    private final Map<JMethod, ContextSelector> selectors;
+
+    /**
+     * Selector for the methods which are absent in {@link #selectors}.
+     */
+    private final ContextSelector defaultSelector;
+
+    public SelectiveSelector(TrieContext.Factory factory,
+                             Map<JMethod, ContextSelector> selectors,
+                             ContextSelector defaultSelector) {
+        this.factory = factory;
+        this.selectors = selectors;
+        this.defaultSelector = defaultSelector;
+    }
+
+    @Override
+    public Context getEmptyContext() {
+        return factory.getEmptyContext();
+    }
+
+    @Override
+    public Context selectContext(CSCallSite callSite, JMethod callee) {
+        return getSelector(callee).selectContext(callSite, callee);
+    }
+
+    @Override
+    public Context selectContext(CSCallSite callSite, CSObj recv, JMethod callee) {
+        return getSelector(callee).selectContext(callSite, recv, callee);
+    }
+
+    @Override
+    public Context selectHeapContext(CSMethod method, Obj obj) {
+        return getSelector(method.getMethod()).selectHeapContext(method, obj);
+    }
+
+    private ContextSelector getSelector(JMethod method) {
+        return selectors.getOrDefault(method, defaultSelector);
+    }
+}
@@ -23,7 +23,7 @@
 package pascal.taie.analysis.pta.core.cs.selector;
 
 import pascal.taie.analysis.pta.core.cs.context.Context;
-import pascal.taie.analysis.pta.core.cs.context.ListContext;
+import pascal.taie.analysis.pta.core.cs.context.TrieContext;
 import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
 import pascal.taie.analysis.pta.core.cs.element.CSMethod;
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
@@ -35,15 +35,25 @@ import pascal.taie.language.classes.JMethod;
  */
 public class _1CallSelector implements ContextSelector {
 
+    private final TrieContext.Factory factory;
+
+    public _1CallSelector() {
+        this(new TrieContext.Factory());
+    }
+
+    public _1CallSelector(TrieContext.Factory factory) {
+        this.factory = factory;
+    }
+
     @Override
     public Context getEmptyContext() {
-        return ListContext.make();
+        return factory.getEmptyContext();
     }
 
     @Override
     public Context selectContext(CSCallSite callSite, JMethod callee) {
         // TODO - finish me
-        return ListContext.make(callSite.getCallSite());
+        return factory.make(callSite.getCallSite());
     }
 
     @Override
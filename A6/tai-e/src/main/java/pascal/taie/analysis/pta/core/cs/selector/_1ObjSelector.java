@@ -23,7 +23,7 @@
 package pascal.taie.analysis.pta.core.cs.selector;
 
 import pascal.taie.analysis.pta.core.cs.context.Context;
-import pascal.taie.analysis.pta.core.cs.context.ListContext;
+import pascal.taie.analysis.pta.core.cs.context.TrieContext;
 import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
 import pascal.taie.analysis.pta.core.cs.element.CSMethod;
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
@@ -35,9 +35,19 @@ import pascal.taie.language.classes.JMethod;
  */
 public class _1ObjSelector implements ContextSelector {
 
+    private final TrieContext.Factory factory;
+
+    public _1ObjSelector() {
+        this(new TrieContext.Factory());
+    }
+
+    public _1ObjSelector(TrieContext.Factory factory) {
+        this.factory = factory;
+    }
+
     @Override
     public Context getEmptyContext() {
-        return ListContext.make();
+        return factory.getEmptyContext();
     }
 
     @Override
@@ -52,7 +62,7 @@ public class _1ObjSelector implements ContextSelector {
         if (recv == null) {
             return selectContext(callSite, callee);
         }
-        return ListContext.make(recv.getObject());
+        return factory.make(recv.getObject());
     }
 
     @Override
@@ -23,7 +23,7 @@
 package pascal.taie.analysis.pta.core.cs.selector;
 
 import pascal.taie.analysis.pta.core.cs.context.Context;
-import pascal.taie.analysis.pta.core.cs.context.ListContext;
+import pascal.taie.analysis.pta.core.cs.context.TrieContext;
 import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
 import pascal.taie.analysis.pta.core.cs.element.CSMethod;
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
@@ -36,19 +36,25 @@ import pascal.taie.language.classes.JMethod;
  */
 public class _2CallSelector implements ContextSelector {
 
+    private final TrieContext.Factory factory;
+
+    public _2CallSelector() {
+        this(new TrieContext.Factory());
+    }
+
+    public _2CallSelector(TrieContext.Factory factory) {
+        this.factory = factory;
+    }
+
     @Override
     public Context getEmptyContext() {
-        return ListContext.make();
+        return factory.getEmptyContext();
     }
 
     @Override
     public Context selectContext(CSCallSite callSite, JMethod callee) {
         // TODO - finish me
-        Context oldCtx = callSite.getContext();
-        if (oldCtx.getLength() >= 1) {
-            return ListContext.make(oldCtx.getElementAt(oldCtx.getLength() - 1), callSite.getCallSite());
-        }
-        return ListContext.make(callSite.getCallSite());
+        return factory.append(callSite.getContext(), callSite.getCallSite(), 2);
     }
 
     @Override
@@ -60,10 +66,6 @@ public class _2CallSelector implements ContextSelector {
     @Override
     public Context selectHeapContext(CSMethod method, Obj obj) {
         // TODO - finish me
-        Context oldCtx = method.getContext();
-        if (oldCtx.getLength() > 0) {
-            return ListContext.make(oldCtx.getElementAt(oldCtx.getLength() - 1));
-        }
-        return getEmptyContext();
+        return factory.limit(method.getContext(), 1);
     }
 }
@@ -23,7 +23,7 @@
 package pascal.taie.analysis.pta.core.cs.selector;
 
 import pascal.taie.analysis.pta.core.cs.context.Context;
-import pascal.taie.analysis.pta.core.cs.context.ListContext;
+import pascal.taie.analysis.pta.core.cs.context.TrieContext;
 import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
 import pascal.taie.analysis.pta.core.cs.element.CSMethod;
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
@@ -35,9 +35,19 @@ import pascal.taie.language.classes.JMethod;
  */
 public class _2ObjSelector implements ContextSelector {
 
+    private final TrieContext.Factory factory;
+
+    public _2ObjSelector() {
+        this(new TrieContext.Factory());
+    }
+
+    public _2ObjSelector(TrieContext.Factory factory) {
+        this.factory = factory;
+    }
+
     @Override
     public Context getEmptyContext() {
-        return ListContext.make();
+        return factory.getEmptyContext();
     }
 
     @Override
@@ -49,20 +59,12 @@ public class _2ObjSelector implements ContextSelector {
     @Override
     public Context selectContext(CSCallSite callSite, CSObj recv, JMethod callee) {
         // TODO - finish me
-        Context oldCtx = recv.getContext();
-        if (oldCtx.getLength() >= 1) {
-            return ListContext.make(oldCtx.getElementAt(oldCtx.getLength() - 1), recv.getObject());
-        }
-        return ListContext.make(recv.getObject());
+        return factory.append(recv.getContext(), recv.getObject(), 2);
     }
 
     @Override
     public Context selectHeapContext(CSMethod method, Obj obj) {
         // TODO - finish me
-        Context oldCtx = method.getContext();
-        if (oldCtx.getLength() > 0) {
-            return ListContext.make(oldCtx.getElementAt(oldCtx.getLength() - 1));
-        }
-        return getEmptyContext();
+        return factory.limit(method.getContext(), 1);
     }
 }
@@ -23,7 +23,7 @@
 package pascal.taie.analysis.pta.core.cs.selector;
 
 import pascal.taie.analysis.pta.core.cs.context.Context;
-import pascal.taie.analysis.pta.core.cs.context.ListContext;
+import pascal.taie.analysis.pta.core.cs.context.TrieContext;
 import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
 import pascal.taie.analysis.pta.core.cs.element.CSMethod;
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
@@ -36,9 +36,19 @@ import pascal.taie.language.type.Type;
  */
 public class _2TypeSelector implements ContextSelector {
 
+    private final TrieContext.Factory factory;
+
+    public _2TypeSelector() {
+        this(new TrieContext.Factory());
+    }
+
+    public _2TypeSelector(TrieContext.Factory factory) {
+        this.factory = factory;
+    }
+
     @Override
     public Context getEmptyContext() {
-        return ListContext.make();
+        return factory.getEmptyContext();
     }
 
     @Override
@@ -53,20 +63,13 @@ public class _2TypeSelector implements ContextSelector {
         if (recv instanceof Obj) {
             return selectContext(callSite, callee);
         }
-        Context oldCtx = recv.getContext();
-        if (oldCtx.getLength() >= 1) {
-            return ListContext.make(oldCtx.getElementAt(oldCtx.getLength() - 1), recv.getObject().getContainerType());
-        }
-        return ListContext.make(recv.getObject().getContainerType());
+        return factory.append(recv.getContext(),
+                recv.getObject().getContainerType(), 2);
     }
 
     @Override
     public Context selectHeapContext(CSMethod method, Obj obj) {
         // TODO - finish me
-        Context oldCtx = method.getContext();
-        if (oldCtx.getLength() > 0) {
-            return ListContext.make(oldCtx.getElementAt(oldCtx.getLength()-1));
-        }
-        return getEmptyContext();
+        return factory.limit(method.getContext(), 1);
     }
 }
@@ -0,0 +1,89 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.heap;
+
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.language.type.ClassType;
+import pascal.taie.language.type.Type;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Allocation-site based heap model which additionally merges the objects
+ * of selected types, i.e., all allocation sites of such a type are
+ * represented by a single {@link MergedObj}.
+ * <p>
+ * The types are given by option "merge-alloc-sites" as a comma-separated
+ * list, where each entry is either a class name, e.g., java.lang.Integer,
+ * or a package name followed by ".*", e.g., java.util.*, which selects
+ * all classes in the package and its sub-packages.
+ */
+public class MergingHeapModel extends AbstractHeapModel {
+
+    private final Set<String> classNames = Sets.newSet();
+
+    private final List<String> packagePrefixes;
+
+    /**
+     * Caches whether the objects of each type are merged.
+     */
+    private final Map<Type, Boolean> mergedTypes = Maps.newMap();
+
+    public MergingHeapModel(AnalysisOptions options) {
+        super(options);
+        String mergeAllocSites = options.getString("merge-alloc-sites");
+        List<String> entries = mergeAllocSites == null ? List.of() :
+                List.of(mergeAllocSites.split(","));
+        entries.stream()
+                .map(String::trim)
+                .filter(entry -> !entry.isEmpty() && !entry.endsWith(".*"))
+                .forEach(classNames::add);
+        packagePrefixes = entries.stream()
+                .map(String::trim)
+                .filter(entry -> entry.endsWith(".*"))
+                // keep the trailing dot to avoid matching, e.g., java.utils
+                .map(entry -> entry.substring(0, entry.length() - 1))
+                .toList();
+    }
+
+    @Override
+    protected Obj doGetObj(New allocSite) {
+        Type type = allocSite.getRValue().getType();
+        return mergedTypes.computeIfAbsent(type, this::isMerged) ?
+                getMergedObj(allocSite) : getNewObj(allocSite);
+    }
+
+    private boolean isMerged(Type type) {
+        if (type instanceof ClassType classType) {
+            String name = classType.getName();
+            return classNames.contains(name) ||
+                    packagePrefixes.stream().anyMatch(name::startsWith);
+        }
+        return false;
+    }
+}
@@ -22,19 +22,38 @@
 
 package pascal.taie.analysis.pta.cs;
 
+import pascal.taie.World;
 import pascal.taie.analysis.ProgramAnalysis;
 import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.core.cs.context.TrieContext;
 import pascal.taie.analysis.pta.core.cs.selector.CISelector;
 import pascal.taie.analysis.pta.core.cs.selector.ContextSelector;
+import pascal.taie.analysis.pta.core.cs.selector.HeapPolicySelector;
+import pascal.taie.analysis.pta.core.cs.selector.SelectiveSelector;
 import pascal.taie.analysis.pta.core.heap.AllocationSiteBasedModel;
+import pascal.taie.analysis.pta.core.heap.HeapModel;
+import pascal.taie.analysis.pta.core.heap.MergedObj;
+import pascal.taie.analysis.pta.core.heap.MergingHeapModel;
+import pascal.taie.analysis.pta.core.heap.Obj;
 import pascal.taie.analysis.pta.plugin.ResultProcessor;
+import pascal.taie.analysis.pta.pts.PointsToSetFactory;
+import pascal.taie.analysis.pta.toolkit.scaler.Scaler;
 import pascal.taie.config.AnalysisConfig;
 import pascal.taie.config.AnalysisOptions;
 import pascal.taie.config.ConfigException;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.Type;
+import pascal.taie.util.AnalysisException;
 import pascal.taie.util.Strings;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Context-sensitive pointer analysis.
@@ -43,6 +62,23 @@ public class CSPTA extends ProgramAnalysis {
 
     public static final String ID = "cspta";
 
+    /**
+     * Options which are only supported by the sequential solver.
+     */
+    private static final List<String> SEQUENTIAL_OPTIONS = List.of(
+            "coalesce-worklist", "collapse-pfg-cycles", "substitute-vars",
+            "type-filter", "index-cs-elements", "incremental");
+
+    /**
+     * Solver of the last analysis in current World, which is kept
+     * for incremental update if option "incremental" is true.
+     */
+    private static Solver incrementalSolver;
+
+    static {
+        World.registerResetCallback(() -> incrementalSolver = null);
+    }
+
     public CSPTA(AnalysisConfig config) {
         super(config);
     }
@@ -50,18 +86,210 @@ public class CSPTA extends ProgramAnalysis {
     @Override
     public PointerAnalysisResult analyze() {
         AnalysisOptions options = getOptions();
-        Solver solver = new Solver(options,
-                new AllocationSiteBasedModel(options),
-                getContextSelector(options.getString("cs")));
-        solver.solve();
-        PointerAnalysisResult result = solver.getResult();
+        PointsToSetFactory.setStrategy(getPointsToSetStrategy(
+                options.getString("pts-strategy")));
+        TrieContext.Factory factory = new TrieContext.Factory();
+        ContextSelector selector = options.getString("advanced") == null ?
+                getContextSelector(options.getString("cs"), factory) :
+                getAdvancedContextSelector(options, factory);
+        selector = applyHeapPolicy(selector, factory, options);
+        HeapModel heapModel = getHeapModel(options);
+        int parallelism = getParallelism(options);
+        PointerAnalysisResult result;
+        if (parallelism > 1) {
+            ParallelSolver solver = new ParallelSolver(
+                    heapModel, selector, parallelism);
+            solver.solve();
+            result = solver.getResult();
+        } else {
+            Solver solver = new Solver(options, heapModel, selector);
+            solver.solve();
+            result = solver.getResult();
+            incrementalSolver = options.getBooleanOrDefault("incremental", false) ?
+                    solver : null;
+        }
         ResultProcessor.process(options, result);
         return result;
     }
 
-    private static ContextSelector getContextSelector(String cs) {
+    /**
+     * Updates the result of the last analysis in current World after
+     * the bodies of given methods have changed, e.g., the IRs of the
+     * methods have been reset by {@link JMethod#resetIR()}.
+     * The updated result is the same as the result of re-analyzing
+     * the program, and it replaces the stored result of this analysis.
+     *
+     * @param changedMethods the methods whose bodies have changed
+     * @return the updated result.
+     * @throws AnalysisException if the last analysis was not run
+     *                           with option "incremental" enabled.
+     */
+    public static PointerAnalysisResult update(Collection<JMethod> changedMethods) {
+        if (incrementalSolver == null) {
+            throw new AnalysisException("No result of " + ID +
+                    " can be updated, please enable option incremental");
+        }
+        PointerAnalysisResult result = incrementalSolver.update(changedMethods);
+        World.get().storeResult(ID, result);
+        return result;
+    }
+
+    private static PointsToSetFactory.Strategy getPointsToSetStrategy(
+            String strategy) {
+        if (strategy == null) {
+            return PointsToSetFactory.Strategy.HYBRID;
+        }
+        return switch (strategy) {
+            case "hybrid" -> PointsToSetFactory.Strategy.HYBRID;
+            case "hash-consed" -> PointsToSetFactory.Strategy.HASH_CONSED;
+            default -> throw new ConfigException(
+                    "Unknown points-to set strategy: " + strategy);
+        };
+    }
+
+    /**
+     * @return the number of solver threads given by option "parallel-threads".
+     * 0 means the number of available processors, and 1 (the default)
+     * means solving sequentially.
+     * @throws ConfigException if the parallel solver is selected together
+     *                         with any of {@link #SEQUENTIAL_OPTIONS},
+     *                         or with the hash-consed points-to sets.
+     */
+    private static int getParallelism(AnalysisOptions options) {
+        if (options.get("parallel-threads") == null) {
+            return 1;
+        }
+        int threads = options.getInt("parallel-threads");
+        if (threads < 0) {
+            throw new ConfigException("Invalid parallel-threads: " + threads);
+        }
+        int parallelism = threads == 0 ?
+                Runtime.getRuntime().availableProcessors() : threads;
+        if (parallelism > 1) {
+            for (String option : SEQUENTIAL_OPTIONS) {
+                if (options.getBooleanOrDefault(option, false)) {
+                    throw new ConfigException(String.format(
+                            "%s is not supported by the parallel solver" +
+                                    " (parallel-threads: %d)", option, threads));
+                }
+            }
+            if ("hash-consed".equals(options.getString("pts-strategy"))) {
+                // all operations on hash-consed sets go through the monitor
+                // of the shared store, which serializes the solver threads
+                throw new ConfigException(String.format(
+                        "pts-strategy: hash-consed is not supported by" +
+                                " the parallel solver (parallel-threads: %d)", threads));
+            }
+        }
+        return parallelism;
+    }
+
+    /**
+     * Selects context-sensitivity variants for each method guided by
+     * the advanced analysis given by option "advanced". Currently, only
+     * Scaler is supported, which is specified as "scaler" or "scaler=TST",
+     * where TST is the threshold of the total scalability.
+     * The advanced analysis consumes the result of a context-insensitive
+     * pre-analysis.
+     */
+    private static ContextSelector getAdvancedContextSelector(
+            AnalysisOptions options, TrieContext.Factory factory) {
+        String advanced = options.getString("advanced");
+        if (!advanced.equals("scaler") && !advanced.startsWith("scaler=")) {
+            throw new ConfigException("Unknown advanced analysis: " + advanced);
+        }
+        Solver preSolver = new Solver(options,
+                new AllocationSiteBasedModel(options), new CISelector());
+        preSolver.solve();
+        Scaler scaler;
+        if (advanced.equals("scaler")) {
+            scaler = new Scaler(preSolver.getResult());
+        } else {
+            String tst = advanced.substring("scaler=".length());
+            try {
+                scaler = new Scaler(preSolver.getResult(), Long.parseLong(tst));
+            } catch (NumberFormatException e) {
+                throw new ConfigException("Invalid Scaler threshold: " + tst, e);
+            }
+        }
+        Map<JMethod, String> variants = scaler.selectContext();
+        // all selectors share the factory, as contexts selected for
+        // a method may be extended by the selector of another method
+        Map<String, ContextSelector> variantSelectors = Maps.newMap();
+        Map<JMethod, ContextSelector> selectors = Maps.newMap(variants.size());
+        variants.forEach((method, variant) -> selectors.put(method,
+                variantSelectors.computeIfAbsent(variant,
+                        v -> getContextSelector(v, factory))));
+        return new SelectiveSelector(factory, selectors, new CISelector(factory));
+    }
+
+    private static HeapModel getHeapModel(AnalysisOptions options) {
+        return options.getString("merge-alloc-sites") == null ?
+                new AllocationSiteBasedModel(options) :
+                new MergingHeapModel(options);
+    }
+
+    /**
+     * Wraps the selector to enforce the heap abstraction policy given by
+     * options "heap-context-depth" (maximum length of heap contexts) and
+     * "auto-merge-threshold" (maximum number of context-sensitive objects
+     * of a type before the type's heap contexts are dropped).
+     * <p>
+     * The types to be merged are decided by a pre-analysis, which runs
+     * without the threshold and counts the context-sensitive objects of
+     * each type. Deciding them during the analysis would make the result
+     * depend on the order in which the objects are allocated.
+     *
+     * @return the wrapped selector, or the given one if no policy is set.
+     */
+    private static ContextSelector applyHeapPolicy(
+            ContextSelector selector, TrieContext.Factory factory,
+            AnalysisOptions options) {
+        int depth = getLimit(options, "heap-context-depth");
+        int threshold = getLimit(options, "auto-merge-threshold");
+        if (options.getString("merge-alloc-sites") == null &&
+                depth == HeapPolicySelector.UNLIMITED &&
+                threshold == HeapPolicySelector.UNLIMITED) {
+            return selector;
+        }
+        HeapPolicySelector unmerged = new HeapPolicySelector(
+                selector, factory, depth, Set.of());
+        if (threshold == HeapPolicySelector.UNLIMITED) {
+            return unmerged;
+        }
+        Solver preSolver = new Solver(options, getHeapModel(options), unmerged);
+        preSolver.solve();
+        Map<Type, Integer> counts = Maps.newMap();
+        preSolver.getResult().getCSObjects().forEach(csObj -> {
+            Obj obj = csObj.getObject();
+            if (!(obj instanceof MergedObj)) {
+                counts.merge(obj.getType(), 1, Integer::sum);
+            }
+        });
+        Set<Type> mergedTypes = Sets.newSet();
+        counts.forEach((type, count) -> {
+            if (count > threshold) {
+                mergedTypes.add(type);
+            }
+        });
+        return new HeapPolicySelector(selector, factory, depth, mergedTypes);
+    }
+
+    private static int getLimit(AnalysisOptions options, String key) {
+        if (options.get(key) == null) {
+            return HeapPolicySelector.UNLIMITED;
+        }
+        int limit = options.getInt(key);
+        if (limit < 0) {
+            throw new ConfigException("Invalid " + key + ": " + limit);
+        }
+        return limit;
+    }
+
+    private static ContextSelector getContextSelector(
+            String cs, TrieContext.Factory factory) {
         if (cs.equals("ci")) {
-            return new CISelector();
+            return new CISelector(factory);
         } else {
             try {
                 // we expect that the argument of context-sensitivity variant
@@ -73,8 +301,8 @@ public class CSPTA extends ProgramAnalysis {
                 String selectorName = "pascal.taie.analysis.pta.core.cs.selector." +
                         "_" + k + kind + "Selector";
                 Class<?> c = Class.forName(selectorName);
-                Constructor<?> ctor = c.getConstructor();
-                return (ContextSelector) ctor.newInstance();
+                Constructor<?> ctor = c.getConstructor(TrieContext.Factory.class);
+                return (ContextSelector) ctor.newInstance(factory);
             } catch (RuntimeException e) {
                 throw new ConfigException("Unexpected context-sensitivity variants: " + cs, e);
             } catch (ClassNotFoundException | NoSuchMethodException |
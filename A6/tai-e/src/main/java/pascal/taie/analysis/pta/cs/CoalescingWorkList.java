@@ -0,0 +1,70 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.analysis.pta.pts.PointsToSetFactory;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Work list that coalesces the entries of the same pointer.
+ * <p>
+ * Instead of queuing each entry separately, this work list keeps
+ * one pending points-to set for each pointer, and merges the points-to
+ * sets of new entries into it. Thus, each pointer is processed once
+ * with the union of its pending objects. Pointers are polled in the
+ * order they are first added since last processed.
+ */
+class CoalescingWorkList extends WorkList {
+
+    private final Map<Pointer, PointsToSet> pendings = new LinkedHashMap<>();
+
+    @Override
+    void addEntry(Pointer pointer, PointsToSet pointsToSet) {
+        // the given set may be shared by other entries or pointers,
+        // so we always merge it into a set owned by this work list
+        pendings.computeIfAbsent(pointer, p -> PointsToSetFactory.makeTemporary())
+                .addAll(pointsToSet);
+    }
+
+    @Override
+    Entry pollEntry() {
+        Iterator<Map.Entry<Pointer, PointsToSet>> it =
+                pendings.entrySet().iterator();
+        if (!it.hasNext()) {
+            return null;
+        }
+        Map.Entry<Pointer, PointsToSet> pending = it.next();
+        it.remove();
+        return new Entry(pending.getKey(), pending.getValue());
+    }
+
+    @Override
+    boolean isEmpty() {
+        return pendings.isEmpty();
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.element.ArrayIndex;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.cs.element.InstanceField;
+import pascal.taie.analysis.pta.core.cs.element.StaticField;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Views;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * View of a {@link CSManager} which hides the elements created for the
+ * old bodies of the methods changed by incremental update, i.e., the
+ * variables and objects of the old IRs, and the instance fields and
+ * array indexes of such objects. The elements are still kept by the
+ * underlying manager, as the solver may refer to them.
+ */
+class LiveCSManager implements CSManager {
+
+    private final CSManager delegate;
+
+    private final Predicate<Var> isLiveVar;
+
+    private final Predicate<Obj> isLiveObj;
+
+    LiveCSManager(CSManager delegate,
+                  Predicate<Var> isLiveVar, Predicate<Obj> isLiveObj) {
+        this.delegate = delegate;
+        this.isLiveVar = isLiveVar;
+        this.isLiveObj = isLiveObj;
+    }
+
+    @Override
+    public CSVar getCSVar(Context context, Var var) {
+        return delegate.getCSVar(context, var);
+    }
+
+    @Override
+    public CSObj getCSObj(Context heapContext, Obj obj) {
+        return delegate.getCSObj(heapContext, obj);
+    }
+
+    @Override
+    public CSCallSite getCSCallSite(Context context, Invoke callSite) {
+        return delegate.getCSCallSite(context, callSite);
+    }
+
+    @Override
+    public CSMethod getCSMethod(Context context, JMethod method) {
+        return delegate.getCSMethod(context, method);
+    }
+
+    @Override
+    public StaticField getStaticField(JField field) {
+        return delegate.getStaticField(field);
+    }
+
+    @Override
+    public InstanceField getInstanceField(CSObj base, JField field) {
+        return delegate.getInstanceField(base, field);
+    }
+
+    @Override
+    public ArrayIndex getArrayIndex(CSObj array) {
+        return delegate.getArrayIndex(array);
+    }
+
+    @Override
+    public Collection<Var> getVars() {
+        return Views.toFilteredCollection(delegate.getVars(), isLiveVar);
+    }
+
+    @Override
+    public Collection<CSVar> getCSVarsOf(Var var) {
+        return isLiveVar.test(var) ? delegate.getCSVarsOf(var) : List.of();
+    }
+
+    @Override
+    public Collection<CSVar> getCSVars() {
+        return Views.toFilteredCollection(delegate.getCSVars(),
+                csVar -> isLiveVar.test(csVar.getVar()));
+    }
+
+    @Override
+    public Collection<CSObj> getObjects() {
+        return Views.toFilteredCollection(delegate.getObjects(),
+                csObj -> isLiveObj.test(csObj.getObject()));
+    }
+
+    @Override
+    public Collection<StaticField> getStaticFields() {
+        return delegate.getStaticFields();
+    }
+
+    @Override
+    public Collection<InstanceField> getInstanceFields() {
+        return Views.toFilteredCollection(delegate.getInstanceFields(),
+                field -> isLiveObj.test(field.getBase().getObject()));
+    }
+
+    @Override
+    public Collection<ArrayIndex> getArrayIndexes() {
+        return Views.toFilteredCollection(delegate.getArrayIndexes(),
+                index -> isLiveObj.test(index.getArray().getObject()));
+    }
+}
@@ -0,0 +1,447 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.World;
+import pascal.taie.analysis.graph.callgraph.CallGraphs;
+import pascal.taie.analysis.graph.callgraph.CallKind;
+import pascal.taie.analysis.graph.callgraph.Edge;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.PointerAnalysisResultImpl;
+import pascal.taie.analysis.pta.core.cs.CSCallGraph;
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.cs.element.ConcurrentCSManager;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.core.cs.element.StaticField;
+import pascal.taie.analysis.pta.core.cs.selector.ContextSelector;
+import pascal.taie.analysis.pta.core.heap.HeapModel;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.analysis.pta.pts.PointsToSetFactory;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.proginfo.FieldRef;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.LoadArray;
+import pascal.taie.ir.stmt.LoadField;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.ir.stmt.StmtVisitor;
+import pascal.taie.ir.stmt.StoreArray;
+import pascal.taie.ir.stmt.StoreField;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.Type;
+import pascal.taie.util.AnalysisException;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Parallel solver of context-sensitive pointer analysis.
+ * <p>
+ * Work-list entries are processed as tasks of a work-stealing
+ * {@link ForkJoinPool}: each worker pushes the entries it produces to
+ * its own deque, and idle workers steal entries from busy ones.
+ * Points-to sets are guarded by striped locks, and the PFG and
+ * the {@link CSManager} are concurrent. The call graph and the program
+ * representation in {@link World} (whose lazy IR building and resolution
+ * caches are not thread-safe) are guarded by locks.
+ * <p>
+ * The result is the same as the one of {@link Solver}, as the analysis
+ * is monotone and the order of processing entries does not matter.
+ */
+class ParallelSolver {
+
+    private static final Logger logger = LogManager.getLogger(ParallelSolver.class);
+
+    /**
+     * Number of locks that guard points-to sets, must be a power of 2.
+     */
+    private static final int LOCK_STRIPES = 1024;
+
+    private final HeapModel heapModel;
+
+    private final ContextSelector contextSelector;
+
+    private final int parallelism;
+
+    private final Object[] ptsLocks = new Object[LOCK_STRIPES];
+
+    /**
+     * Lock that guards the accesses to the program representation.
+     */
+    private final Object worldLock = new Object();
+
+    /**
+     * The first exception thrown by worker threads, if any.
+     */
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    private CSManager csManager;
+
+    private CSCallGraph callGraph;
+
+    private ConcurrentPointerFlowGraph pointerFlowGraph;
+
+    private ForkJoinPool pool;
+
+    private PointerAnalysisResult result;
+
+    ParallelSolver(HeapModel heapModel, ContextSelector contextSelector,
+                   int parallelism) {
+        this.heapModel = heapModel;
+        this.contextSelector = contextSelector;
+        this.parallelism = parallelism;
+        for (int i = 0; i < LOCK_STRIPES; ++i) {
+            ptsLocks[i] = new Object();
+        }
+    }
+
+    void solve() {
+        pool = new ForkJoinPool(parallelism);
+        logger.info("Solving with {} threads", parallelism);
+        try {
+            initialize();
+            pool.awaitQuiescence(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } finally {
+            pool.shutdown();
+        }
+        Throwable e = failure.get();
+        if (e instanceof RuntimeException re) {
+            throw re;
+        } else if (e instanceof Error error) {
+            throw error;
+        } else if (e != null) {
+            throw new AnalysisException(e);
+        }
+    }
+
+    private void initialize() {
+        csManager = new ConcurrentCSManager();
+        callGraph = new CSCallGraph(csManager);
+        pointerFlowGraph = new ConcurrentPointerFlowGraph();
+        // process program entry, i.e., main method
+        Context defContext = contextSelector.getEmptyContext();
+        JMethod main = World.get().getMainMethod();
+        CSMethod csMethod = csManager.getCSMethod(defContext, main);
+        callGraph.addEntryMethod(csMethod);
+        addReachable(csMethod);
+    }
+
+    /**
+     * Processes new reachable context-sensitive method.
+     * This method may be called by multiple threads with the same method,
+     * and only one of them processes the statements of the method.
+     */
+    private void addReachable(CSMethod csMethod) {
+        IR ir = getIR(csMethod.getMethod());
+        boolean added;
+        synchronized (callGraph) {
+            added = callGraph.addReachableMethod(csMethod);
+        }
+        if (added) {
+            StmtProcessor stmtProcessor = new StmtProcessor(csMethod);
+            ir.forEach(stmt -> stmt.accept(stmtProcessor));
+        }
+    }
+
+    /**
+     * Processes the statements in context-sensitive new reachable methods.
+     */
+    private class StmtProcessor implements StmtVisitor<Void> {
+
+        private final CSMethod csMethod;
+
+        private final Context context;
+
+        private StmtProcessor(CSMethod csMethod) {
+            this.csMethod = csMethod;
+            this.context = csMethod.getContext();
+        }
+
+        @Override
+        public Void visit(New stmt) {
+            Pointer ptr = csManager.getCSVar(context, stmt.getLValue());
+            Obj obj;
+            synchronized (worldLock) {
+                obj = heapModel.getObj(stmt);
+            }
+            Context ctx = contextSelector.selectHeapContext(csMethod, obj);
+            addEntry(ptr, PointsToSetFactory.makeTemporary(csManager.getCSObj(ctx, obj)));
+            return null;
+        }
+
+        @Override
+        public Void visit(Copy stmt) {
+            addPFGEdge(csManager.getCSVar(context, stmt.getRValue()),
+                    csManager.getCSVar(context, stmt.getLValue()));
+            return null;
+        }
+
+        @Override
+        public Void visit(Invoke stmt) {
+            if (stmt.isStatic()) {
+                JMethod callee = resolveCallee(null, stmt);
+                CSCallSite csCallSite = csManager.getCSCallSite(context, stmt);
+                Context calleeCtx = contextSelector.selectContext(csCallSite, callee);
+                CSMethod csCallee = csManager.getCSMethod(calleeCtx, callee);
+                processSingleCall(csCallSite, csCallee);
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(LoadField stmt) {
+            if (stmt.isStatic()) {
+                StaticField staticField = csManager.getStaticField(
+                        resolveField(stmt.getFieldRef()));
+                addPFGEdge(staticField,
+                        csManager.getCSVar(context, stmt.getLValue()));
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(StoreField stmt) {
+            if (stmt.isStatic()) {
+                StaticField staticField = csManager.getStaticField(
+                        resolveField(stmt.getFieldRef()));
+                addPFGEdge(csManager.getCSVar(context, stmt.getRValue()),
+                        staticField);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Adds an edge "source -> target" to the PFG.
+     */
+    private void addPFGEdge(Pointer source, Pointer target) {
+        if (pointerFlowGraph.addEdge(source, target)) {
+            // the edge is added before taking the snapshot, thus
+            // the objects added to source after the snapshot will
+            // be propagated along the edge by the propagating thread
+            PointsToSet pts = PointsToSetFactory.makeTemporary();
+            synchronized (getLock(source)) {
+                pts.addAll(source.getPointsToSet());
+            }
+            if (!pts.isEmpty()) {
+                addEntry(target, pts);
+            }
+        }
+    }
+
+    /**
+     * Adds a work-list entry. The entry is pushed to the deque of
+     * current worker, or submitted to the pool if current thread
+     * is not a worker.
+     */
+    private void addEntry(Pointer pointer, PointsToSet pointsToSet) {
+        Entry entry = new Entry(pointer, pointsToSet);
+        if (ForkJoinTask.getPool() == pool) {
+            entry.fork();
+        } else {
+            pool.execute(entry);
+        }
+    }
+
+    /**
+     * Work-list entry, which is processed by the worker threads.
+     * The points-to set of an entry is never modified after the entry
+     * is created, so it can be safely read by any worker.
+     */
+    private class Entry extends RecursiveAction {
+
+        private final Pointer pointer;
+
+        private final PointsToSet pointsToSet;
+
+        private Entry(Pointer pointer, PointsToSet pointsToSet) {
+            this.pointer = pointer;
+            this.pointsToSet = pointsToSet;
+        }
+
+        @Override
+        protected void compute() {
+            if (failure.get() != null) {
+                return;
+            }
+            try {
+                process(pointer, pointsToSet);
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+            }
+        }
+    }
+
+    /**
+     * Processes a work-list entry.
+     */
+    private void process(Pointer ptr, PointsToSet pts) {
+        PointsToSet delta = propagate(ptr, pts);
+        if (!delta.isEmpty() && ptr instanceof CSVar csVar) {
+            Context ctx = csVar.getContext();
+            Var var = csVar.getVar();
+            for (CSObj csObj : delta) {
+                for (StoreField storeField : var.getStoreFields()) {
+                    JField field = resolveField(storeField.getFieldRef());
+                    addPFGEdge(csManager.getCSVar(ctx, storeField.getRValue()),
+                            csManager.getInstanceField(csObj, field));
+                }
+                for (LoadField loadField : var.getLoadFields()) {
+                    JField field = resolveField(loadField.getFieldRef());
+                    addPFGEdge(csManager.getInstanceField(csObj, field),
+                            csManager.getCSVar(ctx, loadField.getLValue()));
+                }
+                for (StoreArray storeArray : var.getStoreArrays()) {
+                    addPFGEdge(csManager.getCSVar(ctx, storeArray.getRValue()),
+                            csManager.getArrayIndex(csObj));
+                }
+                for (LoadArray loadArray : var.getLoadArrays()) {
+                    addPFGEdge(csManager.getArrayIndex(csObj),
+                            csManager.getCSVar(ctx, loadArray.getLValue()));
+                }
+                processCall(csVar, csObj);
+            }
+        }
+    }
+
+    /**
+     * Propagates pointsToSet to pt(pointer) and its PFG successors,
+     * returns the difference set of pointsToSet and pt(pointer).
+     */
+    private PointsToSet propagate(Pointer pointer, PointsToSet pointsToSet) {
+        PointsToSet delta = PointsToSetFactory.makeTemporary();
+        synchronized (getLock(pointer)) {
+            PointsToSet pts = pointer.getPointsToSet();
+            for (CSObj csObj : pointsToSet) {
+                if (pts.addObject(csObj)) {
+                    delta.addObject(csObj);
+                }
+            }
+        }
+        if (!delta.isEmpty()) {
+            for (Pointer succ : pointerFlowGraph.getSuccsOf(pointer)) {
+                addEntry(succ, delta);
+            }
+        }
+        return delta;
+    }
+
+    /**
+     * Processes instance calls when points-to set of the receiver variable changes.
+     *
+     * @param recv    the receiver variable
+     * @param recvObj set of new discovered objects pointed by the variable.
+     */
+    private void processCall(CSVar recv, CSObj recvObj) {
+        for (Invoke invoke : recv.getVar().getInvokes()) {
+            JMethod callee = resolveCallee(recvObj, invoke);
+            CSCallSite csCallSite = csManager.getCSCallSite(recv.getContext(), invoke);
+            Context calleeContext = contextSelector.selectContext(csCallSite, recvObj, callee);
+            CSMethod csCallee = csManager.getCSMethod(calleeContext, callee);
+            Pointer ptrThis = csManager.getCSVar(calleeContext, getIR(callee).getThis());
+            addEntry(ptrThis, PointsToSetFactory.makeTemporary(recvObj));
+            processSingleCall(csCallSite, csCallee);
+        }
+    }
+
+    private void processSingleCall(CSCallSite csCallSite, CSMethod callee) {
+        Invoke callSite = csCallSite.getCallSite();
+        CallKind kind = CallGraphs.getCallKind(callSite);
+        boolean added;
+        synchronized (callGraph) {
+            added = callGraph.addEdge(new Edge<>(kind, csCallSite, callee));
+        }
+        if (added) {
+            addReachable(callee);
+            Context callerCtx = csCallSite.getContext();
+            Context calleeCtx = callee.getContext();
+            IR calleeIR = getIR(callee.getMethod());
+            List<Var> args = callSite.getInvokeExp().getArgs();
+            List<Var> params = calleeIR.getParams();
+            for (int i = 0; i < params.size(); i++) {
+                addPFGEdge(csManager.getCSVar(callerCtx, args.get(i)),
+                        csManager.getCSVar(calleeCtx, params.get(i)));
+            }
+            Var lhs = callSite.getLValue();
+            if (lhs != null) {
+                CSVar csLHS = csManager.getCSVar(callerCtx, lhs);
+                for (Var ret : calleeIR.getReturnVars()) {
+                    addPFGEdge(csManager.getCSVar(calleeCtx, ret), csLHS);
+                }
+            }
+        }
+    }
+
+    private IR getIR(JMethod method) {
+        synchronized (worldLock) {
+            return method.getIR();
+        }
+    }
+
+    private JField resolveField(FieldRef fieldRef) {
+        synchronized (worldLock) {
+            return fieldRef.resolve();
+        }
+    }
+
+    /**
+     * Resolves the callee of a call site with the receiver object.
+     *
+     * @param recv the receiver object of the method call. If the callSite
+     *             is static, this parameter is ignored (i.e., can be null).
+     * @param callSite the call site to be resolved.
+     * @return the resolved callee.
+     */
+    private JMethod resolveCallee(CSObj recv, Invoke callSite) {
+        Type type = recv != null ? recv.getObject().getType() : null;
+        synchronized (worldLock) {
+            return CallGraphs.resolveCallee(type, callSite);
+        }
+    }
+
+    private Object getLock(Pointer pointer) {
+        int h = System.identityHashCode(pointer);
+        return ptsLocks[(h ^ (h >>> 16)) & (LOCK_STRIPES - 1)];
+    }
+
+    PointerAnalysisResult getResult() {
+        if (result == null) {
+            result = new PointerAnalysisResultImpl(csManager, callGraph);
+        }
+        return result;
+    }
+}
@@ -38,6 +38,7 @@ import pascal.taie.analysis.pta.core.cs.element.CSManager;
 import pascal.taie.analysis.pta.core.cs.element.CSMethod;
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
 import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.cs.element.IndexedCSManager;
 import pascal.taie.analysis.pta.core.cs.element.InstanceField;
 import pascal.taie.analysis.pta.core.cs.element.MapBasedCSManager;
 import pascal.taie.analysis.pta.core.cs.element.Pointer;
@@ -48,20 +49,41 @@ import pascal.taie.analysis.pta.core.heap.Obj;
 import pascal.taie.analysis.pta.pts.PointsToSet;
 import pascal.taie.analysis.pta.pts.PointsToSetFactory;
 import pascal.taie.config.AnalysisOptions;
+import pascal.taie.ir.IR;
 import pascal.taie.ir.exp.InvokeExp;
+import pascal.taie.ir.exp.InvokeInstanceExp;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.ir.stmt.*;
 import pascal.taie.language.classes.JField;
 import pascal.taie.language.classes.JMethod;
 import pascal.taie.language.type.Type;
-
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Pair;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 class Solver {
 
     private static final Logger logger = LogManager.getLogger(Solver.class);
 
+    /**
+     * If the pointers affected by the changed methods exceed this ratio
+     * of all pointers, incremental update falls back to re-solving
+     * the whole program.
+     */
+    private static final double MAX_AFFECTED_RATIO = 0.5;
+
     private final AnalysisOptions options;
 
     private final HeapModel heapModel;
@@ -78,6 +100,48 @@ class Solver {
 
     private PointerAnalysisResult result;
 
+    /**
+     * Whether to detect and collapse cycles in the PFG.
+     */
+    private boolean collapseCycles;
+
+    /**
+     * PFG edges that have been checked for cycles. Each edge is checked
+     * at most once, as in lazy cycle detection.
+     */
+    private MultiMap<Pointer, Pointer> checkedEdges;
+
+    /**
+     * PFG edges that may close cycles and are waiting to be checked.
+     */
+    private Queue<Pair<Pointer, Pointer>> cycleCandidates;
+
+    /**
+     * Whether to substitute copy-equivalent variables before solving.
+     */
+    private boolean substituteVars;
+
+    private VarSubstitution varSubstitution;
+
+    /**
+     * Filter of the objects propagated along PFG edges,
+     * or null if type filtering is disabled.
+     */
+    private TypeFilter typeFilter;
+
+    /**
+     * IR of each reachable method that has been processed by the solver.
+     * It is used to retract the PFG edges of the method when its body
+     * changes, as the method then holds a new IR.
+     */
+    private Map<JMethod, IR> processedIRs;
+
+    /**
+     * Whether the result has been incrementally updated, so that
+     * the elements of the old IRs must be hidden from the result.
+     */
+    private boolean updated;
+
     Solver(AnalysisOptions options, HeapModel heapModel,
            ContextSelector contextSelector) {
         this.options = options;
@@ -88,13 +152,28 @@ class Solver {
     void solve() {
         initialize();
         analyze();
+        if (substituteVars) {
+            expandSubstitutedVars();
+        }
     }
 
     private void initialize() {
-        csManager = new MapBasedCSManager();
+        csManager = options.getBooleanOrDefault("index-cs-elements", false) ?
+                new IndexedCSManager() : new MapBasedCSManager();
         callGraph = new CSCallGraph(csManager);
         pointerFlowGraph = new PointerFlowGraph();
-        workList = new WorkList();
+        collapseCycles = options.getBooleanOrDefault("collapse-pfg-cycles", false);
+        checkedEdges = Maps.newMultiMap();
+        cycleCandidates = new ArrayDeque<>();
+        substituteVars = options.getBooleanOrDefault("substitute-vars", false);
+        varSubstitution = new VarSubstitution();
+        typeFilter = options.getBooleanOrDefault("type-filter", false) ?
+                new TypeFilter(World.get().getTypeSystem()) : null;
+        workList = options.getBooleanOrDefault("coalesce-worklist", false) ?
+                new CoalescingWorkList() : new WorkList();
+        processedIRs = Maps.newMap();
+        updated = false;
+        result = null;
         // process program entry, i.e., main method
         Context defContext = contextSelector.getEmptyContext();
         JMethod main = World.get().getMainMethod();
@@ -110,6 +189,11 @@ class Solver {
         // TODO - finish me
         if (!callGraph.contains(csMethod)) {
             callGraph.addReachableMethod(csMethod);
+            processedIRs.putIfAbsent(csMethod.getMethod(),
+                    csMethod.getMethod().getIR());
+            if (substituteVars) {
+                varSubstitution.process(csMethod.getMethod().getIR());
+            }
             List<Stmt> stmtList = csMethod.getMethod().getIR().getStmts();
             for (Stmt stmt : stmtList) {
                 stmt.accept(new StmtProcessor(csMethod));
@@ -137,18 +221,18 @@ class Solver {
 
         @Override
         public Void visit(New stmt) {
-            Pointer ptr = csManager.getCSVar(context, stmt.getLValue());
+            Pointer ptr = getCSVar(context, stmt.getLValue());
             Obj obj = heapModel.getObj(stmt);
             Context ctx = contextSelector.selectHeapContext(csMethod, obj);
-            PointsToSet pts = PointsToSetFactory.make(csManager.getCSObj(ctx, obj));
+            PointsToSet pts = PointsToSetFactory.makeTemporary(csManager.getCSObj(ctx, obj));
             workList.addEntry(ptr, pts);
             return null;
         }
 
         @Override
         public Void visit(Copy stmt) {
-            Pointer ptrRVal = csManager.getCSVar(context, stmt.getRValue());
-            Pointer ptrLVal = csManager.getCSVar(context, stmt.getLValue());
+            Pointer ptrRVal = getCSVar(context, stmt.getRValue());
+            Pointer ptrLVal = getCSVar(context, stmt.getLValue());
             addPFGEdge(ptrRVal, ptrLVal);
             return null;
         }
@@ -169,7 +253,7 @@ class Solver {
         public Void visit(LoadField stmt) {
             if (stmt.isStatic()) {
                 StaticField staticField = csManager.getStaticField(stmt.getFieldRef().resolve());
-                Pointer ptrLVal = csManager.getCSVar(context, stmt.getLValue());
+                Pointer ptrLVal = getCSVar(context, stmt.getLValue());
                 addPFGEdge(staticField, ptrLVal);
             }
             return null;
@@ -179,7 +263,7 @@ class Solver {
         public Void visit(StoreField stmt) {
             if (stmt.isStatic()) {
                 StaticField staticField = csManager.getStaticField(stmt.getFieldRef().resolve());
-                Pointer ptrRVal = csManager.getCSVar(context, stmt.getRValue());
+                Pointer ptrRVal = getCSVar(context, stmt.getRValue());
                 addPFGEdge(ptrRVal, staticField);
             }
             return null;
@@ -191,9 +275,8 @@ class Solver {
      */
     private void addPFGEdge(Pointer source, Pointer target) {
         // TODO - finish me
-        if (!pointerFlowGraph.getSuccsOf(source).contains(target)) {
-            pointerFlowGraph.addEdge(source, target);
-            PointsToSet pts = source.getPointsToSet();
+        if (pointerFlowGraph.addEdge(source, target)) {
+            PointsToSet pts = filter(source.getPointsToSet(), target);
             if (!pts.isEmpty()) {
                 workList.addEntry(target, pts);
             }
@@ -209,48 +292,146 @@ class Solver {
         while (!workList.isEmpty()) {
             WorkList.Entry entry = workList.pollEntry();
             PointsToSet pts = entry.pointsToSet();
-            Pointer ptr = entry.pointer();
+            Pointer ptr = pointerFlowGraph.getRepresentative(entry.pointer());
             PointsToSet delta = propagate(ptr, pts);
+            if (!delta.isEmpty()) {
+                processNewObjects(ptr, delta);
+                for (Pointer merged : pointerFlowGraph.getMergedPointers(ptr)) {
+                    processNewObjects(merged, delta);
+                }
+            }
+            if (collapseCycles) {
+                collapseCycles();
+            }
+        }
+    }
 
-            if (ptr instanceof CSVar csVar) {
-                Context ctx = csVar.getContext();
-                Var var = csVar.getVar();
+    /**
+     * Processes the objects newly pointed to by given pointer.
+     */
+    private void processNewObjects(Pointer ptr, PointsToSet delta) {
+        if (ptr instanceof CSVar csVar) {
+            Context ctx = csVar.getContext();
+            Var var = csVar.getVar();
+            processVar(ctx, var, delta);
+            for (Var substituted : varSubstitution.getSubstitutedVars(var)) {
+                processVar(ctx, substituted, delta);
+            }
+        }
+    }
 
-                for (CSObj csObj: delta) {
-                    List<StoreField> storeFieldList = var.getStoreFields();
-                    for (StoreField storeField: storeFieldList) {
-                        Pointer ptrLVar = csManager.getInstanceField(csObj, storeField.getFieldAccess().getFieldRef().resolve());
-                        Pointer ptrRVar = csManager.getCSVar(ctx, storeField.getRValue());
-                        addPFGEdge(ptrRVar, ptrLVar);
-                    }
+    /**
+     * Processes the statements that use given variable under given context,
+     * whose points-to set has new objects.
+     */
+    private void processVar(Context ctx, Var var, PointsToSet delta) {
+        for (CSObj csObj: delta) {
+            List<StoreField> storeFieldList = var.getStoreFields();
+            for (StoreField storeField: storeFieldList) {
+                Pointer ptrLVar = csManager.getInstanceField(csObj, storeField.getFieldAccess().getFieldRef().resolve());
+                Pointer ptrRVar = getCSVar(ctx, storeField.getRValue());
+                addPFGEdge(ptrRVar, ptrLVar);
+            }
 
-                    List<LoadField> loadFieldList = var.getLoadFields();
-                    for (LoadField loadField: loadFieldList) {
-                        Pointer ptrLVar = csManager.getCSVar(ctx, loadField.getLValue());
-                        Pointer ptrRVar = csManager.getInstanceField(csObj, loadField.getFieldAccess().getFieldRef().resolve());
-                        addPFGEdge(ptrRVar, ptrLVar);
-                    }
+            List<LoadField> loadFieldList = var.getLoadFields();
+            for (LoadField loadField: loadFieldList) {
+                Pointer ptrLVar = getCSVar(ctx, loadField.getLValue());
+                Pointer ptrRVar = csManager.getInstanceField(csObj, loadField.getFieldAccess().getFieldRef().resolve());
+                addPFGEdge(ptrRVar, ptrLVar);
+            }
 
-                    List<StoreArray> storeArrayList = var.getStoreArrays();
-                    for (StoreArray storeArray: storeArrayList) {
-                        Pointer ptrLVar = csManager.getArrayIndex(csObj);
-                        Pointer ptrRVar = csManager.getCSVar(ctx, storeArray.getRValue());
-                        addPFGEdge(ptrRVar, ptrLVar);
-                    }
+            List<StoreArray> storeArrayList = var.getStoreArrays();
+            for (StoreArray storeArray: storeArrayList) {
+                Pointer ptrLVar = csManager.getArrayIndex(csObj);
+                Pointer ptrRVar = getCSVar(ctx, storeArray.getRValue());
+                addPFGEdge(ptrRVar, ptrLVar);
+            }
 
-                    List<LoadArray> loadArrayList = var.getLoadArrays();
-                    for (LoadArray loadArray: loadArrayList) {
-                        Pointer ptrLVar = csManager.getCSVar(ctx, loadArray.getLValue());
-                        Pointer ptrRVar = csManager.getArrayIndex(csObj);
-                        addPFGEdge(ptrRVar, ptrLVar);
-                    }
+            List<LoadArray> loadArrayList = var.getLoadArrays();
+            for (LoadArray loadArray: loadArrayList) {
+                Pointer ptrLVar = getCSVar(ctx, loadArray.getLValue());
+                Pointer ptrRVar = csManager.getArrayIndex(csObj);
+                addPFGEdge(ptrRVar, ptrLVar);
+            }
 
-                    processCall(csVar, csObj);
-                }
+            processCall(ctx, var, csObj);
+        }
+    }
+
+    /**
+     * Collapses the PFG cycles closed by the candidate edges.
+     */
+    private void collapseCycles() {
+        while (!cycleCandidates.isEmpty()) {
+            Pair<Pointer, Pointer> edge = cycleCandidates.poll();
+            List<Pointer> cycle = pointerFlowGraph.findCycle(
+                    edge.first(), edge.second());
+            if (!cycle.isEmpty() && isCollapsible(cycle)) {
+                collapseCycle(cycle);
             }
         }
     }
 
+    /**
+     * @return true if the pointers in given cycle can be merged. When type
+     * filtering is enabled, pointers of different types may have different
+     * points-to sets, thus only the cycles whose pointers are of the same
+     * type are collapsed.
+     */
+    private boolean isCollapsible(List<Pointer> cycle) {
+        if (typeFilter == null) {
+            return true;
+        }
+        Type type = cycle.get(0).getType();
+        return cycle.stream().allMatch(p -> p.getType().equals(type));
+    }
+
+    /**
+     * Merges the pointers in given cycle into one representative, so that
+     * they share one points-to set. For each merged pointer, the objects
+     * that it gains from the merge are processed as if they were
+     * propagated to it.
+     */
+    private void collapseCycle(List<Pointer> cycle) {
+        Pointer rep = cycle.get(0);
+        PointsToSet union = PointsToSetFactory.makeTemporary();
+        cycle.forEach(p -> union.addAll(p.getPointsToSet()));
+        Map<Pointer, PointsToSet> diffs = Maps.newMap();
+        Map<Pointer, List<Pointer>> members = Maps.newMap();
+        for (Pointer p : cycle) {
+            PointsToSet diff = PointsToSetFactory.makeTemporary();
+            PointsToSet pts = p.getPointsToSet();
+            for (CSObj csObj : union) {
+                if (!pts.contains(csObj)) {
+                    diff.addObject(csObj);
+                }
+            }
+            diffs.put(p, diff);
+            List<Pointer> ptrs = new ArrayList<>();
+            ptrs.add(p);
+            ptrs.addAll(pointerFlowGraph.getMergedPointers(p));
+            members.put(p, ptrs);
+        }
+        PointsToSet repPts = rep.getPointsToSet();
+        repPts.addAll(union);
+        members.values().forEach(ptrs ->
+                ptrs.forEach(p -> p.setPointsToSet(repPts)));
+        pointerFlowGraph.merge(cycle, rep);
+        logger.trace("Collapsed PFG cycle of {} pointers into {}",
+                cycle.size(), rep);
+        for (Pointer p : cycle) {
+            PointsToSet diff = diffs.get(p);
+            if (!diff.isEmpty()) {
+                members.get(p).forEach(ptr -> processNewObjects(ptr, diff));
+                for (Pointer succ : pointerFlowGraph.getSuccsOf(rep)) {
+                    PointsToSet pts = filter(diff, succ);
+                    if (!pts.isEmpty()) {
+                        workList.addEntry(succ, pts);
+                    }
+                }
+            }
+        }
+    }
 
     /**
      * Propagates pointsToSet to pt(pointer) and its PFG successors,
@@ -258,50 +439,76 @@ class Solver {
      */
     private PointsToSet propagate(Pointer pointer, PointsToSet pointsToSet) {
         // TODO - finish me
-        PointsToSet delta = PointsToSetFactory.make();
+        PointsToSet delta = PointsToSetFactory.makeTemporary();
         for (CSObj csObj: pointsToSet) {
             if (!pointer.getPointsToSet().contains(csObj)) {
                 delta.addObject(csObj);
             }
         }
         if (!delta.isEmpty()) {
-            for (CSObj csObj: delta) {
-                pointer.getPointsToSet().addObject(csObj);
-            }
+            pointer.getPointsToSet().addAll(delta);
             Set<Pointer> succs = pointerFlowGraph.getSuccsOf(pointer);
             for (Pointer succ: succs) {
-                workList.addEntry(succ, delta);
+                PointsToSet filtered = filter(delta, succ);
+                if (!filtered.isEmpty()) {
+                    workList.addEntry(succ, filtered);
+                }
+                if (collapseCycles) {
+                    checkCycle(pointer, succ);
+                }
             }
         }
         return delta;
     }
 
+    /**
+     * @return the objects in given points-to set that can flow to target.
+     */
+    private PointsToSet filter(PointsToSet pts, Pointer target) {
+        return typeFilter == null ? pts : typeFilter.filter(pts, target.getType());
+    }
+
+    /**
+     * Lazy cycle detection: if the points-to sets of the two ends of
+     * edge (source -> target) are identical after propagation, the edge
+     * is likely in a cycle, thus records it for cycle detection.
+     */
+    private void checkCycle(Pointer source, Pointer target) {
+        target = pointerFlowGraph.getRepresentative(target);
+        PointsToSet sourcePts = source.getPointsToSet();
+        PointsToSet targetPts = target.getPointsToSet();
+        if (source != target && sourcePts.size() == targetPts.size()
+                && sourcePts.objects().allMatch(targetPts::contains)
+                && checkedEdges.put(source, target)) {
+            cycleCandidates.add(new Pair<>(source, target));
+        }
+    }
+
 
 
     /**
      * Processes instance calls when points-to set of the receiver variable changes.
      *
+     * @param context the context of the receiver variable
      * @param recv    the receiver variable
      * @param recvObj set of new discovered objects pointed by the variable.
      */
-    private void processCall(CSVar recv, CSObj recvObj) {
+    private void processCall(Context context, Var recv, CSObj recvObj) {
         // TODO - finish me
-        List<Invoke> invokeList = recv.getVar().getInvokes();
+        List<Invoke> invokeList = recv.getInvokes();
         for (Invoke invoke: invokeList) {
             JMethod callee = resolveCallee(recvObj, invoke);
-            CSCallSite csCallSite = csManager.getCSCallSite(recv.getContext(), invoke);
+            CSCallSite csCallSite = csManager.getCSCallSite(context, invoke);
             Context calleeContext = contextSelector.selectContext(csCallSite, recvObj, callee);
             CSMethod csCallee = csManager.getCSMethod(calleeContext, callee);
-            Pointer ptrThis = csManager.getCSVar(calleeContext, callee.getIR().getThis());
-            workList.addEntry(ptrThis, PointsToSetFactory.make(recvObj));
+            Pointer ptrThis = getCSVar(calleeContext, callee.getIR().getThis());
+            workList.addEntry(ptrThis, PointsToSetFactory.makeTemporary(recvObj));
             processSingleCall(csCallSite, csCallee);
         }
     }
 
     private void processSingleCall(CSCallSite csCallSite, CSMethod callee) {
         Invoke callSite = csCallSite.getCallSite();
-        Context callerCtx = csCallSite.getContext();
-        Context calleeCtx = callee.getContext();
 
         if (!callGraph.getCalleesOf(csCallSite).contains(callee)) {
             CallKind kind = null;
@@ -314,21 +521,32 @@ class Solver {
             if (kind != null) {
                 callGraph.addEdge(new Edge<>(kind, csCallSite, callee));
                 addReachable(callee);
-                List<Var> args = callee.getMethod().getIR().getParams();
-                assert args.size() == callSite.getRValue().getArgs().size();
-                for (int i = 0; i < args.size(); i++) {
-                    Pointer argPtr = csManager.getCSVar(callerCtx, callSite.getRValue().getArgs().get(i));
-                    Pointer paraPtr = csManager.getCSVar(calleeCtx, args.get(i));
-                    addPFGEdge(argPtr, paraPtr);
-                }
-                if (callSite.getLValue() != null) {
-                    List<Var> returnVars = callee.getMethod().getIR().getReturnVars();
-                    for (Var returnVar: returnVars) {
-                        Pointer returnPtr = csManager.getCSVar(calleeCtx, returnVar);
-                        Pointer ptrLVar = csManager.getCSVar(callerCtx, callSite.getLValue());
-                        addPFGEdge(returnPtr, ptrLVar);
-                    }
-                }
+                connectCall(csCallSite, callee);
+            }
+        }
+    }
+
+    /**
+     * Adds the PFG edges for passing arguments and return values
+     * between given call site and callee.
+     */
+    private void connectCall(CSCallSite csCallSite, CSMethod callee) {
+        Invoke callSite = csCallSite.getCallSite();
+        Context callerCtx = csCallSite.getContext();
+        Context calleeCtx = callee.getContext();
+        List<Var> args = callee.getMethod().getIR().getParams();
+        assert args.size() == callSite.getRValue().getArgs().size();
+        for (int i = 0; i < args.size(); i++) {
+            Pointer argPtr = getCSVar(callerCtx, callSite.getRValue().getArgs().get(i));
+            Pointer paraPtr = getCSVar(calleeCtx, args.get(i));
+            addPFGEdge(argPtr, paraPtr);
+        }
+        if (callSite.getLValue() != null) {
+            List<Var> returnVars = callee.getMethod().getIR().getReturnVars();
+            for (Var returnVar: returnVars) {
+                Pointer returnPtr = getCSVar(calleeCtx, returnVar);
+                Pointer ptrLVar = getCSVar(callerCtx, callSite.getLValue());
+                addPFGEdge(returnPtr, ptrLVar);
             }
         }
     }
@@ -346,9 +564,403 @@ class Solver {
         return CallGraphs.resolveCallee(type, callSite);
     }
 
+    /**
+     * @return the context-sensitive variable for given context and variable,
+     * or the one of its representative if the variable is substituted.
+     */
+    private CSVar getCSVar(Context context, Var var) {
+        return csManager.getCSVar(context, varSubstitution.getRepresentative(var));
+    }
+
+    /**
+     * Lets each substituted variable share the points-to set of its
+     * representative under every context, so that the substitution is
+     * transparent to the queries on the analysis result.
+     */
+    private void expandSubstitutedVars() {
+        for (Var var : varSubstitution.getSubstitutedVars()) {
+            Var rep = varSubstitution.getRepresentative(var);
+            for (CSVar csRep : List.copyOf(csManager.getCSVarsOf(rep))) {
+                csManager.getCSVar(csRep.getContext(), var)
+                        .setPointsToSet(csRep.getPointsToSet());
+            }
+        }
+    }
+
+    /**
+     * Updates the analysis result after the bodies of given methods have
+     * changed, i.e., the methods hold new IRs. The PFG edges, call edges
+     * and points-to sets that may depend on the old bodies are retracted,
+     * and then re-derived from the new bodies and the unaffected part of
+     * the result, so that the result is the same as re-solving from scratch.
+     * The whole program is re-solved if the pointers have been merged or
+     * substituted, if the change affects too many pointers, or if the
+     * change makes some methods unreachable.
+     *
+     * @param changedMethods the methods whose bodies have changed
+     * @return the updated analysis result.
+     */
+    PointerAnalysisResult update(Collection<JMethod> changedMethods) {
+        if (collapseCycles || substituteVars) {
+            logger.info("Pointers have been merged or substituted, re-solving");
+            return resolve();
+        }
+        Set<JMethod> changedSet = Set.copyOf(changedMethods);
+        List<CSMethod> changed = callGraph.reachableMethods()
+                .filter(csMethod -> changedSet.contains(csMethod.getMethod()))
+                .toList();
+        if (changed.isEmpty()) {
+            // changes of unreachable methods do not affect the result
+            return getResult();
+        }
+        Set<Pointer> affected = collectAffectedPointers(changed);
+        if (affected == null) {
+            logger.info("Changed methods affect too many pointers, re-solving");
+            return resolve();
+        }
+        logger.info("Changed methods affect {} pointers", affected.size());
+        Set<Edge<CSCallSite, CSMethod>> removedEdges = retract(changed, affected);
+        changed.stream()
+                .map(CSMethod::getMethod)
+                .distinct()
+                .forEach(method -> {
+                    processedIRs.put(method, method.getIR());
+                    callGraph.updateCallSitesIn(method);
+                });
+        rederive(changed, affected);
+        analyze();
+        if (!isCallGraphPreserved(removedEdges)) {
+            logger.info("Changed methods make some methods unreachable, re-solving");
+            return resolve();
+        }
+        updated = true;
+        result = null;
+        return getResult();
+    }
+
+    /**
+     * Re-solves the whole program.
+     */
+    private PointerAnalysisResult resolve() {
+        solve();
+        return getResult();
+    }
+
+    /**
+     * Collects the pointers whose points-to sets may depend on the old
+     * bodies of changed methods, i.e., the variables in the old bodies,
+     * the return variables of their callers, and the pointers that they
+     * reach via PFG edges, or via the PFG edges and call edges derived
+     * from their points-to sets.
+     *
+     * @return the affected pointers, or null if they are too many.
+     */
+    private Set<Pointer> collectAffectedPointers(List<CSMethod> changed) {
+        int limit = (int) (MAX_AFFECTED_RATIO * getNumberOfPointers());
+        Set<Pointer> affected = Sets.newSet();
+        Deque<Pointer> stack = new ArrayDeque<>();
+        Consumer<Pointer> collector = pointer -> {
+            if (affected.add(pointer)) {
+                stack.push(pointer);
+            }
+        };
+        for (CSMethod csMethod : changed) {
+            Context context = csMethod.getContext();
+            processedIRs.get(csMethod.getMethod()).getVars().forEach(var ->
+                    collector.accept(getCSVar(context, var)));
+            csMethod.getEdges().forEach(edge ->
+                    collectCallTargets(edge, collector));
+        }
+        while (!stack.isEmpty()) {
+            if (affected.size() > limit) {
+                return null;
+            }
+            Pointer pointer = stack.pop();
+            pointerFlowGraph.getSuccsOf(pointer).forEach(collector);
+            if (pointer instanceof CSVar csVar) {
+                forEachDerivedEdge(csVar, (source, target) ->
+                        collector.accept(target));
+                for (Invoke invoke : csVar.getVar().getInvokes()) {
+                    csManager.getCSCallSite(csVar.getContext(), invoke)
+                            .getEdges()
+                            .forEach(edge -> collectCallTargets(edge, collector));
+                }
+            }
+        }
+        return affected;
+    }
+
+    private int getNumberOfPointers() {
+        return csManager.getCSVars().size()
+                + csManager.getStaticFields().size()
+                + csManager.getInstanceFields().size()
+                + csManager.getArrayIndexes().size();
+    }
+
+    /**
+     * Collects the pointers which receive objects via given call edge,
+     * i.e., this variable and parameters of the callee, and the variable
+     * receiving the return value at the call site.
+     */
+    private void collectCallTargets(Edge<CSCallSite, CSMethod> edge,
+                                    Consumer<Pointer> collector) {
+        CSCallSite csCallSite = edge.getCallSite();
+        CSMethod callee = edge.getCallee();
+        Context calleeCtx = callee.getContext();
+        IR ir = processedIRs.get(callee.getMethod());
+        if (ir.getThis() != null) {
+            collector.accept(getCSVar(calleeCtx, ir.getThis()));
+        }
+        ir.getParams().forEach(param ->
+                collector.accept(getCSVar(calleeCtx, param)));
+        Var lhs = csCallSite.getCallSite().getLValue();
+        if (lhs != null) {
+            collector.accept(getCSVar(csCallSite.getContext(), lhs));
+        }
+    }
+
+    /**
+     * Applies given action to each PFG edge derived from the points-to set
+     * of given variable, i.e., the edges of field and array accesses on
+     * the variable.
+     */
+    private void forEachDerivedEdge(CSVar csVar, BiConsumer<Pointer, Pointer> action) {
+        Context ctx = csVar.getContext();
+        Var var = csVar.getVar();
+        for (CSObj csObj : csVar.getPointsToSet()) {
+            for (StoreField storeField : var.getStoreFields()) {
+                JField field = storeField.getFieldAccess().getFieldRef().resolve();
+                action.accept(getCSVar(ctx, storeField.getRValue()),
+                        csManager.getInstanceField(csObj, field));
+            }
+            for (LoadField loadField : var.getLoadFields()) {
+                JField field = loadField.getFieldAccess().getFieldRef().resolve();
+                action.accept(csManager.getInstanceField(csObj, field),
+                        getCSVar(ctx, loadField.getLValue()));
+            }
+            for (StoreArray storeArray : var.getStoreArrays()) {
+                action.accept(getCSVar(ctx, storeArray.getRValue()),
+                        csManager.getArrayIndex(csObj));
+            }
+            for (LoadArray loadArray : var.getLoadArrays()) {
+                action.accept(csManager.getArrayIndex(csObj),
+                        getCSVar(ctx, loadArray.getLValue()));
+            }
+        }
+    }
+
+    /**
+     * Removes the PFG edges and call edges that may depend on the old
+     * bodies of changed methods, and clears the points-to sets of
+     * affected pointers.
+     *
+     * @return the removed call edges.
+     */
+    private Set<Edge<CSCallSite, CSMethod>> retract(
+            List<CSMethod> changed, Set<Pointer> affected) {
+        Set<Edge<CSCallSite, CSMethod>> removedEdges = Sets.newSet();
+        for (CSMethod csMethod : changed) {
+            Context ctx = csMethod.getContext();
+            for (Stmt stmt : processedIRs.get(csMethod.getMethod())) {
+                if (stmt instanceof Copy copy) {
+                    pointerFlowGraph.removeEdge(getCSVar(ctx, copy.getRValue()),
+                            getCSVar(ctx, copy.getLValue()));
+                } else if (stmt instanceof LoadField load && load.isStatic()) {
+                    pointerFlowGraph.removeEdge(
+                            csManager.getStaticField(load.getFieldRef().resolve()),
+                            getCSVar(ctx, load.getLValue()));
+                } else if (stmt instanceof StoreField store && store.isStatic()) {
+                    pointerFlowGraph.removeEdge(getCSVar(ctx, store.getRValue()),
+                            csManager.getStaticField(store.getFieldRef().resolve()));
+                } else if (stmt instanceof Invoke invoke) {
+                    removeCallEdges(csManager.getCSCallSite(ctx, invoke), removedEdges);
+                }
+            }
+            // the callers are connected to the old body, and will be
+            // re-connected to the new body
+            csMethod.getEdges().forEach(this::disconnectCall);
+        }
+        for (Pointer pointer : affected) {
+            if (pointer instanceof CSVar csVar) {
+                forEachDerivedEdge(csVar, pointerFlowGraph::removeEdge);
+                for (Invoke invoke : csVar.getVar().getInvokes()) {
+                    removeCallEdges(csManager.getCSCallSite(
+                            csVar.getContext(), invoke), removedEdges);
+                }
+            }
+        }
+        affected.forEach(pointer ->
+                pointer.setPointsToSet(PointsToSetFactory.make()));
+        return removedEdges;
+    }
+
+    private void removeCallEdges(CSCallSite csCallSite,
+                                 Set<Edge<CSCallSite, CSMethod>> removedEdges) {
+        for (Edge<CSCallSite, CSMethod> edge : List.copyOf(csCallSite.getEdges())) {
+            if (callGraph.removeEdge(edge)) {
+                disconnectCall(edge);
+                removedEdges.add(edge);
+            }
+        }
+    }
+
+    /**
+     * Removes the PFG edges added by {@link #connectCall} for given call edge.
+     */
+    private void disconnectCall(Edge<CSCallSite, CSMethod> edge) {
+        Invoke callSite = edge.getCallSite().getCallSite();
+        Context callerCtx = edge.getCallSite().getContext();
+        Context calleeCtx = edge.getCallee().getContext();
+        IR ir = processedIRs.get(edge.getCallee().getMethod());
+        List<Var> args = callSite.getRValue().getArgs();
+        for (int i = 0; i < args.size(); i++) {
+            pointerFlowGraph.removeEdge(getCSVar(callerCtx, args.get(i)),
+                    getCSVar(calleeCtx, ir.getParam(i)));
+        }
+        if (callSite.getLValue() != null) {
+            Pointer ptrLVar = getCSVar(callerCtx, callSite.getLValue());
+            for (Var returnVar : ir.getReturnVars()) {
+                pointerFlowGraph.removeEdge(getCSVar(calleeCtx, returnVar), ptrLVar);
+            }
+        }
+    }
+
+    /**
+     * Re-derives the points-to sets of affected pointers from the new
+     * bodies of changed methods and from the unaffected pointers.
+     * The objects are added to the work-list, and the PFG edges and
+     * call edges derived from the affected variables are added back
+     * when the work-list is processed.
+     */
+    private void rederive(List<CSMethod> changed, Set<Pointer> affected) {
+        Set<CSMethod> replayed = Sets.newSet();
+        for (CSMethod csMethod : changed) {
+            replay(csMethod, affected);
+            replayed.add(csMethod);
+            csMethod.getEdges().forEach(edge ->
+                    connectCall(edge.getCallSite(), csMethod));
+        }
+        // the statements in unchanged methods may also derive objects
+        // for affected variables, e.g., allocations, or PFG edges which
+        // are retracted but still hold because of other statements
+        for (Pointer pointer : affected) {
+            if (pointer instanceof CSVar csVar) {
+                CSMethod csMethod = csManager.getCSMethod(
+                        csVar.getContext(), csVar.getVar().getMethod());
+                if (callGraph.contains(csMethod) && replayed.add(csMethod)) {
+                    replay(csMethod, affected);
+                }
+            }
+        }
+        for (Pointer pointer : affected) {
+            for (Pointer pred : pointerFlowGraph.getPredsOf(pointer)) {
+                if (!affected.contains(pred)) {
+                    PointsToSet pts = filter(pred.getPointsToSet(), pointer);
+                    if (!pts.isEmpty()) {
+                        workList.addEntry(pointer, pts);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Re-processes the statements in given method, the field and array
+     * accesses and calls on its unaffected variables, and the receiver
+     * objects passed to this variable of the method by unaffected callers.
+     */
+    private void replay(CSMethod csMethod, Set<Pointer> affected) {
+        Context ctx = csMethod.getContext();
+        JMethod method = csMethod.getMethod();
+        IR ir = method.getIR();
+        StmtProcessor stmtProcessor = new StmtProcessor(csMethod);
+        ir.forEach(stmt -> stmt.accept(stmtProcessor));
+        for (Var var : ir.getVars()) {
+            CSVar csVar = getCSVar(ctx, var);
+            if (!affected.contains(csVar) && !csVar.getPointsToSet().isEmpty()) {
+                processVar(ctx, var, csVar.getPointsToSet());
+            }
+        }
+        if (ir.getThis() == null) {
+            return;
+        }
+        PointsToSet recvObjs = PointsToSetFactory.makeTemporary();
+        for (Edge<CSCallSite, CSMethod> edge : csMethod.getEdges()) {
+            CSCallSite csCallSite = edge.getCallSite();
+            Invoke callSite = csCallSite.getCallSite();
+            if (callSite.getInvokeExp() instanceof InvokeInstanceExp invokeExp) {
+                CSVar recv = getCSVar(csCallSite.getContext(), invokeExp.getBase());
+                if (!affected.contains(recv)) {
+                    for (CSObj recvObj : recv.getPointsToSet()) {
+                        if (resolveCallee(recvObj, callSite).equals(method) &&
+                                contextSelector.selectContext(csCallSite, recvObj, method)
+                                        .equals(ctx)) {
+                            recvObjs.addObject(recvObj);
+                        }
+                    }
+                }
+            }
+        }
+        if (!recvObjs.isEmpty()) {
+            workList.addEntry(getCSVar(ctx, ir.getThis()), recvObjs);
+        }
+    }
+
+    /**
+     * @return true if all reachable methods are still reachable after
+     * the call edges are removed.
+     */
+    private boolean isCallGraphPreserved(Set<Edge<CSCallSite, CSMethod>> removedEdges) {
+        if (removedEdges.stream().allMatch(edge -> callGraph
+                .getCalleesOf(edge.getCallSite()).contains(edge.getCallee()))) {
+            return true;
+        }
+        Set<CSMethod> reached = Sets.newSet();
+        Deque<CSMethod> stack = new ArrayDeque<>();
+        callGraph.entryMethods().forEach(entry -> {
+            reached.add(entry);
+            stack.push(entry);
+        });
+        while (!stack.isEmpty()) {
+            for (CSCallSite csCallSite : callGraph.getCallSitesIn(stack.pop())) {
+                for (CSMethod callee : callGraph.getCalleesOf(csCallSite)) {
+                    if (reached.add(callee)) {
+                        stack.push(callee);
+                    }
+                }
+            }
+        }
+        return reached.size() == callGraph.getNumberOfMethods();
+    }
+
+    /**
+     * @return true if given variable belongs to the IR which has been
+     * processed for its method, i.e., it is not a variable of an old body.
+     */
+    private boolean isLive(Var var) {
+        IR ir = processedIRs.get(var.getMethod());
+        return ir == null || (var.getIndex() < ir.getVars().size()
+                && ir.getVar(var.getIndex()) == var);
+    }
+
+    /**
+     * @return true if given object is not allocated in an old body.
+     */
+    private boolean isLive(Obj obj) {
+        if (obj.getAllocation() instanceof New allocSite
+                && obj.getContainerMethod().isPresent()) {
+            IR ir = processedIRs.get(obj.getContainerMethod().get());
+            return ir == null || (allocSite.getIndex() < ir.getStmts().size()
+                    && ir.getStmt(allocSite.getIndex()) == allocSite);
+        }
+        return true;
+    }
+
     PointerAnalysisResult getResult() {
         if (result == null) {
-            result = new PointerAnalysisResultImpl(csManager, callGraph);
+            result = new PointerAnalysisResultImpl(updated ?
+                    new LiveCSManager(csManager, this::isLive, this::isLive) :
+                    csManager, callGraph);
         }
         return result;
     }
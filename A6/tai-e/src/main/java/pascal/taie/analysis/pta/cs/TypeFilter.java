@@ -0,0 +1,150 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.analysis.pta.pts.PointsToSetFactory;
+import pascal.taie.language.type.Type;
+import pascal.taie.language.type.TypeSystem;
+import pascal.taie.util.collection.Maps;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Filters the objects propagated along PFG edges by the types of
+ * the target pointers, so that a pointer only receives the objects
+ * that can be assigned to it.
+ * <p>
+ * For each pointer type, the filter keeps bit sets of the objects that
+ * are assignable to the type. The objects with indexes (see
+ * {@link CSObj#getIndex()}, e.g., the ones created when
+ * {@code index-cs-elements} is set) are keyed by their indexes, so that
+ * checking an object is a bit test. Other objects are keyed by dense ids
+ * of their types. The bit sets are filled lazily, so that each object
+ * (or type) is checked against the class hierarchy at most once per mask.
+ */
+class TypeFilter {
+
+    private final TypeSystem typeSystem;
+
+    private final Map<Type, Integer> typeIds = Maps.newMap();
+
+    private final Map<Type, Mask> masks = Maps.newMap();
+
+    /**
+     * Buffer of the objects which precede the first filtered-out object
+     * in the set being filtered.
+     */
+    private final List<CSObj> prefix = new ArrayList<>();
+
+    TypeFilter(TypeSystem typeSystem) {
+        this.typeSystem = typeSystem;
+    }
+
+    /**
+     * @return the objects in given points-to set that can be assigned
+     * to a pointer of given type. If all objects can be assigned,
+     * returns the given set itself.
+     */
+    PointsToSet filter(PointsToSet pts, Type type) {
+        Mask mask = masks.computeIfAbsent(type, Mask::new);
+        PointsToSet result = null;
+        prefix.clear();
+        for (CSObj csObj : pts) {
+            if (mask.isAssignable(csObj)) {
+                if (result == null) {
+                    prefix.add(csObj);
+                } else {
+                    result.addObject(csObj);
+                }
+            } else if (result == null) {
+                result = PointsToSetFactory.makeTemporary();
+                prefix.forEach(result::addObject);
+            }
+        }
+        prefix.clear();
+        return result == null ? pts : result;
+    }
+
+    private int getTypeId(Type type) {
+        return typeIds.computeIfAbsent(type, t -> typeIds.size());
+    }
+
+    private class Mask {
+
+        private final Type type;
+
+        /**
+         * Indexes of the objects that have been checked.
+         */
+        private final BitSet checkedObjs = new BitSet();
+
+        /**
+         * Indexes of the objects that are assignable to {@link #type}.
+         */
+        private final BitSet assignableObjs = new BitSet();
+
+        /**
+         * Ids of the object types that have been checked.
+         */
+        private final BitSet checkedTypes = new BitSet();
+
+        /**
+         * Ids of the object types that are subtypes of {@link #type}.
+         */
+        private final BitSet assignableTypes = new BitSet();
+
+        private Mask(Type type) {
+            this.type = type;
+        }
+
+        private boolean isAssignable(CSObj csObj) {
+            int index = csObj.getIndex();
+            if (index < 0) {
+                return isAssignable(csObj.getObject().getType());
+            }
+            if (!checkedObjs.get(index)) {
+                checkedObjs.set(index);
+                if (isAssignable(csObj.getObject().getType())) {
+                    assignableObjs.set(index);
+                }
+            }
+            return assignableObjs.get(index);
+        }
+
+        private boolean isAssignable(Type objType) {
+            int id = getTypeId(objType);
+            if (!checkedTypes.get(id)) {
+                checkedTypes.set(id);
+                if (typeSystem.isSubtype(type, objType)) {
+                    assignableTypes.set(id);
+                }
+            }
+            return assignableTypes.get(id);
+        }
+    }
+}
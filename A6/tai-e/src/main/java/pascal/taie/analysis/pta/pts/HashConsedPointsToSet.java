@@ -0,0 +1,136 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.pts;
+
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Points-to set whose content is a hash-consed node of
+ * {@link PointsToSetStore}. Adding objects to the set replaces the node
+ * by the (memoized) union node, thus the pointers with identical points-to
+ * sets share one node, and each of them only pays for one reference.
+ */
+class HashConsedPointsToSet implements PointsToSet {
+
+    private final PointsToSetStore store;
+
+    private PointsToSetStore.Node node;
+
+    HashConsedPointsToSet(PointsToSetStore store) {
+        this.store = store;
+        this.node = store.getEmpty();
+    }
+
+    @Override
+    public boolean addObject(CSObj obj) {
+        PointsToSetStore.Node old = node;
+        node = store.union(node, store.getSingleton(obj));
+        return node != old;
+    }
+
+    @Override
+    public boolean addAll(PointsToSet pts) {
+        PointsToSetStore.Node old = node;
+        if (pts instanceof HashConsedPointsToSet other
+                && other.store == store) {
+            node = store.union(node, other.node);
+        } else {
+            node = store.union(node, pts);
+        }
+        return node != old;
+    }
+
+    @Override
+    public boolean contains(CSObj obj) {
+        int index = store.indexOf(obj);
+        return index >= 0 && node.containsIndex(index);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return node.size() == 0;
+    }
+
+    @Override
+    public int size() {
+        return node.size();
+    }
+
+    @Override
+    public Set<CSObj> getObjects() {
+        PointsToSetStore.Node snapshot = node;
+        return new AbstractSet<>() {
+
+            @Override
+            public Iterator<CSObj> iterator() {
+                return new Iterator<>() {
+
+                    private int next = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < snapshot.size();
+                    }
+
+                    @Override
+                    public CSObj next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        return store.getObject(snapshot.get(next++));
+                    }
+                };
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                if (o instanceof CSObj obj) {
+                    int index = store.indexOf(obj);
+                    return index >= 0 && snapshot.containsIndex(index);
+                }
+                return false;
+            }
+
+            @Override
+            public int size() {
+                return snapshot.size();
+            }
+        };
+    }
+
+    @Override
+    public Stream<CSObj> objects() {
+        return getObjects().stream();
+    }
+
+    @Override
+    public String toString() {
+        return getObjects().toString();
+    }
+}
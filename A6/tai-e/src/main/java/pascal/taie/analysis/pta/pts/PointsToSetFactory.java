@@ -22,6 +22,7 @@
 
 package pascal.taie.analysis.pta.pts;
 
+import pascal.taie.World;
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
 import pascal.taie.util.collection.Sets;
 
@@ -33,10 +34,48 @@ import java.util.function.Supplier;
  */
 public class PointsToSetFactory {
 
+    /**
+     * Strategies of representing points-to sets.
+     */
+    public enum Strategy {
+
+        /**
+         * Each points-to set owns a mutable hybrid set.
+         */
+        HYBRID,
+
+        /**
+         * Points-to sets are hash-consed and shared among pointers,
+         * see {@link PointsToSetStore}.
+         */
+        HASH_CONSED,
+    }
+
     private static final Supplier<Set<CSObj>> setFactory = Sets::newHybridSet;
 
+    private static Strategy strategy = Strategy.HYBRID;
+
+    private static PointsToSetStore store;
+
+    static {
+        World.registerResetCallback(() -> setStrategy(Strategy.HYBRID));
+    }
+
+    /**
+     * Sets the strategy of the points-to sets made afterwards.
+     * Setting {@link Strategy#HASH_CONSED} starts a new store of
+     * hash-consed sets.
+     */
+    public static void setStrategy(Strategy strategy) {
+        PointsToSetFactory.strategy = strategy;
+        store = strategy == Strategy.HASH_CONSED ? new PointsToSetStore() : null;
+    }
+
     public static PointsToSet make() {
-        return new DelegatePointsToSet(setFactory.get());
+        return switch (strategy) {
+            case HYBRID -> new DelegatePointsToSet(setFactory.get());
+            case HASH_CONSED -> new HashConsedPointsToSet(store);
+        };
     }
 
     /**
@@ -47,4 +86,24 @@ public class PointsToSetFactory {
         set.addObject(obj);
         return set;
     }
+
+    /**
+     * Makes a points-to set which is not held by any pointer, e.g.,
+     * the sets in work-list entries and the difference sets of propagation.
+     * Such sets are short-lived and frequently modified, thus they are
+     * always mutable hybrid sets and are never interned in the store
+     * of hash-consed sets.
+     */
+    public static PointsToSet makeTemporary() {
+        return new DelegatePointsToSet(setFactory.get());
+    }
+
+    /**
+     * Convenient method for making one-element temporary points-to set.
+     */
+    public static PointsToSet makeTemporary(CSObj obj) {
+        PointsToSet set = makeTemporary();
+        set.addObject(obj);
+        return set;
+    }
 }
@@ -0,0 +1,277 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.pts;
+
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.util.collection.Maps;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Store of hash-consed points-to sets. Each distinct set of objects is
+ * represented by exactly one immutable {@link Node}, which is shared by
+ * all points-to sets containing the same objects, and the unions of
+ * nodes are memoized by the pair of node ids.
+ * <p>
+ * Only the points-to sets of pointers are hash-consed (temporary sets
+ * are made by {@link PointsToSetFactory#makeTemporary()}), and the store
+ * does not keep the nodes alive: the interned nodes are weakly referenced,
+ * so that a node is reclaimed once no points-to set holds it any more,
+ * and the memoized unions are bounded by {@link #MAX_UNIONS}.
+ * <p>
+ * The methods are synchronized, so that a store is never corrupted
+ * by concurrent accesses. As this would serialize all updates of
+ * points-to sets among the solver threads, the hash-consed strategy
+ * is not supported by the parallel solver.
+ */
+class PointsToSetStore {
+
+    /**
+     * Maximum number of memoized unions. When the limit is reached,
+     * the least recently used union is evicted.
+     */
+    private static final int MAX_UNIONS = 1 << 16;
+
+    /**
+     * Immutable set of objects, which is represented by
+     * the sorted indexes of the objects.
+     */
+    static final class Node {
+
+        private final int id;
+
+        private final int[] elements;
+
+        private Node(int id, int[] elements) {
+            this.id = id;
+            this.elements = elements;
+        }
+
+        int size() {
+            return elements.length;
+        }
+
+        int get(int i) {
+            return elements[i];
+        }
+
+        boolean containsIndex(int index) {
+            return Arrays.binarySearch(elements, index) >= 0;
+        }
+    }
+
+    /**
+     * Key of the interned nodes, which compares the elements of nodes.
+     */
+    private record Key(int[] elements, int hash) {
+
+        private Key(int[] elements) {
+            this(elements, Arrays.hashCode(elements));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key && hash == key.hash
+                    && Arrays.equals(elements, key.elements);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Weak reference to an interned node, which remembers its key
+     * so that the entry can be removed after the node is reclaimed.
+     */
+    private static final class NodeRef extends WeakReference<Node> {
+
+        private final Key key;
+
+        private NodeRef(Node node, Key key, ReferenceQueue<Node> queue) {
+            super(node, queue);
+            this.key = key;
+        }
+    }
+
+    private final Map<CSObj, Integer> indexes = Maps.newMap(4096);
+
+    private final List<CSObj> objs = new ArrayList<>(4096);
+
+    private final Map<Key, NodeRef> nodes = Maps.newMap(4096);
+
+    private final ReferenceQueue<Node> reclaimed = new ReferenceQueue<>();
+
+    /**
+     * Id of the next interned node. The ids are never reused, thus
+     * the memoized unions of reclaimed nodes can never be hit again.
+     */
+    private int nextId = 0;
+
+    private final List<Node> singletons = new ArrayList<>(4096);
+
+    /**
+     * Memoized unions. The key is composed of the ids of two nodes,
+     * with the smaller id in the higher 32 bits.
+     */
+    private final Map<Long, Node> unions = new LinkedHashMap<>(4096, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Node> eldest) {
+            return size() > MAX_UNIONS;
+        }
+    };
+
+    private final Node empty = intern(new int[0]);
+
+    Node getEmpty() {
+        return empty;
+    }
+
+    /**
+     * @return the node containing only given object.
+     */
+    synchronized Node getSingleton(CSObj obj) {
+        return singletons.get(getIndex(obj));
+    }
+
+    /**
+     * @return the node containing the objects in both given nodes.
+     */
+    synchronized Node union(Node n1, Node n2) {
+        if (n1 == n2 || n2 == empty) {
+            return n1;
+        }
+        if (n1 == empty) {
+            return n2;
+        }
+        long key = n1.id < n2.id ?
+                ((long) n1.id << 32) | n2.id :
+                ((long) n2.id << 32) | n1.id;
+        Node result = unions.get(key);
+        if (result == null) {
+            result = intern(merge(n1.elements, n2.elements));
+            unions.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * @return the node containing the objects in given node and
+     * given objects. Only the result is interned, and it is not memoized,
+     * as the objects usually come from a temporary set.
+     */
+    synchronized Node union(Node node, Iterable<CSObj> objs) {
+        int[] added = new int[8];
+        int size = 0;
+        for (CSObj obj : objs) {
+            int index = getIndex(obj);
+            if (!node.containsIndex(index)) {
+                if (size == added.length) {
+                    added = Arrays.copyOf(added, size * 2);
+                }
+                added[size++] = index;
+            }
+        }
+        if (size == 0) {
+            return node;
+        }
+        added = Arrays.copyOf(added, size);
+        Arrays.sort(added);
+        return intern(merge(node.elements, added));
+    }
+
+    /**
+     * @return index of given object, or -1 if the object has not been
+     * added to any points-to set of this store.
+     */
+    synchronized int indexOf(CSObj obj) {
+        return indexes.getOrDefault(obj, -1);
+    }
+
+    synchronized CSObj getObject(int index) {
+        return objs.get(index);
+    }
+
+    private int getIndex(CSObj obj) {
+        Integer index = indexes.get(obj);
+        if (index == null) {
+            index = objs.size();
+            indexes.put(obj, index);
+            objs.add(obj);
+            singletons.add(intern(new int[]{ index }));
+        }
+        return index;
+    }
+
+    private Node intern(int[] elements) {
+        expungeReclaimedNodes();
+        Key key = new Key(elements);
+        NodeRef ref = nodes.get(key);
+        Node node = ref == null ? null : ref.get();
+        if (node == null) {
+            node = new Node(nextId++, elements);
+            nodes.put(key, new NodeRef(node, key, reclaimed));
+        }
+        return node;
+    }
+
+    private void expungeReclaimedNodes() {
+        NodeRef ref;
+        while ((ref = (NodeRef) reclaimed.poll()) != null) {
+            // the key may have been re-interned by a new node
+            nodes.remove(ref.key, ref);
+        }
+    }
+
+    /**
+     * Merges two sorted arrays without duplicates.
+     */
+    private static int[] merge(int[] a, int[] b) {
+        int[] result = new int[a.length + b.length];
+        int i = 0, j = 0, k = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                result[k++] = a[i++];
+            } else if (a[i] > b[j]) {
+                result[k++] = b[j++];
+            } else {
+                result[k++] = a[i++];
+                ++j;
+            }
+        }
+        while (i < a.length) {
+            result[k++] = a[i++];
+        }
+        while (j < b.length) {
+            result[k++] = b[j++];
+        }
+        return k == result.length ? result : Arrays.copyOf(result, k);
+    }
+}
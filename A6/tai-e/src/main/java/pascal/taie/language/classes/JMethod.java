@@ -163,6 +163,15 @@ public class JMethod extends ClassMember {
         return ir;
     }
 
+    /**
+     * Discards the IR of this method, so that the IR is re-built by
+     * the next call of {@link #getIR()}, e.g., after the body of this
+     * method has changed.
+     */
+    public void resetIR() {
+        ir = null;
+    }
+
     /**
      * @return the {@link MethodRef} pointing to this method.
      */
@@ -23,7 +23,28 @@
 package pascal.taie.analysis.pta;
 
 import org.junit.Test;
+import pascal.taie.World;
 import pascal.taie.analysis.Tests;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.cs.CSPTA;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
 
 public class CSPTATest {
 
@@ -93,4 +114,133 @@ public class CSPTATest {
     public void testArray() {
         Tests.testCSPTA(DIR, "Array");
     }
+
+    @Test
+    public void testTwoObjectCoalesceWorkList() {
+        Tests.testCSPTA(DIR, "TwoObject", "cs:2-obj", "coalesce-worklist:true");
+    }
+
+    @Test
+    public void testOneCallCollapseCycles() {
+        Tests.testCSPTA(DIR, "OneCall", "cs:1-call", "collapse-pfg-cycles:true");
+    }
+
+    @Test
+    public void testOneObjectSubstituteVars() {
+        Tests.testCSPTA(DIR, "OneObject", "cs:1-obj", "substitute-vars:true");
+    }
+
+    @Test
+    public void testTwoObjectParallel() {
+        Tests.testCSPTA(DIR, "TwoObject", "cs:2-obj", "parallel-threads:4");
+    }
+
+    @Test
+    public void testOneTypeTypeFilter() {
+        Tests.testCSPTA(DIR, "OneType", "cs:1-type", "type-filter:true");
+    }
+
+    @Test
+    public void testTwoObjectHashConsedPointsToSets() {
+        Tests.testCSPTA(DIR, "TwoObject", "cs:2-obj", "pts-strategy:hash-consed");
+    }
+
+    @Test
+    public void testTwoCallIndexCSElements() {
+        Tests.testCSPTA(DIR, "TwoCall", "cs:2-call", "index-cs-elements:true");
+    }
+
+    @Test
+    public void testTwoCallHeapContextDepth() {
+        // heap contexts of 2-call have one element, which is truncated
+        Tests.testCSPTAVariant(DIR, "TwoCall", "heap-context-depth",
+                "cs:2-call", "heap-context-depth:0");
+    }
+
+    @Test
+    public void testTwoCallMergeAllocSites() {
+        Tests.testCSPTAVariant(DIR, "TwoCall", "merge-alloc-sites",
+                "cs:2-call", "merge-alloc-sites:B");
+    }
+
+    @Test
+    public void testTwoObjectAutoMerge() {
+        // the merged types are fixed before solving, thus the result
+        // does not depend on the order of the work list
+        List<String> expected = dump(Tests.runCSPTA(DIR, "TwoObject",
+                "cs:2-obj", "auto-merge-threshold:1"));
+        List<String> coalesced = dump(Tests.runCSPTA(DIR, "TwoObject",
+                "cs:2-obj", "auto-merge-threshold:1", "coalesce-worklist:true"));
+        assertEquals(expected, coalesced);
+        assertNotEquals(expected, dump(Tests.runCSPTA(DIR, "TwoObject", "cs:2-obj")));
+    }
+
+    @Test
+    public void testTwoObjectScaler() {
+        // methods selected by Scaler are analyzed under variants which
+        // are at least as precise as context insensitivity
+        Map<String, Set<String>> ci = getPointsToSets(
+                Tests.runCSPTA(DIR, "TwoObject", "cs:ci"));
+        Map<String, Set<String>> scaler = getPointsToSets(
+                Tests.runCSPTA(DIR, "TwoObject", "advanced:scaler"));
+        assertFalse(scaler.isEmpty());
+        scaler.forEach((var, objs) -> assertTrue(var + " -> " + objs,
+                ci.getOrDefault(var, Set.of()).containsAll(objs)));
+        // TwoObject needs object-sensitivity to separate the objects
+        // stored in the two containers
+        assertTrue(ci.entrySet().stream().anyMatch(e ->
+                !e.getValue().equals(scaler.getOrDefault(e.getKey(), Set.of()))));
+    }
+
+    @Test
+    public void testTwoObjectIncrementalUpdate() {
+        Tests.runCSPTA(DIR, "TwoObject", "cs:2-obj", "incremental:true");
+        JMethod add = World.get().getClassHierarchy()
+                .getClass("List").getDeclaredMethod("add");
+        // the method is given a new IR, which has new variables and
+        // statements, thus all results derived from it are re-derived
+        add.resetIR();
+        List<String> updated = dump(CSPTA.update(List.of(add)));
+        List<String> resolved = dump(
+                Tests.runCSPTA(DIR, "TwoObject", "cs:2-obj"));
+        assertEquals(resolved, updated);
+    }
+
+    /**
+     * @return the context-sensitive pointers and objects in given result,
+     * and the edges of its call graph, as sorted strings.
+     */
+    private static List<String> dump(PointerAnalysisResult result) {
+        List<String> lines = new ArrayList<>();
+        Stream.<Collection<? extends Pointer>>of(
+                        result.getCSVars(), result.getStaticFields(),
+                        result.getInstanceFields(), result.getArrayIndexes())
+                .flatMap(Collection::stream)
+                .forEach(p -> lines.add(p + " -> " + p.getPointsToSet().objects()
+                        .map(CSObj::toString)
+                        .sorted()
+                        .toList()));
+        result.getCSObjects().forEach(obj -> lines.add(obj.toString()));
+        result.getCSCallGraph().edges().forEach(edge -> lines.add(
+                edge.getCallSite() + " -> " + edge.getCallee()));
+        Collections.sort(lines);
+        return lines;
+    }
+
+    /**
+     * @return the context-insensitive points-to sets of the variables in
+     * given result, where variables and objects are represented by strings
+     * so that the results of different runs can be compared.
+     */
+    static Map<String, Set<String>> getPointsToSets(PointerAnalysisResult result) {
+        Map<String, Set<String>> pointsToSets = new TreeMap<>();
+        for (Var var : result.getVars()) {
+            Set<String> objs = new TreeSet<>();
+            result.getPointsToSet(var).forEach(obj -> objs.add(obj.toString()));
+            if (!objs.isEmpty()) {
+                pointsToSets.put(var.getMethod() + "/" + var.getName(), objs);
+            }
+        }
+        return pointsToSets;
+    }
 }
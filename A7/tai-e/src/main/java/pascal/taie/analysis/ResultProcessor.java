@@ -33,16 +33,11 @@ import pascal.taie.ir.IRPrinter;
 import pascal.taie.ir.stmt.Stmt;
 import pascal.taie.language.classes.JClass;
 import pascal.taie.language.classes.JMethod;
-import pascal.taie.util.collection.Maps;
-import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.ExpectedResults;
+import pascal.taie.util.ResultOutputs;
 import pascal.taie.util.collection.Pair;
 
-import java.io.BufferedReader;
-import java.io.FileNotFoundException;
-import java.io.IOException;
 import java.io.PrintStream;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.LinkedHashSet;
@@ -72,7 +67,11 @@ public class ResultProcessor extends ProgramAnalysis {
 
     private PrintStream out;
 
-    private MultiMap<Pair<String, String>, String> inputs;
+    /**
+     * Expected results, whose sections are keyed by
+     * {@link #getSectionKey(String, String)}.
+     */
+    private ExpectedResults inputs;
 
     private Set<String> mismatches;
 
@@ -103,6 +102,13 @@ public class ResultProcessor extends ProgramAnalysis {
         if (groups.containsKey(false)) {
             processIntraResults(groups.get(false));
         }
+        if (out != null && out != System.out) {
+            out.close();
+        }
+        if (action.equals("compare")) {
+            logger.info("Found {} mismatch(es) of {} expected section(s)",
+                    mismatches.size(), inputs.getSections().size());
+        }
         if (getOptions().getBoolean("log-mismatches")) {
             mismatches.forEach(logger::info);
         }
@@ -110,37 +116,50 @@ public class ResultProcessor extends ProgramAnalysis {
     }
 
     private void setOutput() {
-        String output = getOptions().getString("file");
-        if (output != null) {
-            try {
-                out = new PrintStream(output);
-            } catch (FileNotFoundException e) {
-                throw new RuntimeException("Failed to open output file", e);
-            }
-        } else {
-            out = System.out;
-        }
+        // results are written to System.out if output file is not given
+        out = ResultOutputs.open(getOptions().getString("file"));
     }
 
     private void readInputs() {
-        String input = getOptions().getString("file");
-        Path path = Path.of(input);
-        try {
-            inputs = Maps.newMultiMap();
-            BufferedReader reader = Files.newBufferedReader(path);
-            String line;
-            Pair<String, String> currentKey = null;
-            while ((line = reader.readLine()) != null) {
-                Pair<String, String> key = extractKey(line);
-                if (key != null) {
-                    currentKey = key;
-                } else if (!line.isBlank()) {
-                    inputs.put(currentKey, line);
-                }
+        inputs = ExpectedResults.read(getOptions().getString("file"),
+                ID, new ExpectedResults.Indexer() {
+                    @Override
+                    public int getVersion() {
+                        return 1;
+                    }
+
+                    @Override
+                    public String getSectionKey(String line) {
+                        Pair<String, String> key = extractKey(line);
+                        return key != null ?
+                                ResultProcessor.getSectionKey(key.first(), key.second()) :
+                                null;
+                    }
+
+                    @Override
+                    public String getRecordKey(String line) {
+                        return line.isBlank() ? null : ResultProcessor.getRecordKey(line);
+                    }
+                });
+    }
+
+    private static String getSectionKey(String method, String analysis) {
+        return method + " (" + analysis + ")";
+    }
+
+    /**
+     * @return the key of a line of results. The lines of stmts are keyed
+     * by the stmt indexes and line numbers (e.g., "[0@L8]"), which are
+     * unique in each method, and the other lines are keyed by themselves.
+     */
+    private static String getRecordKey(String line) {
+        if (line.startsWith("[")) {
+            int end = line.indexOf(']');
+            if (end > 0 && line.lastIndexOf('@', end) > 0) {
+                return line.substring(0, end + 1);
             }
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to read input file", e);
         }
+        return line;
     }
 
     private static Pair<String, String> extractKey(String line) {
@@ -249,7 +268,8 @@ public class ResultProcessor extends ProgramAnalysis {
 
     private void compareResult(JMethod method, String id,
                                BiFunction<JMethod, String, ?> resultGetter) {
-        Set<String> inputResult = inputs.get(new Pair<>(method.toString(), id));
+        Map<String, String> inputResult = inputs.getRecords(
+                getSectionKey(method.toString(), id));
         Object result = resultGetter.apply(method, id);
         if (result instanceof Set) {
             Set<String> given = ((Set<?>) result)
@@ -257,50 +277,45 @@ public class ResultProcessor extends ProgramAnalysis {
                     .map(ResultProcessor::toString)
                     .collect(Collectors.toCollection(LinkedHashSet::new));
             given.forEach(s -> {
-                if (!inputResult.contains(s)) {
+                if (!s.equals(inputResult.get(getRecordKey(s)))) {
                     mismatches.add(method + " " + s +
                             " should NOT be included");
                 }
             });
-            inputResult.forEach(s -> {
+            inputResult.values().forEach(s -> {
                 if (!given.contains(s)) {
                     mismatches.add(method + " " + s +
                             " should be included");
                 }
             });
         } else if (result instanceof StmtResult<?> StmtResult) {
-            Set<String> lines = inputs.get(new Pair<>(method.toString(), id));
             // if the expected input does not contain the results
             // for the given method, just skip
-            if (lines.isEmpty()) {
+            if (inputResult.isEmpty()) {
                 return;
             }
             IR ir = method.getIR();
             ir.forEach(stmt -> {
                 String stmtStr = toString(stmt);
                 String given = toString(stmt, StmtResult);
-                boolean foundExpeceted = false;
-                for (String line : lines) {
-                    if (line.startsWith(stmtStr)) {
-                        foundExpeceted = true;
-                        if (!line.equals(given)) {
-                            int idx = stmtStr.length();
-                            mismatches.add(String.format("%s %s expected: %s, given: %s",
-                                    method, stmtStr, line.substring(idx + 1),
-                                    given.substring(idx + 1)));
-                        }
+                String line = inputResult.get(getRecordKey(stmtStr));
+                int idx = stmtStr.length();
+                if (line != null && line.startsWith(stmtStr)) {
+                    if (!line.equals(given)) {
+                        mismatches.add(String.format("%s %s expected: %s, given: %s",
+                                method, stmtStr, line.substring(idx + 1),
+                                given.substring(idx + 1)));
                     }
-                }
-                if (!foundExpeceted) {
-                    int idx = stmtStr.length();
+                } else {
                     mismatches.add(String.format("%s %s expected: null, given: %s",
                             method, stmtStr, given.substring(idx + 1)));
                 }
             });
         } else if (inputResult.size() == 1) {
-            if (!toString(result).equals(getOne(inputResult))) {
+            String expected = getOne(inputResult.values());
+            if (!toString(result).equals(expected)) {
                 mismatches.add(String.format("%s expected: %s, given: %s",
-                        method, getOne(inputResult), toString(result)));
+                        method, expected, toString(result)));
             }
         } else {
             logger.warn("Cannot compare result of analysis {} for {}," +
@@ -28,6 +28,7 @@ import pascal.taie.analysis.pta.core.cs.selector.CISelector;
 import pascal.taie.analysis.pta.core.cs.selector.ContextSelector;
 import pascal.taie.analysis.pta.core.heap.AllocationSiteBasedModel;
 import pascal.taie.analysis.pta.plugin.ResultProcessor;
+import pascal.taie.analysis.pta.plugin.SnapshotLoader;
 import pascal.taie.config.AnalysisConfig;
 import pascal.taie.config.AnalysisOptions;
 import pascal.taie.config.ConfigException;
@@ -50,11 +51,18 @@ public class CSPTA extends ProgramAnalysis {
     @Override
     public PointerAnalysisResult analyze() {
         AnalysisOptions options = getOptions();
-        Solver solver = new Solver(options,
-                new AllocationSiteBasedModel(options),
-                getContextSelector(options.getString("cs")));
-        solver.solve();
-        PointerAnalysisResult result = solver.getResult();
+        PointerAnalysisResult result;
+        String snapshot = options.getString("load-snapshot");
+        if (snapshot != null) {
+            // reuses the result of a prior run instead of solving
+            result = SnapshotLoader.load(options, snapshot);
+        } else {
+            Solver solver = new Solver(options,
+                    new AllocationSiteBasedModel(options),
+                    getContextSelector(options.getString("cs")));
+            solver.solve();
+            result = solver.getResult();
+        }
         ResultProcessor.process(options, result);
         return result;
     }
@@ -29,24 +29,24 @@ import pascal.taie.analysis.pta.core.cs.element.Pointer;
 import pascal.taie.analysis.pta.pts.PointsToSet;
 import pascal.taie.config.AnalysisOptions;
 import pascal.taie.util.AnalysisException;
+import pascal.taie.util.ExpectedResults;
+import pascal.taie.util.ExternalSorter;
+import pascal.taie.util.ResultOutputs;
+import pascal.taie.util.collection.Maps;
 import pascal.taie.util.collection.Streams;
 
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
-import java.io.IOException;
 import java.io.PrintStream;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
-import java.util.LinkedHashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.function.Predicate;
+import java.util.Set;
 import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
 
 import static pascal.taie.util.collection.CollectionUtils.sum;
 
@@ -80,6 +80,7 @@ public class ResultProcessor {
         switch (action) {
             case "dump" -> dumpPointsToSet(result, file);
             case "compare" -> comparePointsToSet(result, file);
+            case "snapshot" -> SnapshotWriter.write(result, file);
         }
     }
 
@@ -119,17 +120,10 @@ public class ResultProcessor {
     }
 
     private static void dumpPointsToSet(PointerAnalysisResult result, String output) {
-        PrintStream out;
-        if (output != null) {  // if output file is given, then dump to the file
-            File outFile = new File(output);
-            try {
-                out = new PrintStream(new FileOutputStream(outFile));
-                logger.info("Dumping points-to set to {} ...", outFile);
-            } catch (FileNotFoundException e) {
-                throw new RuntimeException("Failed to open output file", e);
-            }
-        } else {  // otherwise, dump to System.out
-            out = System.out;
+        // if output file is not given, dump to System.out
+        PrintStream out = ResultOutputs.open(output);
+        if (output != null) {
+            logger.info("Dumping points-to set to {} ...", output);
         }
         dumpPointers(out, result.getCSVars(), "variables");
         dumpPointers(out, result.getStaticFields(), "static fields");
@@ -142,62 +136,81 @@ public class ResultProcessor {
 
     private static void dumpPointers(PrintStream out, Collection<? extends Pointer> pointers, String desc) {
         out.println(HEADER + desc);
-        pointers.stream()
-                .sorted(Comparator.comparing(Pointer::toString))
-                .forEach(p -> out.println(p + SEP + toString(p.getPointsToSet())));
+        // pointers are sorted by their string representations, which
+        // precede SEP in the lines
+        try (ExternalSorter sorter = new ExternalSorter(
+                Comparator.comparing(ResultProcessor::getPointerString))) {
+            pointers.forEach(p ->
+                    sorter.add(p + SEP + toString(p.getPointsToSet())));
+            sorter.writeTo(out);
+        }
         out.println();
     }
 
+    private static String getPointerString(String line) {
+        return line.substring(0, line.indexOf(SEP));
+    }
+
     private static void comparePointsToSet(PointerAnalysisResult result, String input) {
         logger.info("Comparing points-to set with {} ...", input);
-        var inputs = readPointsToSets(input);
-        Map<String, Pointer> pointers = new LinkedHashMap<>();
-        addPointers(pointers, result.getCSVars());
-        addPointers(pointers, result.getStaticFields());
-        addPointers(pointers, result.getInstanceFields());
-        addPointers(pointers, result.getArrayIndexes());
+        Map<String, String> inputs = readPointsToSets(input);
+        Set<String> pointerStrs = new HashSet<>();
         List<String> mismatches = new ArrayList<>();
-        pointers.forEach((pointerStr, pointer) -> {
-            String given = toString(pointer.getPointsToSet());
-            String expected = inputs.get(pointerStr);
-            if (!given.equals(expected)) {
-                mismatches.add(String.format("%s, expected: %s, given: %s",
-                        pointerStr, expected, given));
-            }
-        });
-        inputs.keySet()
-                .stream()
-                .filter(Predicate.not(pointers::containsKey))
-                .forEach(pointerStr -> {
+        Stream.<Collection<? extends Pointer>>of(
+                        result.getCSVars(), result.getStaticFields(),
+                        result.getInstanceFields(), result.getArrayIndexes())
+                .flatMap(Collection::stream)
+                .forEach(pointer -> {
+                    String pointerStr = pointer.toString();
+                    pointerStrs.add(pointerStr);
+                    String given = toString(pointer.getPointsToSet());
                     String expected = inputs.get(pointerStr);
-                    mismatches.add(String.format("%s, expected: %s, given: null",
-                            pointerStr, expected));
+                    if (!given.equals(expected)) {
+                        mismatches.add(String.format("%s, expected: %s, given: %s",
+                                pointerStr, expected, given));
+                    }
                 });
+        inputs.forEach((pointerStr, expected) -> {
+            if (!pointerStrs.contains(pointerStr)) {
+                mismatches.add(String.format("%s, expected: %s, given: null",
+                        pointerStr, expected));
+            }
+        });
         if (!mismatches.isEmpty()) {
-            throw new AnalysisException("Mismatches of points-to set\n" +
-                    String.join("\n", mismatches));
+            Collections.sort(mismatches);
+            throw new AnalysisException(String.format(
+                    "%d mismatch(es) of points-to set in %d expected pointers\n%s",
+                    mismatches.size(), inputs.size(), String.join("\n", mismatches)));
         }
     }
 
+    /**
+     * @return map from the string of each expected pointer
+     * to the string of its points-to set.
+     */
     private static Map<String, String> readPointsToSets(String input) {
-        try {
-            Map<String, String> result = new LinkedHashMap<>();
-            Files.lines(Path.of(input))
-                    .filter(line -> line.contains(SEP))
-                    .map(line -> line.split(SEP))
-                    .forEach(s -> result.put(s[0], s[1]));
-            return result;
-        } catch (IOException e) {
-            throw new AnalysisException(
-                    "Failed to read points-to set from " + input, e);
-        }
-    }
-
-    private static void addPointers(Map<String, Pointer> map,
-                                    Collection<? extends Pointer> pointers) {
-        pointers.stream()
-                .sorted(Comparator.comparing(Pointer::toString))
-                .forEach(p -> map.put(p.toString(), p));
+        Map<String, String> lines = ExpectedResults.read(input, "pta",
+                new ExpectedResults.Indexer() {
+                    @Override
+                    public int getVersion() {
+                        return 1;
+                    }
+
+                    @Override
+                    public String getSectionKey(String line) {
+                        return null;
+                    }
+
+                    @Override
+                    public String getRecordKey(String line) {
+                        int sep = line.indexOf(SEP);
+                        return sep >= 0 ? line.substring(0, sep) : null;
+                    }
+                }).getRecords(null);
+        Map<String, String> pointsToSets = Maps.newMap(lines.size());
+        lines.forEach((pointerStr, line) -> pointsToSets.put(pointerStr,
+                line.substring(pointerStr.length() + SEP.length())));
+        return pointsToSets;
     }
 
     private static String toString(PointsToSet pts) {
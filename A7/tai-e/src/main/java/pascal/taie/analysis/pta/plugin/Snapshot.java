@@ -0,0 +1,101 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Constants and encoding utilities of the binary snapshot of
+ * pointer analysis results, which is written by {@link SnapshotWriter}
+ * and read by {@link SnapshotLoader}.
+ * <p>
+ * A snapshot consists of a header (magic number, version, and offset of
+ * the points-to data), a string table, the tables of program elements and
+ * context-sensitive elements (each element is referred by its int id,
+ * i.e., its index in the table), the context-sensitive call graph,
+ * and finally the points-to data.
+ * Each points-to set in the data is a sorted list of ids of CS objects,
+ * stored as its size followed by the deltas between consecutive ids,
+ * all of which are encoded as variable-length ints.
+ */
+final class Snapshot {
+
+    static final int MAGIC = 0x54414950; // "TAIP"
+
+    static final int VERSION = 1;
+
+    /**
+     * Kinds of abstract objects.
+     */
+    static final byte OBJ_NEW = 0;
+
+    static final byte OBJ_STRING = 1;
+
+    static final byte OBJ_CLASS = 2;
+
+    static final byte OBJ_MOCK = 3;
+
+    /**
+     * Kinds of context elements.
+     */
+    static final byte ELEM_OBJ = 0;
+
+    static final byte ELEM_INVOKE = 1;
+
+    static final byte ELEM_TYPE = 2;
+
+    private Snapshot() {
+    }
+
+    /**
+     * Writes a non-negative int in variable-length encoding,
+     * i.e., 7 bits per byte, with the high bit as continuation flag.
+     */
+    static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    /**
+     * Reads a variable-length int at given position of the buffer.
+     *
+     * @return the int value in the low 32 bits, and the position
+     * after the int in the high 32 bits.
+     */
+    static long readVarInt(ByteBuffer buffer, int position) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get(position++);
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return ((long) position << 32) | (value & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.World;
+import pascal.taie.analysis.graph.callgraph.CallKind;
+import pascal.taie.analysis.graph.callgraph.Edge;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.PointerAnalysisResultImpl;
+import pascal.taie.analysis.pta.core.cs.CSCallGraph;
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.context.ListContext;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.MapBasedCSManager;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.core.heap.AllocationSiteBasedModel;
+import pascal.taie.analysis.pta.core.heap.HeapModel;
+import pascal.taie.analysis.pta.core.heap.MockObj;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.ir.exp.ClassLiteral;
+import pascal.taie.ir.exp.StringLiteral;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.TypeSystem;
+import pascal.taie.util.AnalysisException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Loads pointer analysis result from a binary snapshot written by
+ * {@link SnapshotWriter}. The snapshot is memory-mapped, and the
+ * points-to sets are decoded from the mapped data on demand.
+ * <p>
+ * The abstract objects are re-created by a heap model, thus the snapshot
+ * should be loaded with the same heap model options as it was written,
+ * and for the same program.
+ */
+public class SnapshotLoader {
+
+    private static final Logger logger = LogManager.getLogger(SnapshotLoader.class);
+
+    private final ClassHierarchy hierarchy = World.get().getClassHierarchy();
+
+    private final TypeSystem typeSystem = World.get().getTypeSystem();
+
+    private final HeapModel heapModel;
+
+    private final CSManager csManager = new MapBasedCSManager();
+
+    private final ByteBuffer buffer;
+
+    private String[] strings;
+
+    private JMethod[] methods;
+
+    private JField[] fields;
+
+    private Obj[] objs;
+
+    private Context[] contexts;
+
+    private CSObj[] csObjs;
+
+    /**
+     * Points-to data of the snapshot.
+     */
+    private ByteBuffer ptsData;
+
+    private SnapshotLoader(HeapModel heapModel, ByteBuffer buffer) {
+        this.heapModel = heapModel;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Loads pointer analysis result from given snapshot file.
+     *
+     * @param options options of the pointer analysis, which are used to
+     *                create the heap model
+     * @param input   path of the snapshot file
+     */
+    public static PointerAnalysisResult load(AnalysisOptions options, String input) {
+        logger.info("Loading pointer analysis snapshot from {} ...", input);
+        try (FileChannel channel = FileChannel.open(
+                Path.of(input), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new AnalysisException("Snapshot is too large: " + input);
+            }
+            MappedByteBuffer buffer = channel.map(
+                    FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new SnapshotLoader(new AllocationSiteBasedModel(options), buffer)
+                    .load();
+        } catch (IOException e) {
+            throw new AnalysisException("Failed to load snapshot from " + input, e);
+        }
+    }
+
+    private PointerAnalysisResult load() {
+        if (buffer.getInt() != Snapshot.MAGIC) {
+            throw new AnalysisException("Not a pointer analysis snapshot");
+        }
+        int version = buffer.getInt();
+        if (version != Snapshot.VERSION) {
+            throw new AnalysisException("Unsupported snapshot version: " + version);
+        }
+        int dataStart = buffer.getInt();
+        ptsData = buffer.slice(dataStart, buffer.limit() - dataStart);
+        strings = new String[buffer.getInt()];
+        for (int i = 0; i < strings.length; ++i) {
+            byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        methods = new JMethod[buffer.getInt()];
+        for (int i = 0; i < methods.length; ++i) {
+            methods[i] = hierarchy.getMethod(readString());
+        }
+        fields = new JField[buffer.getInt()];
+        for (int i = 0; i < fields.length; ++i) {
+            fields[i] = hierarchy.getField(readString());
+        }
+        objs = new Obj[buffer.getInt()];
+        for (int i = 0; i < objs.length; ++i) {
+            objs[i] = readObj();
+        }
+        contexts = new Context[buffer.getInt()];
+        for (int i = 0; i < contexts.length; ++i) {
+            contexts[i] = readContext();
+        }
+        csObjs = new CSObj[buffer.getInt()];
+        for (int i = 0; i < csObjs.length; ++i) {
+            Context heapContext = contexts[buffer.getInt()];
+            csObjs[i] = csManager.getCSObj(heapContext, objs[buffer.getInt()]);
+        }
+        int nCSVars = buffer.getInt();
+        for (int i = 0; i < nCSVars; ++i) {
+            Context context = contexts[buffer.getInt()];
+            JMethod method = methods[buffer.getInt()];
+            readPointsToSet(csManager.getCSVar(context,
+                    method.getIR().getVar(buffer.getInt())));
+        }
+        int nStaticFields = buffer.getInt();
+        for (int i = 0; i < nStaticFields; ++i) {
+            readPointsToSet(csManager.getStaticField(fields[buffer.getInt()]));
+        }
+        int nInstanceFields = buffer.getInt();
+        for (int i = 0; i < nInstanceFields; ++i) {
+            CSObj base = csObjs[buffer.getInt()];
+            readPointsToSet(csManager.getInstanceField(base, fields[buffer.getInt()]));
+        }
+        int nArrayIndexes = buffer.getInt();
+        for (int i = 0; i < nArrayIndexes; ++i) {
+            readPointsToSet(csManager.getArrayIndex(csObjs[buffer.getInt()]));
+        }
+        CSCallGraph callGraph = readCallGraph();
+        return new PointerAnalysisResultImpl(csManager, callGraph);
+    }
+
+    /**
+     * Reads the offset of points-to set of given pointer, and lets
+     * the pointer be backed by the points-to data at the offset.
+     */
+    private void readPointsToSet(Pointer pointer) {
+        pointer.setPointsToSet(
+                new SnapshotPointsToSet(ptsData, buffer.getInt(), csObjs));
+    }
+
+    private Obj readObj() {
+        byte kind = buffer.get();
+        return switch (kind) {
+            case Snapshot.OBJ_NEW -> {
+                JMethod method = methods[buffer.getInt()];
+                yield heapModel.getObj((New) method.getIR().getStmt(buffer.getInt()));
+            }
+            case Snapshot.OBJ_STRING -> heapModel.getConstantObj(
+                    StringLiteral.get(readString()));
+            case Snapshot.OBJ_CLASS -> heapModel.getConstantObj(
+                    ClassLiteral.get(typeSystem.getType(readString())));
+            case Snapshot.OBJ_MOCK -> {
+                String desc = readString();
+                String type = readString();
+                int container = buffer.getInt();
+                yield container == -1 ?
+                        new MockObj(desc, desc, typeSystem.getType(type)) :
+                        new MockObj(desc, desc, typeSystem.getType(type),
+                                methods[container]);
+            }
+            default -> throw new AnalysisException("Unknown object kind: " + kind);
+        };
+    }
+
+    private Context readContext() {
+        Object[] elems = new Object[buffer.getInt()];
+        for (int i = 0; i < elems.length; ++i) {
+            byte kind = buffer.get();
+            elems[i] = switch (kind) {
+                case Snapshot.ELEM_OBJ -> objs[buffer.getInt()];
+                case Snapshot.ELEM_INVOKE -> readInvoke();
+                case Snapshot.ELEM_TYPE -> typeSystem.getType(readString());
+                default -> throw new AnalysisException(
+                        "Unknown context element kind: " + kind);
+            };
+        }
+        return ListContext.make(elems);
+    }
+
+    private CSCallGraph readCallGraph() {
+        CSCallGraph callGraph = new CSCallGraph(csManager);
+        CSMethod[] csMethods = new CSMethod[buffer.getInt()];
+        for (int i = 0; i < csMethods.length; ++i) {
+            Context context = contexts[buffer.getInt()];
+            csMethods[i] = csManager.getCSMethod(context, methods[buffer.getInt()]);
+            callGraph.addReachableMethod(csMethods[i]);
+        }
+        int nEntries = buffer.getInt();
+        for (int i = 0; i < nEntries; ++i) {
+            callGraph.addEntryMethod(csMethods[buffer.getInt()]);
+        }
+        CallKind[] kinds = CallKind.values();
+        int nEdges = buffer.getInt();
+        for (int i = 0; i < nEdges; ++i) {
+            CallKind kind = kinds[buffer.get()];
+            Context context = contexts[buffer.getInt()];
+            CSCallSite csCallSite = csManager.getCSCallSite(context, readInvoke());
+            callGraph.addEdge(new Edge<>(kind, csCallSite, csMethods[buffer.getInt()]));
+        }
+        return callGraph;
+    }
+
+    private Invoke readInvoke() {
+        JMethod method = methods[buffer.getInt()];
+        return (Invoke) method.getIR().getStmt(buffer.getInt());
+    }
+
+    private String readString() {
+        return strings[buffer.getInt()];
+    }
+}
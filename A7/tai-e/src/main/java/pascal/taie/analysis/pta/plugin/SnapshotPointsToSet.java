@@ -0,0 +1,111 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin;
+
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.util.collection.Sets;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Points-to set backed by the points-to data of a memory-mapped snapshot.
+ * The objects are decoded when they are first accessed.
+ */
+class SnapshotPointsToSet implements PointsToSet {
+
+    private final ByteBuffer data;
+
+    private final int offset;
+
+    private final CSObj[] csObjs;
+
+    private Set<CSObj> set;
+
+    SnapshotPointsToSet(ByteBuffer data, int offset, CSObj[] csObjs) {
+        this.data = data;
+        this.offset = offset;
+        this.csObjs = csObjs;
+    }
+
+    private Set<CSObj> getSet() {
+        if (set == null) {
+            set = Sets.newHybridSet();
+            long sizeAndPos = Snapshot.readVarInt(data, offset);
+            int size = (int) sizeAndPos;
+            int position = (int) (sizeAndPos >>> 32);
+            int id = 0;
+            for (int i = 0; i < size; ++i) {
+                long deltaAndPos = Snapshot.readVarInt(data, position);
+                id += (int) deltaAndPos;
+                position = (int) (deltaAndPos >>> 32);
+                set.add(csObjs[id]);
+            }
+        }
+        return set;
+    }
+
+    @Override
+    public boolean addObject(CSObj obj) {
+        return getSet().add(obj);
+    }
+
+    @Override
+    public boolean addAll(PointsToSet pts) {
+        return getSet().addAll(pts.getObjects());
+    }
+
+    @Override
+    public boolean contains(CSObj obj) {
+        return getSet().contains(obj);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public int size() {
+        // size of undecoded set is available without decoding the objects
+        return set != null ? set.size() : (int) Snapshot.readVarInt(data, offset);
+    }
+
+    @Override
+    public Set<CSObj> getObjects() {
+        return Collections.unmodifiableSet(getSet());
+    }
+
+    @Override
+    public Stream<CSObj> objects() {
+        return getSet().stream();
+    }
+
+    @Override
+    public String toString() {
+        return getSet().toString();
+    }
+}
@@ -0,0 +1,347 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.config.ConfigException;
+import pascal.taie.ir.exp.ClassLiteral;
+import pascal.taie.ir.exp.StringLiteral;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.Type;
+import pascal.taie.util.AnalysisException;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Writes pointer analysis result to a binary snapshot, which can be
+ * loaded by {@link SnapshotLoader} to reuse the result without
+ * re-running the pointer analysis. See {@link Snapshot} for the format.
+ */
+public class SnapshotWriter {
+
+    private static final Logger logger = LogManager.getLogger(SnapshotWriter.class);
+
+    private final Map<String, Integer> strings = new LinkedHashMap<>();
+
+    private final Map<JMethod, Integer> methods = new LinkedHashMap<>();
+
+    private final Map<JField, Integer> fields = new LinkedHashMap<>();
+
+    private final Map<Obj, Integer> objs = new LinkedHashMap<>();
+
+    private final Map<Context, Integer> contexts = new LinkedHashMap<>();
+
+    private final Map<CSObj, Integer> csObjs = new LinkedHashMap<>();
+
+    private final Map<CSMethod, Integer> csMethods = new LinkedHashMap<>();
+
+    /**
+     * Points-to data of all pointers.
+     */
+    private final ByteArrayOutputStream ptsBytes = new ByteArrayOutputStream();
+
+    private final DataOutputStream ptsData = new DataOutputStream(ptsBytes);
+
+    private SnapshotWriter() {
+    }
+
+    public static void write(PointerAnalysisResult result, String output) {
+        if (output == null) {
+            throw new ConfigException("Option file is required for action snapshot");
+        }
+        logger.info("Writing pointer analysis snapshot to {} ...", output);
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(output)))) {
+            new SnapshotWriter().write(result, out);
+        } catch (IOException e) {
+            throw new AnalysisException("Failed to write snapshot to " + output, e);
+        }
+    }
+
+    private void write(PointerAnalysisResult result, DataOutputStream out)
+            throws IOException {
+        // assigns ids to all elements before writing the tables,
+        // so that each table only refers to the tables before it
+        CallGraph<CSCallSite, CSMethod> callGraph = result.getCSCallGraph();
+        result.getCSObjects().forEach(this::getCSObjId);
+        Consumer<Pointer> ptsCollector = p -> p.getPointsToSet()
+                .forEach(this::getCSObjId);
+        result.getCSVars().forEach(ptsCollector);
+        result.getStaticFields().forEach(ptsCollector);
+        result.getInstanceFields().forEach(ptsCollector);
+        result.getArrayIndexes().forEach(ptsCollector);
+        result.getCSVars().forEach(v -> {
+            getContextId(v.getContext());
+            getMethodId(v.getVar().getMethod());
+        });
+        result.getStaticFields().forEach(f -> getFieldId(f.getField()));
+        result.getInstanceFields().forEach(f -> getFieldId(f.getField()));
+        callGraph.reachableMethods().forEach(this::getCSMethodId);
+        callGraph.edges().forEach(edge -> {
+            Invoke callSite = edge.getCallSite().getCallSite();
+            getContextId(edge.getCallSite().getContext());
+            getMethodId(callSite.getContainer());
+        });
+        // the tables are written to body first, as the string table
+        // is complete only after the other tables are encoded
+        ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream();
+        DataOutputStream body = new DataOutputStream(bodyBytes);
+        writeTable(body, methods.keySet(), m -> writeString(body, m.getSignature()));
+        writeTable(body, fields.keySet(), f -> writeString(body, f.getSignature()));
+        writeTable(body, objs.keySet(), o -> writeObj(body, o));
+        writeTable(body, contexts.keySet(), c -> writeContext(body, c));
+        writeTable(body, csObjs.keySet(), o -> {
+            writeInt(body, getContextId(o.getContext()));
+            writeInt(body, getObjId(o.getObject()));
+        });
+        writeTable(body, result.getCSVars(), v -> {
+            writeInt(body, getContextId(v.getContext()));
+            writeInt(body, getMethodId(v.getVar().getMethod()));
+            writeInt(body, v.getVar().getIndex());
+            writeInt(body, writePointsToSet(v.getPointsToSet()));
+        });
+        writeTable(body, result.getStaticFields(), f -> {
+            writeInt(body, getFieldId(f.getField()));
+            writeInt(body, writePointsToSet(f.getPointsToSet()));
+        });
+        writeTable(body, result.getInstanceFields(), f -> {
+            writeInt(body, getCSObjId(f.getBase()));
+            writeInt(body, getFieldId(f.getField()));
+            writeInt(body, writePointsToSet(f.getPointsToSet()));
+        });
+        writeTable(body, result.getArrayIndexes(), a -> {
+            writeInt(body, getCSObjId(a.getArray()));
+            writeInt(body, writePointsToSet(a.getPointsToSet()));
+        });
+        writeTable(body, csMethods.keySet(), m -> {
+            writeInt(body, getContextId(m.getContext()));
+            writeInt(body, getMethodId(m.getMethod()));
+        });
+        writeTable(body, callGraph.entryMethods().toList(),
+                m -> writeInt(body, getCSMethodId(m)));
+        writeTable(body, callGraph.edges().toList(), edge -> {
+            Invoke callSite = edge.getCallSite().getCallSite();
+            body.writeByte(edge.getKind().ordinal());
+            writeInt(body, getContextId(edge.getCallSite().getContext()));
+            writeInt(body, getMethodId(callSite.getContainer()));
+            writeInt(body, callSite.getIndex());
+            writeInt(body, getCSMethodId(edge.getCallee()));
+        });
+        ByteArrayOutputStream stringBytes = new ByteArrayOutputStream();
+        DataOutputStream stringTable = new DataOutputStream(stringBytes);
+        stringTable.writeInt(strings.size());
+        for (String s : strings.keySet()) {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            stringTable.writeInt(bytes.length);
+            stringTable.write(bytes);
+        }
+        // header: magic, version, and the offset of points-to data
+        int headerSize = 3 * Integer.BYTES;
+        out.writeInt(Snapshot.MAGIC);
+        out.writeInt(Snapshot.VERSION);
+        out.writeInt(headerSize + stringBytes.size() + bodyBytes.size());
+        stringBytes.writeTo(out);
+        bodyBytes.writeTo(out);
+        ptsBytes.writeTo(out);
+    }
+
+    /**
+     * Writes the points-to set to points-to data.
+     *
+     * @return the offset of the points-to set in points-to data.
+     */
+    private int writePointsToSet(PointsToSet pts) throws IOException {
+        int offset = ptsData.size();
+        int[] ids = pts.objects().mapToInt(this::getCSObjId).toArray();
+        Arrays.sort(ids);
+        Snapshot.writeVarInt(ptsData, ids.length);
+        int prev = 0;
+        for (int id : ids) {
+            Snapshot.writeVarInt(ptsData, id - prev);
+            prev = id;
+        }
+        return offset;
+    }
+
+    /**
+     * @return the allocation of given object. For merged object, returns
+     * the allocation of any of the objects it represents, from which
+     * the heap model re-creates the merged object.
+     */
+    private static Object getAllocation(Obj obj) {
+        Object alloc = obj.getAllocation();
+        if (alloc instanceof Iterable<?> represented &&
+                represented.iterator().next() instanceof Obj o) {
+            return o.getAllocation();
+        }
+        return alloc;
+    }
+
+    private void writeObj(DataOutputStream out, Obj obj) throws IOException {
+        Object alloc = getAllocation(obj);
+        if (alloc instanceof New allocSite) {
+            out.writeByte(Snapshot.OBJ_NEW);
+            writeInt(out, getMethodId(allocSite.getContainer()));
+            writeInt(out, allocSite.getIndex());
+        } else if (alloc instanceof StringLiteral literal) {
+            out.writeByte(Snapshot.OBJ_STRING);
+            writeString(out, literal.getString());
+        } else if (alloc instanceof ClassLiteral literal) {
+            out.writeByte(Snapshot.OBJ_CLASS);
+            writeString(out, literal.getTypeValue().getName());
+        } else {
+            out.writeByte(Snapshot.OBJ_MOCK);
+            writeString(out, obj.toString());
+            writeString(out, obj.getType().getName());
+            writeInt(out, obj.getContainerMethod().map(this::getMethodId).orElse(-1));
+        }
+    }
+
+    private void writeContext(DataOutputStream out, Context context) throws IOException {
+        writeInt(out, context.getLength());
+        for (int i = 0; i < context.getLength(); ++i) {
+            Object elem = context.getElementAt(i);
+            if (elem instanceof Obj obj) {
+                out.writeByte(Snapshot.ELEM_OBJ);
+                writeInt(out, getObjId(obj));
+            } else if (elem instanceof Invoke invoke) {
+                out.writeByte(Snapshot.ELEM_INVOKE);
+                writeInt(out, getMethodId(invoke.getContainer()));
+                writeInt(out, invoke.getIndex());
+            } else if (elem instanceof Type type) {
+                out.writeByte(Snapshot.ELEM_TYPE);
+                writeString(out, type.getName());
+            } else {
+                throw new AnalysisException("Unsupported context element: " + elem);
+            }
+        }
+    }
+
+    private <T> void writeTable(DataOutputStream out, Iterable<T> elems,
+                                IOConsumer<T> writer) throws IOException {
+        List<T> list = new ArrayList<>();
+        elems.forEach(list::add);
+        out.writeInt(list.size());
+        for (T elem : list) {
+            writer.accept(elem);
+        }
+    }
+
+    private void writeString(DataOutputStream out, String s) throws IOException {
+        out.writeInt(strings.computeIfAbsent(s, k -> strings.size()));
+    }
+
+    private static void writeInt(DataOutputStream out, int i) throws IOException {
+        out.writeInt(i);
+    }
+
+    private int getMethodId(JMethod method) {
+        return methods.computeIfAbsent(method, k -> methods.size());
+    }
+
+    private int getFieldId(JField field) {
+        return fields.computeIfAbsent(field, k -> fields.size());
+    }
+
+    private int getObjId(Obj obj) {
+        Integer id = objs.get(obj);
+        if (id == null) {
+            if (getAllocation(obj) instanceof New allocSite) {
+                getMethodId(allocSite.getContainer());
+            }
+            obj.getContainerMethod().ifPresent(this::getMethodId);
+            id = objs.size();
+            objs.put(obj, id);
+        }
+        return id;
+    }
+
+    private int getContextId(Context context) {
+        Integer id = contexts.get(context);
+        if (id == null) {
+            // elements of the context need ids before the context
+            for (int i = 0; i < context.getLength(); ++i) {
+                Object elem = context.getElementAt(i);
+                if (elem instanceof Obj obj) {
+                    getObjId(obj);
+                } else if (elem instanceof Invoke invoke) {
+                    getMethodId(invoke.getContainer());
+                }
+            }
+            id = contexts.size();
+            contexts.put(context, id);
+        }
+        return id;
+    }
+
+    private int getCSObjId(CSObj csObj) {
+        Integer id = csObjs.get(csObj);
+        if (id == null) {
+            getContextId(csObj.getContext());
+            getObjId(csObj.getObject());
+            id = csObjs.size();
+            csObjs.put(csObj, id);
+        }
+        return id;
+    }
+
+    private int getCSMethodId(CSMethod csMethod) {
+        Integer id = csMethods.get(csMethod);
+        if (id == null) {
+            getContextId(csMethod.getContext());
+            getMethodId(csMethod.getMethod());
+            id = csMethods.size();
+            csMethods.put(csMethod, id);
+        }
+        return id;
+    }
+
+    @FunctionalInterface
+    private interface IOConsumer<T> {
+        void accept(T t) throws IOException;
+    }
+}
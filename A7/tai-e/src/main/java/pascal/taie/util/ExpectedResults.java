@@ -0,0 +1,260 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.util;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Expected analysis results read from a file, which are used to check
+ * the results of analyses. The lines of the file are grouped into sections,
+ * and the records (lines) in each section are indexed by their keys,
+ * so that each given result can be checked by one lookup.
+ * <p>
+ * The parsed form is cached in a file next to the expected file,
+ * and is reused until the expected file is modified or the version
+ * of the indexer changes.
+ */
+public class ExpectedResults {
+
+    private static final Logger logger = LogManager.getLogger(ExpectedResults.class);
+
+    private static final String CACHE_SUFFIX = ".cache";
+
+    private static final int CACHE_MAGIC = 0x54414532; // "TAE2"
+
+    /**
+     * Key of the records which precede all sections.
+     */
+    private static final String DEFAULT_SECTION = "";
+
+    /**
+     * Extracts keys of sections and records from the lines of expected file.
+     */
+    public interface Indexer {
+
+        /**
+         * @return the version of this indexer, which is stored in the cache
+         * of parsed form. It should be changed whenever the keys extracted
+         * by this indexer change, so that stale caches are not reused.
+         */
+        int getVersion();
+
+        /**
+         * @return the key of the section started by given line,
+         * or null if the line does not start a section.
+         */
+        @Nullable
+        String getSectionKey(String line);
+
+        /**
+         * @return the key of the record in given line,
+         * or null if the line is not a record.
+         */
+        @Nullable
+        String getRecordKey(String line);
+    }
+
+    /**
+     * Map from section key to the records in the section,
+     * which map from record key to record.
+     */
+    private final Map<String, Map<String, String>> sections;
+
+    private ExpectedResults(Map<String, Map<String, String>> sections) {
+        this.sections = sections;
+    }
+
+    /**
+     * Reads expected results from given file.
+     *
+     * @param input   the expected file
+     * @param format  name of the file format, which distinguishes the
+     *                caches of the files read by different indexers
+     * @param indexer indexer of the file format
+     */
+    public static ExpectedResults read(String input, String format,
+                                       Indexer indexer) {
+        Path path = Path.of(input);
+        Path cache = Path.of(input + "." + format + CACHE_SUFFIX);
+        try {
+            long size = Files.size(path);
+            long modified = Files.getLastModifiedTime(path).toMillis();
+            int version = indexer.getVersion();
+            Map<String, Map<String, String>> sections =
+                    readCache(cache, version, size, modified);
+            if (sections == null) {
+                sections = parse(path, indexer);
+                writeCache(cache, version, size, modified, sections);
+            }
+            return new ExpectedResults(sections);
+        } catch (IOException e) {
+            throw new AnalysisException(
+                    "Failed to read expected results from " + input, e);
+        }
+    }
+
+    /**
+     * @return the keys of all sections.
+     */
+    public Collection<String> getSections() {
+        return Collections.unmodifiableSet(sections.keySet());
+    }
+
+    /**
+     * @return the records in given section, or the records preceding all
+     * sections if the section is null. The returned map is empty if the
+     * section is absent.
+     */
+    public Map<String, String> getRecords(@Nullable String section) {
+        Map<String, String> records = sections.get(
+                section != null ? section : DEFAULT_SECTION);
+        return records != null ? Collections.unmodifiableMap(records) : Map.of();
+    }
+
+    private static Map<String, Map<String, String>> parse(
+            Path path, Indexer indexer) throws IOException {
+        Map<String, Map<String, String>> sections = new LinkedHashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(path)) {
+            Map<String, String> records = null;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String sectionKey = indexer.getSectionKey(line);
+                if (sectionKey != null) {
+                    records = sections.computeIfAbsent(sectionKey,
+                            k -> new LinkedHashMap<>());
+                } else {
+                    String recordKey = indexer.getRecordKey(line);
+                    if (recordKey != null) {
+                        if (records == null) {
+                            records = sections.computeIfAbsent(DEFAULT_SECTION,
+                                    k -> new LinkedHashMap<>());
+                        }
+                        records.put(recordKey, line);
+                    }
+                }
+            }
+        }
+        return sections;
+    }
+
+    /**
+     * @return the cached sections, or null if the cache is absent
+     * or out of date.
+     */
+    private static @Nullable Map<String, Map<String, String>> readCache(
+            Path cache, int version, long size, long modified) {
+        if (!Files.exists(cache)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(cache)))) {
+            if (in.readInt() != CACHE_MAGIC || in.readInt() != version ||
+                    in.readLong() != size || in.readLong() != modified) {
+                return null;
+            }
+            int nSections = in.readInt();
+            Map<String, Map<String, String>> sections = new LinkedHashMap<>(nSections * 2);
+            for (int i = 0; i < nSections; ++i) {
+                String sectionKey = readString(in);
+                int nRecords = in.readInt();
+                Map<String, String> records = new LinkedHashMap<>(nRecords * 2);
+                for (int j = 0; j < nRecords; ++j) {
+                    String recordKey = readString(in);
+                    records.put(recordKey, readString(in));
+                }
+                sections.put(sectionKey, records);
+            }
+            return sections;
+        } catch (IOException e) {
+            logger.debug("Failed to read cache {}", cache, e);
+            return null;
+        }
+    }
+
+    private static void writeCache(Path cache, int version, long size, long modified,
+                                   Map<String, Map<String, String>> sections) {
+        Path tmp = null;
+        try {
+            // writes to a temporary file first, so that concurrent
+            // readers never see a partial cache
+            tmp = Files.createTempFile(cache.toAbsolutePath().getParent(),
+                    cache.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(CACHE_MAGIC);
+                out.writeInt(version);
+                out.writeLong(size);
+                out.writeLong(modified);
+                out.writeInt(sections.size());
+                for (var section : sections.entrySet()) {
+                    writeString(out, section.getKey());
+                    out.writeInt(section.getValue().size());
+                    for (var record : section.getValue().entrySet()) {
+                        writeString(out, record.getKey());
+                        writeString(out, record.getValue());
+                    }
+                }
+            }
+            Files.move(tmp, cache, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // caching is optional, e.g., the directory may be read-only
+            logger.debug("Failed to write cache {}", cache, e);
+            if (tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
@@ -26,6 +26,7 @@ import org.junit.Assert;
 import pascal.taie.Main;
 import pascal.taie.World;
 import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
 
 import java.nio.file.Paths;
 import java.util.ArrayList;
@@ -107,8 +108,27 @@ public final class Tests {
         doTestPTA("cspta", dir, main, opts);
     }
 
+    /**
+     * Runs context-sensitive pointer analysis for a specific test case
+     * without processing its result.
+     *
+     * @return the result of the pointer analysis.
+     */
+    public static PointerAnalysisResult runCSPTA(
+            String dir, String main, String... opts) {
+        runPTA("cspta", dir, main, null, opts);
+        return World.get().getResult("cspta");
+    }
+
     private static void doTestPTA(
             String id, String dir, String main, String... opts) {
+        String action = GENERATE_EXPECTED_RESULTS ? "dump" : "compare";
+        String file = getExpectedFile("src/test/resources/pta/" + dir, main, id);
+        runPTA(id, dir, main, List.of("action:" + action, "file:" + file), opts);
+    }
+
+    private static void runPTA(String id, String dir, String main,
+                               List<String> actionArgs, String... opts) {
         List<String> args = new ArrayList<>();
         args.add("-pp");
         String classPath = "src/test/resources/pta/" + dir;
@@ -116,10 +136,9 @@ public final class Tests {
         Collections.addAll(args, "-m", main);
         List<String> ptaArgs = new ArrayList<>();
         ptaArgs.add("implicit-entries:false");
-        String action = GENERATE_EXPECTED_RESULTS ? "dump" : "compare";
-        ptaArgs.add("action:" + action);
-        String file = getExpectedFile(classPath, main, id);
-        ptaArgs.add("file:" + file);
+        if (actionArgs != null) {
+            ptaArgs.addAll(actionArgs);
+        }
         boolean specifyOnlyApp = false;
         for (String opt : opts) {
             ptaArgs.add(opt);
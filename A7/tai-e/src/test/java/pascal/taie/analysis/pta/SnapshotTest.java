@@ -0,0 +1,75 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta;
+
+import org.junit.Test;
+import pascal.taie.analysis.Tests;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+
+public class SnapshotTest {
+
+    private static final String DIR = "cspta";
+
+    @Test
+    public void testTwoObjectRoundTrip() throws IOException {
+        File snapshot = File.createTempFile("TwoObject", ".snapshot");
+        snapshot.deleteOnExit();
+        List<String> written = dump(Tests.runCSPTA(DIR, "TwoObject",
+                "cs:2-obj", "action:snapshot", "file:" + snapshot.getPath()));
+        List<String> loaded = dump(Tests.runCSPTA(DIR, "TwoObject",
+                "cs:2-obj", "load-snapshot:" + snapshot.getPath()));
+        assertEquals(written, loaded);
+    }
+
+    /**
+     * @return the context-sensitive pointers with their points-to sets,
+     * and the edges of the call graph in given result, as sorted strings.
+     */
+    private static List<String> dump(PointerAnalysisResult result) {
+        List<String> lines = new ArrayList<>();
+        Stream.<Collection<? extends Pointer>>of(
+                        result.getCSVars(), result.getStaticFields(),
+                        result.getInstanceFields(), result.getArrayIndexes())
+                .flatMap(Collection::stream)
+                .forEach(p -> lines.add(p + " -> " + p.getPointsToSet().objects()
+                        .map(CSObj::toString)
+                        .sorted()
+                        .toList()));
+        result.getCSCallGraph().edges().forEach(edge -> lines.add(
+                edge.getCallSite() + " -> " + edge.getCallee()));
+        Collections.sort(lines);
+        return lines;
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.util;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ExpectedResultsTest {
+
+    private static final String FORMAT = "test";
+
+    private Path dir;
+
+    private Path input;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("expected-results");
+        input = dir.resolve("expected.txt");
+        Files.write(input, List.of("a=0", "[S1]", "b=1", "c=2", "", "[S2]", "b=3"));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    /**
+     * Indexer of the lines "[section]" and "key=value", which counts
+     * the lines it has been given, i.e., the lines parsed.
+     */
+    private static class CountingIndexer implements ExpectedResults.Indexer {
+
+        private final int version;
+
+        private int lines = 0;
+
+        private CountingIndexer(int version) {
+            this.version = version;
+        }
+
+        @Override
+        public int getVersion() {
+            return version;
+        }
+
+        @Override
+        public String getSectionKey(String line) {
+            ++lines;
+            return line.startsWith("[") ? line.substring(1, line.length() - 1) : null;
+        }
+
+        @Override
+        public String getRecordKey(String line) {
+            int sep = line.indexOf('=');
+            return sep >= 0 ? line.substring(0, sep) : null;
+        }
+    }
+
+    private ExpectedResults read(CountingIndexer indexer) {
+        return ExpectedResults.read(input.toString(), FORMAT, indexer);
+    }
+
+    @Test
+    public void testParse() {
+        ExpectedResults results = read(new CountingIndexer(1));
+        assertEquals(List.of("", "S1", "S2"), List.copyOf(results.getSections()));
+        assertEquals(Map.of("a", "a=0"), results.getRecords(null));
+        assertEquals(Map.of("b", "b=1", "c", "c=2"), results.getRecords("S1"));
+        assertEquals(Map.of("b", "b=3"), results.getRecords("S2"));
+        assertEquals(Map.of(), results.getRecords("S3"));
+    }
+
+    @Test
+    public void testCache() throws IOException {
+        CountingIndexer indexer = new CountingIndexer(1);
+        read(indexer);
+        assertEquals(7, indexer.lines);
+        assertTrue(Files.exists(dir.resolve("expected.txt." + FORMAT + ".cache")));
+        // reloaded from the cache without parsing
+        ExpectedResults results = read(indexer);
+        assertEquals(7, indexer.lines);
+        assertEquals(Map.of("b", "b=1", "c", "c=2"), results.getRecords("S1"));
+        // the cache is invalidated by a new version of indexer
+        CountingIndexer newIndexer = new CountingIndexer(2);
+        read(newIndexer);
+        assertEquals(7, newIndexer.lines);
+        read(newIndexer);
+        assertEquals(7, newIndexer.lines);
+        // the cache is invalidated by modification of the expected file
+        FileTime modified = Files.getLastModifiedTime(input);
+        Files.write(input, List.of("[S1]", "b=4"));
+        Files.setLastModifiedTime(input, FileTime.fromMillis(modified.toMillis() + 1000));
+        results = read(newIndexer);
+        assertEquals(9, newIndexer.lines);
+        assertEquals(Map.of("b", "b=4"), results.getRecords("S1"));
+    }
+}
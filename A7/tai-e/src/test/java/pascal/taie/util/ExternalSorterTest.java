@@ -0,0 +1,98 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.util;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ExternalSorterTest {
+
+    /**
+     * Compares lines by their keys, i.e., the parts before ':'.
+     */
+    private static final Comparator<String> BY_KEY =
+            Comparator.comparing(line -> line.substring(0, line.indexOf(':')));
+
+    @Test
+    public void testInMemory() {
+        List<String> lines = List.of("b:1", "a:1", "b:2", "a:2");
+        assertEquals(toText(List.of("a:1", "a:2", "b:1", "b:2")),
+                sort(lines, ExternalSorter.DEFAULT_BUDGET, 0));
+    }
+
+    @Test
+    public void testSpilledRuns() {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 100; ++i) {
+            // duplicate keys, some of the lines contain line breaks
+            String key = Integer.toString((i * 37) % 10);
+            lines.add(key + ":" + i + (i % 3 == 0 ? "\nnext" : ""));
+        }
+        List<String> expected = new ArrayList<>(lines);
+        // List.sort is stable
+        expected.sort(BY_KEY);
+        // a budget of about 3 lines
+        assertEquals(toText(expected), sort(lines, 400, 10));
+    }
+
+    @Test
+    public void testSpillEachLine() {
+        List<String> lines = List.of("c:1", "a:1\n", "c:2", "b:1", "a:2", "\n:3");
+        List<String> expected = new ArrayList<>(lines);
+        expected.sort(BY_KEY);
+        assertEquals(toText(expected), sort(lines, 0, lines.size() - 1));
+    }
+
+    /**
+     * Sorts lines by an {@link ExternalSorter} with given budget.
+     *
+     * @param minRuns the minimum number of runs that should be spilled
+     * @return the written text.
+     */
+    private static String sort(List<String> lines, long budget, int minRuns) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ExternalSorter sorter = new ExternalSorter(BY_KEY, budget);
+             PrintStream out = new PrintStream(bytes, true, StandardCharsets.UTF_8)) {
+            lines.forEach(sorter::add);
+            assertTrue(sorter.getNumberOfRuns() >= minRuns);
+            sorter.writeTo(out);
+        }
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    private static String toText(List<String> lines) {
+        StringBuilder sb = new StringBuilder();
+        lines.forEach(line -> sb.append(line).append(System.lineSeparator()));
+        return sb.toString();
+    }
+}
@@ -28,6 +28,7 @@ import pascal.taie.analysis.pta.core.cs.selector.CISelector;
 import pascal.taie.analysis.pta.core.cs.selector.ContextSelector;
 import pascal.taie.analysis.pta.core.heap.AllocationSiteBasedModel;
 import pascal.taie.analysis.pta.plugin.ResultProcessor;
+import pascal.taie.analysis.pta.plugin.taint.TaintAnalysiss;
 import pascal.taie.config.AnalysisConfig;
 import pascal.taie.config.AnalysisOptions;
 import pascal.taie.config.ConfigException;
@@ -53,6 +54,9 @@ public class CSPTA extends ProgramAnalysis {
         Solver solver = new Solver(options,
                 new AllocationSiteBasedModel(options),
                 getContextSelector(options.getString("cs")));
+        if (options.getString("taint-config") != null) {
+            solver.addPlugin(new TaintAnalysiss(solver));
+        }
         solver.solve();
         PointerAnalysisResult result = solver.getResult();
         ResultProcessor.process(options, result);
@@ -38,6 +38,11 @@ class PointerFlowGraph {
      */
     private final MultiMap<Pointer, Pointer> successors = Maps.newMultiMap();
 
+    /**
+     * Map from a pointer (node) to its predecessors in PFG.
+     */
+    private final MultiMap<Pointer, Pointer> predecessors = Maps.newMultiMap();
+
     /**
      * Adds an edge (source -> target) to this PFG.
      *
@@ -45,7 +50,11 @@ class PointerFlowGraph {
      * otherwise false.
      */
     boolean addEdge(Pointer source, Pointer target) {
-        return successors.put(source, target);
+        if (successors.put(source, target)) {
+            predecessors.put(target, source);
+            return true;
+        }
+        return false;
     }
 
     /**
@@ -54,4 +63,11 @@ class PointerFlowGraph {
     Set<Pointer> getSuccsOf(Pointer pointer) {
         return successors.get(pointer);
     }
+
+    /**
+     * @return predecessors of given pointer in the PFG.
+     */
+    Set<Pointer> getPredsOf(Pointer pointer) {
+        return predecessors.get(pointer);
+    }
 }
@@ -45,7 +45,8 @@ import pascal.taie.analysis.pta.core.cs.element.StaticField;
 import pascal.taie.analysis.pta.core.cs.selector.ContextSelector;
 import pascal.taie.analysis.pta.core.heap.HeapModel;
 import pascal.taie.analysis.pta.core.heap.Obj;
-import pascal.taie.analysis.pta.plugin.taint.TaintAnalysiss;
+import pascal.taie.analysis.pta.plugin.CompositePlugin;
+import pascal.taie.analysis.pta.plugin.Plugin;
 import pascal.taie.analysis.pta.pts.PointsToSet;
 import pascal.taie.analysis.pta.pts.PointsToSetFactory;
 import pascal.taie.config.AnalysisOptions;
@@ -56,6 +57,7 @@ import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.ir.stmt.LoadArray;
 import pascal.taie.ir.stmt.LoadField;
 import pascal.taie.ir.stmt.New;
+import pascal.taie.ir.stmt.Stmt;
 import pascal.taie.ir.stmt.StmtVisitor;
 import pascal.taie.ir.stmt.StoreArray;
 import pascal.taie.ir.stmt.StoreField;
@@ -63,6 +65,9 @@ import pascal.taie.language.classes.JField;
 import pascal.taie.language.classes.JMethod;
 import pascal.taie.language.type.Type;
 
+import java.util.List;
+import java.util.Set;
+
 public class Solver {
 
     private static final Logger logger = LogManager.getLogger(Solver.class);
@@ -81,7 +86,7 @@ public class Solver {
 
     private WorkList workList;
 
-    private TaintAnalysiss taintAnalysis;
+    private final CompositePlugin plugin = new CompositePlugin();
 
     private PointerAnalysisResult result;
 
@@ -104,10 +109,39 @@ public class Solver {
         return csManager;
     }
 
+    /**
+     * Adds plugins which are notified of the events of this solver.
+     */
+    public void addPlugin(Plugin... plugins) {
+        plugin.addPlugin(plugins);
+    }
+
+    /**
+     * Adds the objects in pts to the points-to set of given pointer.
+     * This is used by the plugins to introduce objects, e.g., taint objects.
+     */
+    public void addPointsTo(Pointer pointer, PointsToSet pts) {
+        workList.addEntry(pointer, pts);
+    }
+
+    /**
+     * @return successors of given pointer in the pointer flow graph.
+     */
+    public Set<Pointer> getPFGSuccsOf(Pointer pointer) {
+        return pointerFlowGraph.getSuccsOf(pointer);
+    }
+
+    /**
+     * @return predecessors of given pointer in the pointer flow graph.
+     */
+    public Set<Pointer> getPFGPredsOf(Pointer pointer) {
+        return pointerFlowGraph.getPredsOf(pointer);
+    }
+
     void solve() {
         initialize();
         analyze();
-        taintAnalysis.onFinish();
+        plugin.onFinish();
     }
 
     private void initialize() {
@@ -115,7 +149,7 @@ public class Solver {
         callGraph = new CSCallGraph(csManager);
         pointerFlowGraph = new PointerFlowGraph();
         workList = new WorkList();
-        taintAnalysis = new TaintAnalysiss(this);
+        plugin.onStart();
         // process program entry, i.e., main method
         Context defContext = contextSelector.getEmptyContext();
         JMethod main = World.get().getMainMethod();
@@ -128,7 +162,13 @@ public class Solver {
      * Processes new reachable context-sensitive method.
      */
     private void addReachable(CSMethod csMethod) {
-        // TODO - finish me
+        if (callGraph.addReachableMethod(csMethod)) {
+            plugin.onNewCSMethod(csMethod);
+            StmtProcessor stmtProcessor = new StmtProcessor(csMethod);
+            for (Stmt stmt : csMethod.getMethod().getIR()) {
+                stmt.accept(stmtProcessor);
+            }
+        }
     }
 
     /**
@@ -145,22 +185,120 @@ public class Solver {
             this.context = csMethod.getContext();
         }
 
-        // TODO - if you choose to implement addReachable()
-        //  via visitor pattern, then finish me
+        @Override
+        public Void visit(New stmt) {
+            Pointer ptr = csManager.getCSVar(context, stmt.getLValue());
+            Obj obj = heapModel.getObj(stmt);
+            Context heapContext = contextSelector.selectHeapContext(csMethod, obj);
+            PointsToSet pts = PointsToSetFactory.make(csManager.getCSObj(heapContext, obj));
+            workList.addEntry(ptr, pts);
+            return null;
+        }
+
+        @Override
+        public Void visit(Copy stmt) {
+            addPFGEdge(csManager.getCSVar(context, stmt.getRValue()),
+                    csManager.getCSVar(context, stmt.getLValue()));
+            return null;
+        }
+
+        @Override
+        public Void visit(Invoke stmt) {
+            if (stmt.isStatic()) {
+                JMethod callee = resolveCallee(null, stmt);
+                CSCallSite csCallSite = csManager.getCSCallSite(context, stmt);
+                Context calleeContext = contextSelector.selectContext(csCallSite, callee);
+                processSingleCall(csCallSite, csManager.getCSMethod(calleeContext, callee));
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(LoadField stmt) {
+            if (stmt.isStatic()) {
+                StaticField staticField = csManager.getStaticField(
+                        stmt.getFieldRef().resolve());
+                addPFGEdge(staticField, csManager.getCSVar(context, stmt.getLValue()));
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(StoreField stmt) {
+            if (stmt.isStatic()) {
+                StaticField staticField = csManager.getStaticField(
+                        stmt.getFieldRef().resolve());
+                addPFGEdge(csManager.getCSVar(context, stmt.getRValue()), staticField);
+            }
+            return null;
+        }
     }
 
     /**
      * Adds an edge "source -> target" to the PFG.
      */
     private void addPFGEdge(Pointer source, Pointer target) {
-        // TODO - finish me
+        if (pointerFlowGraph.addEdge(source, target)) {
+            PointsToSet pts = source.getPointsToSet();
+            if (!pts.isEmpty()) {
+                workList.addEntry(target, pts);
+            }
+        }
     }
 
     /**
      * Processes work-list entries until the work-list is empty.
+     * When the work-list is drained, the buffered plugin events are
+     * delivered, and the analysis continues if the plugins produce
+     * new work-list entries.
      */
     private void analyze() {
-        // TODO - finish me
+        while (!workList.isEmpty() || plugin.flush()) {
+            if (workList.isEmpty()) {
+                // entries were added by the plugins
+                continue;
+            }
+            WorkList.Entry entry = workList.pollEntry();
+            Pointer ptr = entry.pointer();
+            PointsToSet delta = propagate(ptr, entry.pointsToSet());
+            if (!delta.isEmpty() && ptr instanceof CSVar csVar) {
+                processNewObjects(csVar, delta);
+                plugin.onNewPointsToSet(csVar, delta);
+            }
+        }
+    }
+
+    /**
+     * Processes the field/array accesses and instance calls on the variable
+     * when new objects are propagated to it.
+     */
+    private void processNewObjects(CSVar csVar, PointsToSet delta) {
+        Context context = csVar.getContext();
+        Var var = csVar.getVar();
+        for (CSObj csObj : delta) {
+            for (StoreField storeField : var.getStoreFields()) {
+                JField field = storeField.getFieldRef().resolve();
+                addPFGEdge(csManager.getCSVar(context, storeField.getRValue()),
+                        csManager.getInstanceField(csObj, field));
+            }
+            for (LoadField loadField : var.getLoadFields()) {
+                JField field = loadField.getFieldRef().resolve();
+                addPFGEdge(csManager.getInstanceField(csObj, field),
+                        csManager.getCSVar(context, loadField.getLValue()));
+            }
+            if (!var.getStoreArrays().isEmpty() || !var.getLoadArrays().isEmpty()) {
+                ArrayIndex arrayIndex = csManager.getArrayIndex(csObj);
+                for (StoreArray storeArray : var.getStoreArrays()) {
+                    addPFGEdge(csManager.getCSVar(context, storeArray.getRValue()),
+                            arrayIndex);
+                }
+                for (LoadArray loadArray : var.getLoadArrays()) {
+                    addPFGEdge(arrayIndex,
+                            csManager.getCSVar(context, loadArray.getLValue()));
+                }
+            }
+            processCall(csVar, csObj);
+        }
     }
 
     /**
@@ -168,8 +306,19 @@ public class Solver {
      * returns the difference set of pointsToSet and pt(pointer).
      */
     private PointsToSet propagate(Pointer pointer, PointsToSet pointsToSet) {
-        // TODO - finish me
-        return null;
+        PointsToSet delta = PointsToSetFactory.make();
+        PointsToSet pts = pointer.getPointsToSet();
+        for (CSObj csObj : pointsToSet) {
+            if (pts.addObject(csObj)) {
+                delta.addObject(csObj);
+            }
+        }
+        if (!delta.isEmpty()) {
+            for (Pointer succ : pointerFlowGraph.getSuccsOf(pointer)) {
+                workList.addEntry(succ, delta);
+            }
+        }
+        return delta;
     }
 
     /**
@@ -179,7 +328,50 @@ public class Solver {
      * @param recvObj set of new discovered objects pointed by the variable.
      */
     private void processCall(CSVar recv, CSObj recvObj) {
-        // TODO - finish me
+        for (Invoke invoke : recv.getVar().getInvokes()) {
+            JMethod callee = resolveCallee(recvObj, invoke);
+            if (callee == null) {
+                continue;
+            }
+            CSCallSite csCallSite = csManager.getCSCallSite(recv.getContext(), invoke);
+            Context calleeContext = contextSelector.selectContext(
+                    csCallSite, recvObj, callee);
+            CSMethod csCallee = csManager.getCSMethod(calleeContext, callee);
+            workList.addEntry(
+                    csManager.getCSVar(calleeContext, callee.getIR().getThis()),
+                    PointsToSetFactory.make(recvObj));
+            processSingleCall(csCallSite, csCallee);
+        }
+    }
+
+    /**
+     * Adds call edge "csCallSite -> csCallee" and, if the edge is new,
+     * the PFG edges for the arguments and return values.
+     */
+    private void processSingleCall(CSCallSite csCallSite, CSMethod csCallee) {
+        Invoke callSite = csCallSite.getCallSite();
+        Edge<CSCallSite, CSMethod> edge = new Edge<>(
+                CallGraphs.getCallKind(callSite), csCallSite, csCallee);
+        if (callGraph.addEdge(edge)) {
+            addReachable(csCallee);
+            plugin.onNewCallEdge(edge);
+            Context callerContext = csCallSite.getContext();
+            Context calleeContext = csCallee.getContext();
+            JMethod callee = csCallee.getMethod();
+            InvokeExp invokeExp = callSite.getInvokeExp();
+            List<Var> params = callee.getIR().getParams();
+            for (int i = 0; i < params.size(); i++) {
+                addPFGEdge(csManager.getCSVar(callerContext, invokeExp.getArg(i)),
+                        csManager.getCSVar(calleeContext, params.get(i)));
+            }
+            Var lhs = callSite.getLValue();
+            if (lhs != null) {
+                CSVar csLHS = csManager.getCSVar(callerContext, lhs);
+                for (Var ret : callee.getIR().getReturnVars()) {
+                    addPFGEdge(csManager.getCSVar(calleeContext, ret), csLHS);
+                }
+            }
+        }
     }
 
     /**
@@ -0,0 +1,126 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin;
+
+import pascal.taie.analysis.graph.callgraph.Edge;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.analysis.pta.pts.PointsToSetFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Composite plugin which dispatches the events of pointer analysis
+ * to all added plugins.
+ * <p>
+ * The {@link #onNewPointsToSet(CSVar, PointsToSet)} events, which are
+ * by far the most frequent ones, are buffered and delivered in batches:
+ * the objects propagated to the same variable are merged into one event,
+ * and the buffered events are delivered when {@link #flush()} is called
+ * or the number of buffered variables reaches {@link #BATCH_SIZE}.
+ * Other events are delivered immediately.
+ */
+public class CompositePlugin implements Plugin {
+
+    /**
+     * Maximum number of variables whose events are buffered
+     * before they are delivered.
+     */
+    static final int BATCH_SIZE = 1024;
+
+    private final List<Plugin> plugins = new ArrayList<>();
+
+    /**
+     * Buffered points-to set events, in the order of their first arrival.
+     */
+    private Map<CSVar, PointsToSet> pendingPointsToSets = new LinkedHashMap<>();
+
+    public void addPlugin(Plugin... plugins) {
+        this.plugins.addAll(List.of(plugins));
+    }
+
+    /**
+     * @return true if no plugin has been added, otherwise false.
+     */
+    public boolean isEmpty() {
+        return plugins.isEmpty();
+    }
+
+    @Override
+    public void onStart() {
+        plugins.forEach(Plugin::onStart);
+    }
+
+    @Override
+    public void onFinish() {
+        flush();
+        plugins.forEach(Plugin::onFinish);
+    }
+
+    @Override
+    public void onNewPointsToSet(CSVar csVar, PointsToSet pts) {
+        if (plugins.isEmpty()) {
+            return;
+        }
+        // pts may be shared by the work-list entries of the successors
+        // of csVar, thus it is copied instead of being merged into
+        pendingPointsToSets.computeIfAbsent(csVar,
+                unused -> PointsToSetFactory.make()).addAll(pts);
+        if (pendingPointsToSets.size() >= BATCH_SIZE) {
+            flush();
+        }
+    }
+
+    @Override
+    public void onNewCSMethod(CSMethod csMethod) {
+        plugins.forEach(p -> p.onNewCSMethod(csMethod));
+    }
+
+    @Override
+    public void onNewCallEdge(Edge<CSCallSite, CSMethod> edge) {
+        plugins.forEach(p -> p.onNewCallEdge(edge));
+    }
+
+    /**
+     * Delivers all buffered events to the plugins.
+     *
+     * @return true if any event was delivered, otherwise false.
+     */
+    public boolean flush() {
+        if (pendingPointsToSets.isEmpty()) {
+            return false;
+        }
+        // plugins may trigger new events during delivery,
+        // so the buffer is swapped out before delivering
+        Map<CSVar, PointsToSet> events = pendingPointsToSets;
+        pendingPointsToSets = new LinkedHashMap<>();
+        events.forEach((csVar, pts) -> plugins.forEach(
+                p -> p.onNewPointsToSet(csVar, pts)));
+        return true;
+    }
+}
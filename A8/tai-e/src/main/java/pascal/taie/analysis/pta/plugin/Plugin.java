@@ -0,0 +1,78 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin;
+
+import pascal.taie.analysis.graph.callgraph.Edge;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.pts.PointsToSet;
+
+/**
+ * Analysis plugin interface.
+ * <p>
+ * A plugin is notified of the events of pointer analysis, i.e., new
+ * points-to relations, new reachable methods and new call graph edges,
+ * and may react to them by adding new points-to relations or PFG edges
+ * via the solver. All methods have empty default implementations, so
+ * that a plugin only needs to override the events it is interested in.
+ */
+public interface Plugin {
+
+    /**
+     * Invoked when pointer analysis starts, i.e., after the solver
+     * has been initialized and before the entry method is processed.
+     */
+    default void onStart() {
+    }
+
+    /**
+     * Invoked when pointer analysis finishes.
+     */
+    default void onFinish() {
+    }
+
+    /**
+     * Invoked when the points-to set of a variable changes.
+     * The events are delivered in batches, so that {@code pts} may
+     * consist of the objects propagated to {@code csVar} by several
+     * work-list entries.
+     *
+     * @param csVar the variable whose points-to set changes
+     * @param pts   the objects newly added to the points-to set of csVar
+     */
+    default void onNewPointsToSet(CSVar csVar, PointsToSet pts) {
+    }
+
+    /**
+     * Invoked when a new context-sensitive method becomes reachable.
+     */
+    default void onNewCSMethod(CSMethod csMethod) {
+    }
+
+    /**
+     * Invoked when a new call graph edge is added.
+     */
+    default void onNewCallEdge(Edge<CSCallSite, CSMethod> edge) {
+    }
+}
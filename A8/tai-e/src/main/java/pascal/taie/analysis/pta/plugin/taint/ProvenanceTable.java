@@ -0,0 +1,182 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin.taint;
+
+import java.util.Arrays;
+
+/**
+ * Parent table for the provenance of taint objects. For each pair of
+ * pointer and taint object (both represented by int indexes), it records
+ * the pair from which the taint object first arrived at the pointer,
+ * i.e., the predecessor on the taint flow graph and the taint object
+ * held by the predecessor (which differs from the arrived one
+ * on transfer edges).
+ * <p>
+ * The entries are kept in an open-addressing hash table over int arrays,
+ * and the number of entries is bounded by a given limit. When the limit
+ * is reached, further entries are dropped, and the witness paths
+ * involving them are incomplete.
+ */
+class ProvenanceTable {
+
+    private static final int EMPTY = -1;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * Maximum number of entries in this table.
+     */
+    private final int limit;
+
+    private int size = 0;
+
+    /**
+     * Whether some entries have been dropped due to the limit.
+     */
+    private boolean overflowed = false;
+
+    private int[] keyPointers;
+
+    private int[] keyTaints;
+
+    private int[] parentPointers;
+
+    private int[] parentTaints;
+
+    ProvenanceTable(int limit) {
+        this.limit = limit;
+        allocate(INITIAL_CAPACITY);
+    }
+
+    private void allocate(int capacity) {
+        keyPointers = new int[capacity];
+        Arrays.fill(keyPointers, EMPTY);
+        keyTaints = new int[capacity];
+        parentPointers = new int[capacity];
+        parentTaints = new int[capacity];
+    }
+
+    /**
+     * Records the parent of (pointer, taint) if it has no parent yet.
+     */
+    void putIfAbsent(int pointer, int taint, int parentPointer, int parentTaint) {
+        int slot = findSlot(pointer, taint);
+        if (keyPointers[slot] != EMPTY) {
+            return;
+        }
+        if (isFull()) {
+            overflowed = true;
+            return;
+        }
+        keyPointers[slot] = pointer;
+        keyTaints[slot] = taint;
+        parentPointers[slot] = parentPointer;
+        parentTaints[slot] = parentTaint;
+        if (++size * 2 > keyPointers.length) {
+            grow();
+        }
+    }
+
+    /**
+     * @return the slot of (pointer, taint) in this table,
+     * or -1 if it has no parent.
+     */
+    int find(int pointer, int taint) {
+        int slot = findSlot(pointer, taint);
+        return keyPointers[slot] != EMPTY ? slot : -1;
+    }
+
+    int getParentPointer(int slot) {
+        return parentPointers[slot];
+    }
+
+    int getParentTaint(int slot) {
+        return parentTaints[slot];
+    }
+
+    /**
+     * @return the number of entries in this table.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return true if the number of entries has reached the limit,
+     * i.e., no new entry can be put.
+     */
+    boolean isFull() {
+        return size >= limit;
+    }
+
+    /**
+     * Marks that an entry has been dropped due to the limit without
+     * calling {@link #putIfAbsent(int, int, int, int)}.
+     */
+    void markOverflowed() {
+        overflowed = true;
+    }
+
+    /**
+     * @return true if some entries have been dropped due to the limit.
+     */
+    boolean isOverflowed() {
+        return overflowed;
+    }
+
+    /**
+     * @return the slot holding (pointer, taint), or the empty slot
+     * where (pointer, taint) should be put.
+     */
+    private int findSlot(int pointer, int taint) {
+        int mask = keyPointers.length - 1;
+        int slot = hash(pointer, taint) & mask;
+        while (keyPointers[slot] != EMPTY &&
+                (keyPointers[slot] != pointer || keyTaints[slot] != taint)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int hash(int pointer, int taint) {
+        int h = pointer * 0x9E3779B9 + taint;
+        return h ^ (h >>> 16);
+    }
+
+    private void grow() {
+        int[] oldKeyPointers = keyPointers;
+        int[] oldKeyTaints = keyTaints;
+        int[] oldParentPointers = parentPointers;
+        int[] oldParentTaints = parentTaints;
+        allocate(oldKeyPointers.length * 2);
+        for (int i = 0; i < oldKeyPointers.length; ++i) {
+            if (oldKeyPointers[i] != EMPTY) {
+                int slot = findSlot(oldKeyPointers[i], oldKeyTaints[i]);
+                keyPointers[slot] = oldKeyPointers[i];
+                keyTaints[slot] = oldKeyTaints[i];
+                parentPointers[slot] = oldParentPointers[i];
+                parentTaints[slot] = oldParentTaints[i];
+            }
+        }
+    }
+}
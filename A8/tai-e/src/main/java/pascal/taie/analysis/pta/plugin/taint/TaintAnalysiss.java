@@ -25,53 +25,289 @@ package pascal.taie.analysis.pta.plugin.taint;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import pascal.taie.World;
-import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.graph.callgraph.Edge;
 import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
 import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.core.heap.Obj;
 import pascal.taie.analysis.pta.cs.Solver;
+import pascal.taie.analysis.pta.plugin.Plugin;
+import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.analysis.pta.pts.PointsToSetFactory;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.config.ConfigException;
+import pascal.taie.ir.exp.InvokeExp;
+import pascal.taie.ir.exp.InvokeInstanceExp;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JMethod;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
-public class TaintAnalysiss {
+public class TaintAnalysiss implements Plugin {
+
+    /**
+     * Key of the witness paths of taint flows in the pointer analysis
+     * result, which is present when provenance is enabled.
+     */
+    public static final String WITNESS_PATHS = "taint-flow-witness-paths";
 
     private static final Logger logger = LogManager.getLogger(TaintAnalysiss.class);
 
+    /**
+     * Default maximum number of the entries in the provenance table.
+     */
+    private static final int DEFAULT_PROVENANCE_LIMIT = 1_000_000;
+
     private final TaintManager manager;
 
     private final TaintConfig config;
 
+    private final TaintRuleIndex rules;
+
     private final Solver solver;
 
-    private final CSManager csManager;
+    private CSManager csManager;
 
     private final Context emptyContext;
 
+    /**
+     * If this field is true, taint objects are propagated on
+     * {@link #taintFlowGraph} instead of the points-to sets.
+     * Note that taint objects then do not resolve calls,
+     * see {@link TaintFlowGraph} for the details.
+     */
+    private final boolean useTaintLayer;
+
+    /**
+     * If this field is true, the propagation on {@link #taintFlowGraph}
+     * is limited to the pointers which can reach some sinks.
+     */
+    private final boolean usePruning;
+
+    private final TaintFlowGraph taintFlowGraph;
+
     public TaintAnalysiss(Solver solver) {
         manager = new TaintManager();
         this.solver = solver;
-        csManager = solver.getCSManager();
         emptyContext = solver.getContextSelector().getEmptyContext();
         config = TaintConfig.readConfig(
                 solver.getOptions().getString("taint-config"),
                 World.get().getClassHierarchy(),
                 World.get().getTypeSystem());
         logger.info(config);
+        rules = new TaintRuleIndex(config, World.get().getClassHierarchy());
+        useTaintLayer = solver.getOptions().getBooleanOrDefault("taint-layer", false);
+        usePruning = solver.getOptions().getBooleanOrDefault("taint-pruning", true);
+        taintFlowGraph = new TaintFlowGraph(solver, manager);
+        if (solver.getOptions().getBooleanOrDefault("taint-provenance", false)) {
+            if (useTaintLayer) {
+                taintFlowGraph.enableProvenance(getProvenanceLimit(solver.getOptions()));
+            } else {
+                logger.warn("taint-provenance requires taint-layer, ignored");
+            }
+        }
     }
 
-    // TODO - finish me
+    private static int getProvenanceLimit(AnalysisOptions options) {
+        if (options.get("taint-provenance-limit") == null) {
+            return DEFAULT_PROVENANCE_LIMIT;
+        }
+        int limit = options.getInt("taint-provenance-limit");
+        if (limit <= 0) {
+            throw new ConfigException("Invalid taint-provenance-limit: " + limit);
+        }
+        return limit;
+    }
+
+    @Override
+    public void onStart() {
+        csManager = solver.getCSManager();
+    }
 
+    @Override
+    public void onNewCallEdge(Edge<CSCallSite, CSMethod> edge) {
+        CSCallSite csCallSite = edge.getCallSite();
+        Invoke callSite = csCallSite.getCallSite();
+        JMethod callee = edge.getCallee().getMethod();
+        for (Source source : rules.getSourcesOf(callee)) {
+            CSVar csLHS = getCSVar(csCallSite, TaintTransfer.RESULT);
+            if (csLHS != null) {
+                Obj taint = manager.makeTaint(callSite, source.type());
+                if (useTaintLayer) {
+                    taintFlowGraph.addTaint(csLHS, taint);
+                } else {
+                    solver.addPointsTo(csLHS, PointsToSetFactory.make(
+                            csManager.getCSObj(emptyContext, taint)));
+                }
+            }
+        }
+        for (TaintTransfer transfer : rules.getTransfersOf(callee)) {
+            CSVar from = getCSVar(csCallSite, transfer.from());
+            CSVar to = getCSVar(csCallSite, transfer.to());
+            if (from != null && to != null) {
+                TransferEdge transferEdge = new TransferEdge(
+                        from, to, transfer.type());
+                if (taintFlowGraph.addTransferEdge(transferEdge)
+                        && !useTaintLayer) {
+                    transferTaints(transferEdge, from.getPointsToSet());
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the variable at given index of the call site,
+     * or null if the variable is absent.
+     */
+    private CSVar getCSVar(CSCallSite csCallSite, int index) {
+        Invoke callSite = csCallSite.getCallSite();
+        InvokeExp invokeExp = callSite.getInvokeExp();
+        Var var = switch (index) {
+            case TaintTransfer.BASE -> invokeExp instanceof InvokeInstanceExp instExp ?
+                    instExp.getBase() : null;
+            case TaintTransfer.RESULT -> callSite.getLValue();
+            default -> invokeExp.getArg(index);
+        };
+        return var != null ? csManager.getCSVar(csCallSite.getContext(), var) : null;
+    }
+
+    @Override
+    public void onNewPointsToSet(CSVar csVar, PointsToSet pts) {
+        if (!useTaintLayer) {
+            taintFlowGraph.getTransferEdgesOf(csVar)
+                    .forEach(edge -> transferTaints(edge, pts));
+        }
+    }
+
+    /**
+     * Transfers the taint objects in pts along given transfer edge.
+     */
+    private void transferTaints(TransferEdge edge, PointsToSet pts) {
+        PointsToSet transferred = PointsToSetFactory.make();
+        for (CSObj csObj : pts) {
+            Obj obj = csObj.getObject();
+            if (manager.isTaint(obj)) {
+                Obj taint = manager.makeTaint(
+                        manager.getSourceCall(obj), edge.type());
+                transferred.addObject(csManager.getCSObj(emptyContext, taint));
+            }
+        }
+        if (!transferred.isEmpty()) {
+            solver.addPointsTo(edge.target(), transferred);
+        }
+    }
+
+    @Override
     public void onFinish() {
-        Set<TaintFlow> taintFlows = collectTaintFlows();
+        List<SinkArg> sinkArgs = getSinkArgs();
+        if (useTaintLayer) {
+            if (usePruning) {
+                // taint objects which cannot reach any sink are irrelevant
+                // to the result, thus they are not propagated
+                taintFlowGraph.limitTo(sinkArgs.stream().map(SinkArg::arg).toList());
+                logger.info("Taint propagation is limited to {} pointer(s)",
+                        taintFlowGraph.getNumberOfRelevantPointers());
+            }
+            taintFlowGraph.propagate();
+        }
+        Set<TaintFlow> taintFlows = collectTaintFlows(sinkArgs);
         solver.getResult().storeResult(getClass().getName(), taintFlows);
+        if (taintFlowGraph.getProvenance() != null) {
+            solver.getResult().storeResult(WITNESS_PATHS,
+                    collectWitnessPaths(sinkArgs));
+        }
+    }
+
+    /**
+     * Represents a sensitive argument of a sink call.
+     */
+    private record SinkArg(CSVar arg, Invoke sinkCall, int index) {
     }
 
-    private Set<TaintFlow> collectTaintFlows() {
+    /**
+     * @return the sensitive arguments of the sink calls on the call graph.
+     */
+    private List<SinkArg> getSinkArgs() {
+        List<SinkArg> sinkArgs = new ArrayList<>();
+        solver.getResult().getCSCallGraph().edges().forEach(edge -> {
+            CSCallSite csCallSite = edge.getCallSite();
+            JMethod callee = edge.getCallee().getMethod();
+            for (Sink sink : rules.getSinksOf(callee)) {
+                int index = sink.index();
+                CSVar arg = getCSVar(csCallSite, index);
+                if (arg != null) {
+                    sinkArgs.add(new SinkArg(arg, csCallSite.getCallSite(), index));
+                }
+            }
+        });
+        return sinkArgs;
+    }
+
+    private Set<TaintFlow> collectTaintFlows(List<SinkArg> sinkArgs) {
         Set<TaintFlow> taintFlows = new TreeSet<>();
-        PointerAnalysisResult result = solver.getResult();
-        // TODO - finish me
-        // You could query pointer analysis results you need via variable result.
+        for (SinkArg sinkArg : sinkArgs) {
+            getTaintsOf(sinkArg.arg()).forEach(taint ->
+                    taintFlows.add(new TaintFlow(manager.getSourceCall(taint),
+                            sinkArg.sinkCall(), sinkArg.index())));
+        }
         return taintFlows;
     }
+
+    /**
+     * Reconstructs the witness paths of the taint flows from
+     * the provenance of the taint objects.
+     *
+     * @return map from each taint flow to one of its witness paths.
+     */
+    private Map<TaintFlow, List<Pointer>> collectWitnessPaths(List<SinkArg> sinkArgs) {
+        Map<TaintFlow, List<Pointer>> paths = new TreeMap<>();
+        for (SinkArg sinkArg : sinkArgs) {
+            taintFlowGraph.getTaintsOf(sinkArg.arg()).forEach(taint -> {
+                TaintFlow taintFlow = new TaintFlow(manager.getSourceCall(taint),
+                        sinkArg.sinkCall(), sinkArg.index());
+                if (!paths.containsKey(taintFlow)) {
+                    paths.put(taintFlow,
+                            taintFlowGraph.getWitnessPath(sinkArg.arg(), taint));
+                }
+            });
+        }
+        ProvenanceTable provenance = taintFlowGraph.getProvenance();
+        if (provenance.isOverflowed()) {
+            logger.warn("Provenance table is full ({} entries)," +
+                    " some witness paths are incomplete", provenance.size());
+        }
+        if (logger.isDebugEnabled()) {
+            paths.forEach((taintFlow, path) -> logger.debug("Witness path of {}:\n  {}",
+                    taintFlow, path.stream()
+                            .map(Pointer::toString)
+                            .collect(Collectors.joining("\n  -> "))));
+        }
+        return paths;
+    }
+
+    /**
+     * @return the taint objects pointed to by given variable.
+     */
+    private Stream<Obj> getTaintsOf(CSVar csVar) {
+        if (useTaintLayer) {
+            return taintFlowGraph.getTaintsOf(csVar);
+        } else {
+            return csVar.getPointsToSet()
+                    .objects()
+                    .map(CSObj::getObject)
+                    .filter(manager::isTaint);
+        }
+    }
 }
@@ -22,27 +22,10 @@
 
 package pascal.taie.analysis.pta.plugin.taint;
 
-import com.fasterxml.jackson.core.JsonParser;
-import com.fasterxml.jackson.core.ObjectCodec;
-import com.fasterxml.jackson.databind.DeserializationContext;
-import com.fasterxml.jackson.databind.JsonDeserializer;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.module.SimpleModule;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
 import pascal.taie.config.ConfigException;
 import pascal.taie.language.classes.ClassHierarchy;
-import pascal.taie.language.classes.JMethod;
-import pascal.taie.language.type.Type;
 import pascal.taie.language.type.TypeSystem;
-import pascal.taie.util.collection.Sets;
 
-import java.io.File;
-import java.io.IOException;
-import java.util.Collections;
 import java.util.Set;
 
 /**
@@ -50,8 +33,6 @@ import java.util.Set;
  */
 class TaintConfig {
 
-    private static final Logger logger = LogManager.getLogger(TaintConfig.class);
-
     /**
      * Set of sources.
      */
@@ -67,8 +48,8 @@ class TaintConfig {
      */
     private final Set<TaintTransfer> transfers;
 
-    private TaintConfig(Set<Source> sources, Set<Sink> sinks,
-                        Set<TaintTransfer> transfers) {
+    TaintConfig(Set<Source> sources, Set<Sink> sinks,
+                Set<TaintTransfer> transfers) {
         this.sources = sources;
         this.sinks = sinks;
         this.transfers = transfers;
@@ -85,17 +66,7 @@ class TaintConfig {
      */
     static TaintConfig readConfig(
             String path, ClassHierarchy hierarchy, TypeSystem typeSystem) {
-        File file = new File(path);
-        ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
-        SimpleModule module = new SimpleModule();
-        module.addDeserializer(TaintConfig.class,
-                new Deserializer(hierarchy, typeSystem));
-        mapper.registerModule(module);
-        try {
-            return mapper.readValue(file, TaintConfig.class);
-        } catch (IOException e) {
-            throw new ConfigException("Failed to read taint analysis config file " + file, e);
-        }
+        return TaintConfigReader.read(path, hierarchy, typeSystem);
     }
 
     /**
@@ -139,121 +110,4 @@ class TaintConfig {
         }
         return sb.toString();
     }
-
-    /**
-     * Deserializer for {@link TaintConfig}.
-     */
-    private static class Deserializer extends JsonDeserializer<TaintConfig> {
-
-        private final ClassHierarchy hierarchy;
-
-        private final TypeSystem typeSystem;
-
-        private Deserializer(ClassHierarchy hierarchy, TypeSystem typeSystem) {
-            this.hierarchy = hierarchy;
-            this.typeSystem = typeSystem;
-        }
-
-        @Override
-        public TaintConfig deserialize(JsonParser p, DeserializationContext ctxt)
-                throws IOException {
-            ObjectCodec oc = p.getCodec();
-            JsonNode node = oc.readTree(p);
-            Set<Source> sources = deserializeSources(node.get("sources"));
-            Set<Sink> sinks = deserializeSinks(node.get("sinks"));
-            Set<TaintTransfer> transfers = deserializeTransfers(node.get("transfers"));
-            return new TaintConfig(sources, sinks, transfers);
-        }
-
-        /**
-         * Deserializes a {@link JsonNode} (assume it is an {@link ArrayNode})
-         * to a set of {@link Source}.
-         *
-         * @param node the node to be deserialized
-         * @return set of deserialized {@link Source}
-         */
-        private Set<Source> deserializeSources(JsonNode node) {
-            if (node instanceof ArrayNode arrayNode) {
-                Set<Source> sources = Sets.newSet(arrayNode.size());
-                for (JsonNode elem : arrayNode) {
-                    String methodSig = elem.get("method").asText();
-                    JMethod method = hierarchy.getMethod(methodSig);
-                    if (method != null) {
-                        // if the method (given in config file) is absent in
-                        // the class hierarchy, just ignore it.
-                        Type type = typeSystem.getType(
-                                elem.get("type").asText());
-                        sources.add(new Source(method, type));
-                    } else {
-                        logger.warn("Cannot find source method '{}'", methodSig);
-                    }
-                }
-                return Collections.unmodifiableSet(sources);
-            } else {
-                // if node is not an instance of ArrayNode, just return an empty set.
-                return Set.of();
-            }
-        }
-
-        /**
-         * Deserializes a {@link JsonNode} (assume it is an {@link ArrayNode})
-         * to a set of {@link Sink}.
-         *
-         * @param node the node to be deserialized
-         * @return set of deserialized {@link Sink}
-         */
-        private Set<Sink> deserializeSinks(JsonNode node) {
-            if (node instanceof ArrayNode arrayNode) {
-                Set<Sink> sinks = Sets.newSet(arrayNode.size());
-                for (JsonNode elem : arrayNode) {
-                    String methodSig = elem.get("method").asText();
-                    JMethod method = hierarchy.getMethod(methodSig);
-                    if (method != null) {
-                        // if the method (given in config file) is absent in
-                        // the class hierarchy, just ignore it.
-                        int index = elem.get("index").asInt();
-                        sinks.add(new Sink(method, index));
-                    } else {
-                        logger.warn("Cannot find sink method '{}'", methodSig);
-                    }
-                }
-                return Collections.unmodifiableSet(sinks);
-            } else {
-                // if node is not an instance of ArrayNode, just return an empty set.
-                return Set.of();
-            }
-        }
-
-        /**
-         * Deserializes a {@link JsonNode} (assume it is an {@link ArrayNode})
-         * to a set of {@link TaintTransfer}.
-         *
-         * @param node the node to be deserialized
-         * @return set of deserialized {@link TaintTransfer}
-         */
-        private Set<TaintTransfer> deserializeTransfers(JsonNode node) {
-            if (node instanceof ArrayNode arrayNode) {
-                Set<TaintTransfer> transfers = Sets.newSet(arrayNode.size());
-                for (JsonNode elem : arrayNode) {
-                    String methodSig = elem.get("method").asText();
-                    JMethod method = hierarchy.getMethod(methodSig);
-                    if (method != null) {
-                        // if the method (given in config file) is absent in
-                        // the class hierarchy, just ignore it.
-                        int from = TaintTransfer.toInt(elem.get("from").asText());
-                        int to = TaintTransfer.toInt(elem.get("to").asText());
-                        Type type = typeSystem.getType(
-                                elem.get("type").asText());
-                        transfers.add(new TaintTransfer(method, from, to, type));
-                    } else {
-                        logger.warn("Cannot find taint-transfer method '{}'", methodSig);
-                    }
-                }
-                return Collections.unmodifiableSet(transfers);
-            } else {
-                // if node is not an instance of ArrayNode, just return an empty set.
-                return Set.of();
-            }
-        }
-    }
 }
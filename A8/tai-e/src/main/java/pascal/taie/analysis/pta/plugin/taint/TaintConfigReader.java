@@ -0,0 +1,414 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin.taint;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.config.ConfigException;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.classes.StringReps;
+import pascal.taie.language.type.Type;
+import pascal.taie.language.type.TypeSystem;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Reads {@link TaintConfig} from file.
+ * <p>
+ * The config file is parsed by a streaming YAML parser into raw rules,
+ * i.e., the string values of the entries, which are cached in memory,
+ * keyed by the SHA-256 hash of the file content, and in a file next to
+ * the config file. The cache file records the hash of the content it was
+ * parsed from, and it is ignored when the hash does not match.
+ * The method signatures in the raw rules are resolved in bulk, grouped by
+ * their declaring classes.
+ */
+final class TaintConfigReader {
+
+    private static final Logger logger = LogManager.getLogger(TaintConfigReader.class);
+
+    /**
+     * Magic number at the beginning of the cache files.
+     */
+    private static final int MAGIC = 0x54544332; // "TTC2"
+
+    private static final String CACHE_SUFFIX = ".cache";
+
+    private static final String[] SOURCE_FIELDS = {"method", "type"};
+
+    private static final String[] SINK_FIELDS = {"method", "index"};
+
+    private static final String[] TRANSFER_FIELDS = {"method", "from", "to", "type"};
+
+    /**
+     * Map from the hash of the content of a config file to its raw rules.
+     * The raw rules do not depend on the class hierarchy, thus
+     * they are kept across different runs in the same JVM.
+     */
+    private static final Map<String, RawRules> cache = Maps.newConcurrentMap();
+
+    private TaintConfigReader() {
+    }
+
+    /**
+     * Raw rules of a config file. Each rule is represented by the values
+     * of its fields, in the order given by the corresponding *_FIELDS.
+     */
+    record RawRules(List<String[]> sources, List<String[]> sinks,
+                            List<String[]> transfers) {
+    }
+
+    /**
+     * Reads a taint analysis configuration from file.
+     *
+     * @throws ConfigException if failed to load the config file
+     */
+    static TaintConfig read(
+            String path, ClassHierarchy hierarchy, TypeSystem typeSystem) {
+        return resolve(getRawRules(Path.of(path)), hierarchy, typeSystem);
+    }
+
+    /**
+     * @return the raw rules of given config file, which are shared by
+     * the files of the same content.
+     * @throws ConfigException if failed to load the config file
+     */
+    static RawRules getRawRules(Path file) {
+        String hash;
+        try {
+            hash = hash(Files.readAllBytes(file));
+        } catch (IOException e) {
+            throw new ConfigException("Failed to read taint analysis config file " + file, e);
+        }
+        return cache.computeIfAbsent(hash, h -> loadRules(file, h));
+    }
+
+    static String hash(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(
+                    MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Loads the raw rules from the cache file of given config file if it
+     * exists and matches given hash, otherwise parses them from the config
+     * file and writes the cache file.
+     */
+    static RawRules loadRules(Path file, String hash) {
+        Path cacheFile = getCacheFile(file);
+        if (Files.exists(cacheFile)) {
+            try {
+                return readCache(cacheFile, hash);
+            } catch (IOException e) {
+                logger.debug("Failed to read cache {}: {}", cacheFile, e);
+            }
+        }
+        RawRules rules;
+        try {
+            rules = parse(file);
+        } catch (IOException e) {
+            throw new ConfigException("Failed to read taint analysis config file " + file, e);
+        }
+        writeCache(cacheFile, hash, rules);
+        return rules;
+    }
+
+    /**
+     * @return the cache file of given config file.
+     */
+    static Path getCacheFile(Path file) {
+        return Path.of(file + CACHE_SUFFIX);
+    }
+
+    // ---------- streaming parser ----------
+
+    static RawRules parse(Path file) throws IOException {
+        List<String[]> sources = new ArrayList<>();
+        List<String[]> sinks = new ArrayList<>();
+        List<String[]> transfers = new ArrayList<>();
+        try (JsonParser p = new YAMLFactory().createParser(file.toFile())) {
+            if (p.nextToken() == JsonToken.START_OBJECT) {
+                while (p.nextToken() == JsonToken.FIELD_NAME) {
+                    String name = p.currentName();
+                    p.nextToken();
+                    switch (name) {
+                        case "sources" -> parseRules(p, file, sources, SOURCE_FIELDS);
+                        case "sinks" -> parseRules(p, file, sinks, SINK_FIELDS);
+                        case "transfers" -> parseRules(p, file, transfers, TRANSFER_FIELDS);
+                        default -> p.skipChildren();
+                    }
+                }
+            }
+        }
+        return new RawRules(sources, sinks, transfers);
+    }
+
+    /**
+     * Parses an array of rules, and adds the values of given fields
+     * of each rule to rules. If current value is not an array,
+     * it is skipped, i.e., there is no rule.
+     */
+    private static void parseRules(JsonParser p, Path file,
+                                   List<String[]> rules, String[] fields)
+            throws IOException {
+        if (p.currentToken() != JsonToken.START_ARRAY) {
+            p.skipChildren();
+            return;
+        }
+        JsonToken token;
+        while ((token = p.nextToken()) != JsonToken.END_ARRAY) {
+            if (token != JsonToken.START_OBJECT) {
+                p.skipChildren();
+                continue;
+            }
+            String[] rule = new String[fields.length];
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                int i = indexOf(fields, p.currentName());
+                if (p.nextToken().isScalarValue() && i >= 0) {
+                    rule[i] = p.getText();
+                } else {
+                    p.skipChildren();
+                }
+            }
+            for (int i = 0; i < fields.length; ++i) {
+                if (rule[i] == null) {
+                    throw new ConfigException(String.format(
+                            "Missing '%s' of rule at %s in %s",
+                            fields[i], p.currentLocation(), file));
+                }
+            }
+            rules.add(rule);
+        }
+    }
+
+    private static int indexOf(String[] fields, String field) {
+        for (int i = 0; i < fields.length; ++i) {
+            if (fields[i].equals(field)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // ---------- cache file ----------
+
+    private static RawRules readCache(Path cacheFile, String hash)
+            throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(cacheFile)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Unexpected format");
+            }
+            if (!in.readUTF().equals(hash)) {
+                throw new IOException("Stale cache");
+            }
+            return new RawRules(readRules(in, SOURCE_FIELDS.length),
+                    readRules(in, SINK_FIELDS.length),
+                    readRules(in, TRANSFER_FIELDS.length));
+        }
+    }
+
+    private static List<String[]> readRules(DataInputStream in, int nFields)
+            throws IOException {
+        int size = in.readInt();
+        List<String[]> rules = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i) {
+            String[] rule = new String[nFields];
+            for (int j = 0; j < nFields; ++j) {
+                rule[j] = in.readUTF();
+            }
+            rules.add(rule);
+        }
+        return rules;
+    }
+
+    /**
+     * Writes the raw rules to the cache file. The cache is an optimization,
+     * so failures are ignored.
+     */
+    private static void writeCache(Path cacheFile, String hash, RawRules rules) {
+        Path tmp = null;
+        try {
+            tmp = Files.createTempFile(cacheFile.toAbsolutePath().getParent(),
+                    cacheFile.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeUTF(hash);
+                writeRules(out, rules.sources());
+                writeRules(out, rules.sinks());
+                writeRules(out, rules.transfers());
+            }
+            Files.move(tmp, cacheFile, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.debug("Failed to write cache {}: {}", cacheFile, e);
+            if (tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    private static void writeRules(DataOutputStream out, List<String[]> rules)
+            throws IOException {
+        out.writeInt(rules.size());
+        for (String[] rule : rules) {
+            for (String value : rule) {
+                out.writeUTF(value);
+            }
+        }
+    }
+
+    // ---------- resolution ----------
+
+    private static TaintConfig resolve(RawRules rules,
+                                       ClassHierarchy hierarchy,
+                                       TypeSystem typeSystem) {
+        Map<String, JMethod> methods = resolveMethods(Stream.of(
+                        rules.sources(), rules.sinks(), rules.transfers())
+                .flatMap(List::stream)
+                .map(rule -> rule[0])
+                .distinct()
+                .toList(), hierarchy);
+        Map<String, Type> types = Maps.newMap();
+        Set<Source> sources = Sets.newSet(rules.sources().size());
+        for (String[] rule : rules.sources()) {
+            JMethod method = methods.get(rule[0]);
+            if (method != null) {
+                Type type = types.computeIfAbsent(rule[1], typeSystem::getType);
+                sources.add(new Source(method, type));
+            }
+        }
+        Set<Sink> sinks = Sets.newSet(rules.sinks().size());
+        for (String[] rule : rules.sinks()) {
+            JMethod method = methods.get(rule[0]);
+            int index = toArgIndex(rule[1]);
+            if (method != null) {
+                sinks.add(new Sink(method, index));
+            }
+        }
+        Set<TaintTransfer> transfers = Sets.newSet(rules.transfers().size());
+        for (String[] rule : rules.transfers()) {
+            JMethod method = methods.get(rule[0]);
+            if (method != null) {
+                Type type = types.computeIfAbsent(rule[3], typeSystem::getType);
+                transfers.add(new TaintTransfer(method,
+                        toInt(rule[1]), toInt(rule[2]), type));
+            }
+        }
+        return new TaintConfig(Collections.unmodifiableSet(sources),
+                Collections.unmodifiableSet(sinks),
+                Collections.unmodifiableSet(transfers));
+    }
+
+    /**
+     * Resolves the method signatures. The signatures are grouped by
+     * their declaring classes, so that each class is looked up only once.
+     * If a method is absent in the class hierarchy, it is ignored.
+     *
+     * @return map from signature to the resolved method.
+     */
+    private static Map<String, JMethod> resolveMethods(
+            List<String> signatures, ClassHierarchy hierarchy) {
+        Map<String, List<String>> sigsByClass = Maps.newMap();
+        for (String sig : signatures) {
+            sigsByClass.computeIfAbsent(StringReps.getClassNameOf(sig),
+                    unused -> new ArrayList<>()).add(sig);
+        }
+        Map<String, JMethod> methods = Maps.newMap(signatures.size());
+        List<String> missing = new ArrayList<>();
+        sigsByClass.forEach((className, sigs) -> {
+            JClass jclass = hierarchy.getClass(className);
+            for (String sig : sigs) {
+                JMethod method = jclass == null ? null :
+                        jclass.getDeclaredMethod(StringReps.getSubsignatureOf(sig));
+                if (method != null) {
+                    methods.put(sig, method);
+                } else {
+                    missing.add(sig);
+                }
+            }
+        });
+        if (!missing.isEmpty()) {
+            logger.warn("Cannot find {} method(s) given in taint config",
+                    missing.size());
+            missing.forEach(sig -> logger.debug("Cannot find method '{}'", sig));
+        }
+        return methods;
+    }
+
+    /**
+     * Converts the index of a sink. The sensitive values of sink calls
+     * are their arguments, thus the index must be an argument index.
+     *
+     * @throws ConfigException if given index is not an argument index
+     */
+    static int toArgIndex(String index) {
+        try {
+            int i = Integer.parseInt(index);
+            if (i >= 0) {
+                return i;
+            }
+        } catch (NumberFormatException ignored) {
+        }
+        throw new ConfigException("Invalid sink index in taint config: " + index);
+    }
+
+    private static int toInt(String index) {
+        try {
+            return TaintTransfer.toInt(index);
+        } catch (NumberFormatException e) {
+            throw new ConfigException("Invalid index in taint config: " + index, e);
+        }
+    }
+}
@@ -0,0 +1,335 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin.taint;
+
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.cs.Solver;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Taint flow graph, which consists of the edges of the pointer flow graph
+ * of the solver and the typed edges of taint transfers.
+ * <p>
+ * When the taint layer is enabled, taint objects are not added to
+ * the points-to sets, instead, they are propagated on this graph
+ * and tracked in dedicated sets, where each taint object is represented
+ * by its index given by {@link TaintManager}. As the taint objects do not
+ * affect the pointer analysis, they are propagated after the solver
+ * finishes, i.e., on the complete pointer flow graph.
+ * <p>
+ * For the same reason, taint objects never resolve calls and are never
+ * the bases of field or array accesses in this mode. If a variable points
+ * only to taint objects, e.g., the result of a source method that
+ * allocates nothing, the calls on it are not dispatched, and taint flows
+ * that need these calls (such as the transfers on their bases) are missed.
+ * Such flows are found only when the taint layer is disabled.
+ * <p>
+ * The propagation can be limited to the pointers from which some sink
+ * variables are reachable on this graph (see {@link #limitTo(Collection)}),
+ * as the taint objects held by other pointers never reach any sink.
+ * <p>
+ * If provenance is enabled (see {@link #enableProvenance(int)}), the edge
+ * through which each taint object first arrives at each pointer is
+ * recorded, so that the witness paths of taint objects can be
+ * reconstructed by {@link #getWitnessPath(Pointer, Obj)}.
+ */
+class TaintFlowGraph {
+
+    private final Solver solver;
+
+    private final TaintManager manager;
+
+    /**
+     * Map from a variable to the transfer edges out of it.
+     */
+    private final MultiMap<Pointer, TransferEdge> transferEdges = Maps.newMultiMap();
+
+    /**
+     * Map from a variable to the transfer edges into it.
+     */
+    private final MultiMap<Pointer, TransferEdge> transferEdgesInto = Maps.newMultiMap();
+
+    /**
+     * Map from a pointer to the indexes of the taint objects it holds.
+     */
+    private final Map<Pointer, BitSet> taintSets = Maps.newMap();
+
+    /**
+     * Work list of the taint propagation, which maps a pointer to
+     * the taint objects to be propagated to it. The entries for
+     * the same pointer are merged.
+     */
+    private final Map<Pointer, BitSet> workList = new LinkedHashMap<>();
+
+    /**
+     * Pointers to which the propagation is limited, or null if
+     * the propagation is not limited.
+     */
+    private Set<Pointer> relevantPointers;
+
+    /**
+     * Parent table for provenance, or null if provenance is disabled.
+     */
+    private ProvenanceTable provenance;
+
+    /**
+     * Map from a pointer to its index in the provenance table.
+     * Only the pointers in the entries of the table are indexed.
+     */
+    private Map<Pointer, Integer> pointerIndexes;
+
+    /**
+     * List of the pointers indexed in the provenance table.
+     */
+    private List<Pointer> pointerList;
+
+    TaintFlowGraph(Solver solver, TaintManager manager) {
+        this.solver = solver;
+        this.manager = manager;
+    }
+
+    /**
+     * Adds a transfer edge to this graph.
+     *
+     * @return true if this graph changed as a result of the call,
+     * otherwise false.
+     */
+    boolean addTransferEdge(TransferEdge edge) {
+        if (transferEdges.put(edge.source(), edge)) {
+            transferEdgesInto.put(edge.target(), edge);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return the transfer edges out of given pointer.
+     */
+    Set<TransferEdge> getTransferEdgesOf(Pointer pointer) {
+        return transferEdges.get(pointer);
+    }
+
+    /**
+     * Adds a taint object to be propagated to given pointer.
+     * The taint object is propagated when {@link #propagate()} is called.
+     */
+    void addTaint(Pointer pointer, Obj taint) {
+        workList.computeIfAbsent(pointer, unused -> new BitSet())
+                .set(manager.getIndex(taint));
+    }
+
+    /**
+     * Limits the taint propagation to the pointers from which
+     * some of given sink variables are reachable on this graph.
+     * This should be called after all edges have been added and
+     * before {@link #propagate()}.
+     */
+    void limitTo(Collection<? extends Pointer> sinkVars) {
+        relevantPointers = Sets.newSet();
+        Queue<Pointer> queue = new ArrayDeque<>();
+        for (Pointer sinkVar : sinkVars) {
+            if (relevantPointers.add(sinkVar)) {
+                queue.add(sinkVar);
+            }
+        }
+        while (!queue.isEmpty()) {
+            Pointer pointer = queue.poll();
+            for (Pointer pred : solver.getPFGPredsOf(pointer)) {
+                if (relevantPointers.add(pred)) {
+                    queue.add(pred);
+                }
+            }
+            for (TransferEdge edge : transferEdgesInto.get(pointer)) {
+                if (relevantPointers.add(edge.source())) {
+                    queue.add(edge.source());
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the number of pointers to which the propagation is limited,
+     * or -1 if the propagation is not limited.
+     */
+    int getNumberOfRelevantPointers() {
+        return relevantPointers != null ? relevantPointers.size() : -1;
+    }
+
+    /**
+     * Enables provenance of taint objects. This should be called
+     * before {@link #propagate()}.
+     *
+     * @param limit maximum number of the entries in the parent table
+     */
+    void enableProvenance(int limit) {
+        provenance = new ProvenanceTable(limit);
+        pointerIndexes = Maps.newMap();
+        pointerList = new ArrayList<>();
+    }
+
+    /**
+     * @return the parent table for provenance, or null if provenance
+     * is disabled.
+     */
+    @Nullable
+    ProvenanceTable getProvenance() {
+        return provenance;
+    }
+
+    /**
+     * Propagates the taint objects until a fixed point is reached.
+     */
+    void propagate() {
+        while (!workList.isEmpty()) {
+            Iterator<Map.Entry<Pointer, BitSet>> it = workList.entrySet().iterator();
+            Map.Entry<Pointer, BitSet> entry = it.next();
+            it.remove();
+            Pointer pointer = entry.getKey();
+            if (!isRelevant(pointer)) {
+                // taint objects added before the limit was set
+                continue;
+            }
+            BitSet delta = entry.getValue();
+            BitSet taintSet = taintSets.computeIfAbsent(pointer,
+                    unused -> new BitSet());
+            delta.andNot(taintSet);
+            if (delta.isEmpty()) {
+                continue;
+            }
+            taintSet.or(delta);
+            for (Pointer succ : solver.getPFGSuccsOf(pointer)) {
+                if (provenance != null) {
+                    delta.stream().forEach(i -> recordParent(succ, i, pointer, i));
+                }
+                addTaints(succ, delta);
+            }
+            for (TransferEdge edge : transferEdges.get(pointer)) {
+                if (!isRelevant(edge.target())) {
+                    continue;
+                }
+                BitSet transferred = new BitSet();
+                delta.stream().forEach(i -> {
+                    Obj taint = manager.makeTaint(
+                            manager.getSourceCall(manager.getTaint(i)), edge.type());
+                    int j = manager.getIndex(taint);
+                    transferred.set(j);
+                    if (provenance != null) {
+                        recordParent(edge.target(), j, pointer, i);
+                    }
+                });
+                addTaints(edge.target(), transferred);
+            }
+        }
+    }
+
+    private void addTaints(Pointer pointer, BitSet taints) {
+        if (isRelevant(pointer)) {
+            workList.computeIfAbsent(pointer, unused -> new BitSet())
+                    .or(taints);
+        }
+    }
+
+    private void recordParent(Pointer pointer, int taint,
+                              Pointer parentPointer, int parentTaint) {
+        BitSet taintSet = taintSets.get(pointer);
+        if (!isRelevant(pointer) || (taintSet != null && taintSet.get(taint))) {
+            return;
+        }
+        Integer index = pointerIndexes.get(pointer);
+        if (index != null && provenance.find(index, taint) >= 0) {
+            return; // (pointer, taint) already has a parent
+        }
+        if (provenance.isFull()) {
+            provenance.markOverflowed();
+            return;
+        }
+        // pointers are indexed only when an entry is put, so that
+        // at most 2 * limit pointers are indexed
+        provenance.putIfAbsent(getPointerIndex(pointer), taint,
+                getPointerIndex(parentPointer), parentTaint);
+    }
+
+    private int getPointerIndex(Pointer pointer) {
+        return pointerIndexes.computeIfAbsent(pointer, p -> {
+            pointerList.add(p);
+            return pointerList.size() - 1;
+        });
+    }
+
+    /**
+     * Reconstructs the witness path of a taint object, i.e., the pointers
+     * through which the taint object (or the taint objects it is
+     * transferred from) first arrived at given pointer.
+     * If the parent table overflowed, the path may be incomplete,
+     * i.e., it may not start at the result of the source call.
+     *
+     * @return the pointers on the path, from the first one to given pointer.
+     */
+    List<Pointer> getWitnessPath(Pointer pointer, Obj taint) {
+        List<Pointer> path = new ArrayList<>();
+        path.add(pointer);
+        Integer index = pointerIndexes.get(pointer);
+        int p = index != null ? index : -1;
+        int t = manager.getIndex(taint);
+        // each parent holds the taint object before its children,
+        // so the parents never form cycles
+        int slot;
+        while (p >= 0 && (slot = provenance.find(p, t)) >= 0) {
+            p = provenance.getParentPointer(slot);
+            t = provenance.getParentTaint(slot);
+            path.add(pointerList.get(p));
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    private boolean isRelevant(Pointer pointer) {
+        return relevantPointers == null || relevantPointers.contains(pointer);
+    }
+
+    /**
+     * @return the taint objects held by given pointer.
+     */
+    Stream<Obj> getTaintsOf(Pointer pointer) {
+        BitSet taintSet = taintSets.get(pointer);
+        return taintSet == null ? Stream.of() :
+                taintSet.stream().mapToObj(manager::getTaint);
+    }
+}
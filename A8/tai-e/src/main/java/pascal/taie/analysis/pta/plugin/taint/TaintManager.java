@@ -30,6 +30,10 @@ import pascal.taie.util.AnalysisException;
 import pascal.taie.util.collection.Maps;
 import pascal.taie.util.collection.TwoKeyMap;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Manages taint objects.
  */
@@ -39,6 +43,16 @@ class TaintManager {
 
     private final TwoKeyMap<Invoke, Type, Obj> taints = Maps.newTwoKeyMap();
 
+    /**
+     * List of all taint objects, in the order of their creation.
+     */
+    private final List<Obj> taintList = new ArrayList<>();
+
+    /**
+     * Map from a taint object to its index in {@link #taintList}.
+     */
+    private final Map<Obj, Integer> taintIndexes = Maps.newMap();
+
     /**
      * Makes a taint object for given source and type.
      *
@@ -47,8 +61,32 @@ class TaintManager {
      * @return the taint object for given source and type.
      */
     Obj makeTaint(Invoke source, Type type) {
-        return taints.computeIfAbsent(source, type,
-                (s, t) -> new MockObj(TAINT_DESC, s, t));
+        return taints.computeIfAbsent(source, type, (s, t) -> {
+            Obj taint = new MockObj(TAINT_DESC, s, t);
+            taintIndexes.put(taint, taintList.size());
+            taintList.add(taint);
+            return taint;
+        });
+    }
+
+    /**
+     * @return the index of given taint object. The taint objects are
+     * indexed consecutively from 0, in the order of their creation.
+     * @throws AnalysisException if given object is not a taint object.
+     */
+    int getIndex(Obj taint) {
+        Integer index = taintIndexes.get(taint);
+        if (index != null) {
+            return index;
+        }
+        throw new AnalysisException(taint + " is not a taint object");
+    }
+
+    /**
+     * @return the taint object of given index.
+     */
+    Obj getTaint(int index) {
+        return taintList.get(index);
     }
 
     /**
@@ -0,0 +1,113 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin.taint;
+
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index of the rules in {@link TaintConfig}, which maps each method to
+ * the sources, sinks, and taint transfers applicable to it, so that
+ * the rules for a callee can be retrieved without scanning the config.
+ * <p>
+ * A rule of an instance method also applies to the methods that
+ * override it in the subclasses (and implementors) of its declaring class.
+ */
+class TaintRuleIndex {
+
+    private final ClassHierarchy hierarchy;
+
+    /**
+     * Map from a method given in the config to the methods
+     * that the rules of the method apply to.
+     */
+    private final Map<JMethod, List<JMethod>> applicableMethods = Maps.newMap();
+
+    private final MultiMap<JMethod, Source> sources = Maps.newMultiMap();
+
+    private final MultiMap<JMethod, Sink> sinks = Maps.newMultiMap();
+
+    private final MultiMap<JMethod, TaintTransfer> transfers = Maps.newMultiMap();
+
+    TaintRuleIndex(TaintConfig config, ClassHierarchy hierarchy) {
+        this.hierarchy = hierarchy;
+        config.getSources().forEach(source ->
+                getApplicableMethods(source.method())
+                        .forEach(m -> sources.put(m, source)));
+        config.getSinks().forEach(sink ->
+                getApplicableMethods(sink.method())
+                        .forEach(m -> sinks.put(m, sink)));
+        config.getTransfers().forEach(transfer ->
+                getApplicableMethods(transfer.method())
+                        .forEach(m -> transfers.put(m, transfer)));
+    }
+
+    /**
+     * @return given method and the methods overriding it.
+     */
+    private List<JMethod> getApplicableMethods(JMethod method) {
+        return applicableMethods.computeIfAbsent(method, m -> {
+            List<JMethod> methods = new ArrayList<>();
+            methods.add(m);
+            if (!m.isStatic() && !m.isPrivate() && !m.isConstructor()) {
+                for (JClass subclass : hierarchy.getAllSubclassesOf(
+                        m.getDeclaringClass(), false)) {
+                    JMethod overrider = subclass.getDeclaredMethod(m.getSubsignature());
+                    if (overrider != null && !overrider.isStatic()) {
+                        methods.add(overrider);
+                    }
+                }
+            }
+            return methods;
+        });
+    }
+
+    /**
+     * @return the sources applicable to given method.
+     */
+    Set<Source> getSourcesOf(JMethod method) {
+        return sources.get(method);
+    }
+
+    /**
+     * @return the sinks applicable to given method.
+     */
+    Set<Sink> getSinksOf(JMethod method) {
+        return sinks.get(method);
+    }
+
+    /**
+     * @return the taint transfers applicable to given method.
+     */
+    Set<TaintTransfer> getTransfersOf(JMethod method) {
+        return transfers.get(method);
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin.taint;
+
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.language.type.Type;
+
+/**
+ * Represents a typed edge installed for a {@link TaintTransfer} at a call
+ * site. Each taint object that flows to {@code source} is transferred
+ * to a taint object of {@code type} (with the same source call),
+ * which flows to {@code target}.
+ */
+record TransferEdge(CSVar source, CSVar target, Type type) {
+
+    @Override
+    public String toString() {
+        return source + " -> " + target + "(" + type + ")";
+    }
+}
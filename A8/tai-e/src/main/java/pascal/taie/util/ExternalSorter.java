@@ -0,0 +1,241 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Sorts lines of text and writes them in order. The lines are kept
+ * in memory until they exceed the memory budget, then each batch of
+ * lines is sorted and spilled to a temporary file, and the spilled
+ * files are merged when writing the lines.
+ * <p>
+ * The sort is stable, i.e., lines which are equal by the comparator are
+ * written in the order they are added, as the runs are merged in the
+ * order they are spilled.
+ */
+public class ExternalSorter implements Closeable {
+
+    /**
+     * Default memory budget (in bytes) of the lines kept in memory.
+     */
+    public static final long DEFAULT_BUDGET = 64L << 20;
+
+    /**
+     * Approximate memory overhead of a line besides its characters.
+     */
+    private static final int LINE_OVERHEAD = 56;
+
+    private final Comparator<String> comparator;
+
+    private final long budget;
+
+    private final List<String> lines = new ArrayList<>();
+
+    private long size = 0;
+
+    private final List<Path> runs = new ArrayList<>();
+
+    public ExternalSorter(Comparator<String> comparator) {
+        this(comparator, DEFAULT_BUDGET);
+    }
+
+    public ExternalSorter(Comparator<String> comparator, long budget) {
+        this.comparator = comparator;
+        this.budget = budget;
+    }
+
+    public void add(String line) {
+        lines.add(line);
+        size += 2L * line.length() + LINE_OVERHEAD;
+        if (size > budget) {
+            spill();
+        }
+    }
+
+    /**
+     * Sorts the lines in memory and writes them to a temporary file.
+     */
+    private void spill() {
+        lines.sort(comparator);
+        try {
+            Path run = Files.createTempFile("tai-e-sort", ".run");
+            runs.add(run);
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(run)))) {
+                for (String line : lines) {
+                    // lines are length-prefixed, as they may contain line breaks
+                    byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(bytes.length);
+                    out.write(bytes);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to spill sorted lines", e);
+        }
+        lines.clear();
+        size = 0;
+    }
+
+    /**
+     * @return the number of spilled runs.
+     */
+    int getNumberOfRuns() {
+        return runs.size();
+    }
+
+    /**
+     * Writes all added lines to given output in sorted order.
+     */
+    public void writeTo(PrintStream out) {
+        lines.sort(comparator);
+        if (runs.isEmpty()) {
+            lines.forEach(out::println);
+            return;
+        }
+        List<Run> sources = new ArrayList<>();
+        try {
+            for (Path path : runs) {
+                sources.add(new Run(path, sources.size()));
+            }
+            // the lines in memory are added after all spilled lines,
+            // thus they are merged as the last run
+            sources.add(new Run(lines, sources.size()));
+            // equal lines are taken from the earlier runs first,
+            // which keeps the sort stable
+            PriorityQueue<Run> queue = new PriorityQueue<>(Comparator
+                    .<Run, String>comparing(r -> r.head, comparator)
+                    .thenComparingInt(r -> r.order));
+            for (Run run : sources) {
+                if (run.advance()) {
+                    queue.add(run);
+                }
+            }
+            while (!queue.isEmpty()) {
+                Run run = queue.poll();
+                out.println(run.head);
+                if (run.advance()) {
+                    queue.add(run);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to merge sorted lines", e);
+        } finally {
+            for (Run run : sources) {
+                run.close();
+            }
+        }
+    }
+
+    /**
+     * Deletes the temporary files.
+     */
+    @Override
+    public void close() {
+        for (Path run : runs) {
+            try {
+                Files.deleteIfExists(run);
+            } catch (IOException ignored) {
+            }
+        }
+        runs.clear();
+        lines.clear();
+    }
+
+    /**
+     * A sorted sequence of lines, which is read from a spilled file,
+     * or from the lines in memory.
+     */
+    private static class Run {
+
+        private final DataInputStream in;
+
+        private final List<String> lines;
+
+        /**
+         * Position of this run among all runs, in the order of the lines.
+         */
+        private final int order;
+
+        private int index = 0;
+
+        private String head;
+
+        private Run(Path path, int order) throws IOException {
+            this.in = new DataInputStream(
+                    new BufferedInputStream(Files.newInputStream(path)));
+            this.lines = null;
+            this.order = order;
+        }
+
+        private Run(List<String> lines, int order) {
+            this.in = null;
+            this.lines = lines;
+            this.order = order;
+        }
+
+        /**
+         * Moves to the next line of this run.
+         *
+         * @return false if this run has no more lines, otherwise true.
+         */
+        private boolean advance() throws IOException {
+            if (lines != null) {
+                head = index < lines.size() ? lines.get(index++) : null;
+            } else {
+                try {
+                    byte[] bytes = new byte[in.readInt()];
+                    in.readFully(bytes);
+                    head = new String(bytes, StandardCharsets.UTF_8);
+                } catch (EOFException e) {
+                    head = null;
+                }
+            }
+            return head != null;
+        }
+
+        private void close() {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.util;
+
+import javax.annotation.Nullable;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Provides static methods for opening the output of analysis results.
+ */
+public final class ResultOutputs {
+
+    /**
+     * Suffix of the output files that should be compressed.
+     */
+    private static final String GZIP_SUFFIX = ".gz";
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private ResultOutputs() {
+    }
+
+    /**
+     * Opens given output file for writing analysis results. The results
+     * are written to the file channel through a buffer, and are compressed
+     * in gzip format if the file name ends with ".gz".
+     *
+     * @param output the output file, or null for {@link System#out}.
+     * @return the print stream of the output. The caller is responsible
+     * for closing the stream if it is not {@link System#out}.
+     */
+    public static PrintStream open(@Nullable String output) {
+        if (output == null) {
+            return System.out;
+        }
+        try {
+            FileChannel channel = FileChannel.open(Path.of(output),
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            OutputStream out = Channels.newOutputStream(channel);
+            if (output.endsWith(GZIP_SUFFIX)) {
+                out = new GZIPOutputStream(out, BUFFER_SIZE);
+            }
+            return new PrintStream(new BufferedOutputStream(out, BUFFER_SIZE),
+                    false, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new AnalysisException("Failed to open output file " + output, e);
+        }
+    }
+}
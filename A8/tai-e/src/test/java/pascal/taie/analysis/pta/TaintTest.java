@@ -24,11 +24,31 @@ package pascal.taie.analysis.pta;
 
 import org.junit.Test;
 import pascal.taie.analysis.Tests;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.plugin.taint.TaintAnalysiss;
+import pascal.taie.analysis.pta.plugin.taint.TaintFlow;
+import pascal.taie.ir.exp.Var;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class TaintTest {
 
     static final String DIR = "taint";
 
+    static final String CONFIG = "taint-config:src/test/resources/pta/taint/taint-config.yml";
+
+    private static final Pattern LINE_NUMBER = Pattern.compile("@L(\\d+)]");
+
     @Test
     public void testSimpleTaint() {
         Tests.testCSPTA(DIR, "SimpleTaint",
@@ -70,4 +90,193 @@ public class TaintTest {
         Tests.testCSPTA(DIR, "TaintInList",
                 "cs:2-obj;taint-config:src/test/resources/pta/taint/taint-config.yml");
     }
+
+    @Test
+    public void testOverrideTaint() {
+        // the rules are given for the methods of Base, and they
+        // also apply to the overriding methods of Sub
+        List<String> taintFlows = getTaintFlows(Tests.runCSPTA(DIR, "OverrideTaint",
+                "taint-config:src/test/resources/pta/taint/taint-config-override.yml"));
+        assertEquals(List.of("L5 -> L6", "L9 -> L10", "L13 -> L14"),
+                taintFlows.stream().map(TaintTest::getLines).toList());
+    }
+
+    @Test
+    public void testNoAllocTaint() {
+        // the source allocates nothing, so s.concat("x") is dispatched
+        // only on the taint object, which the taint layer does not support
+        String config = "taint-config:src/test/resources/pta/taint/taint-config-noalloc.yml";
+        List<String> taintFlows = getTaintFlows(Tests.runCSPTA(DIR, "NoAllocTaint",
+                config, "taint-layer:false"));
+        assertEquals(List.of("L4 -> L5", "L4 -> L6"),
+                taintFlows.stream().map(TaintTest::getLines).toList());
+        List<String> layerTaintFlows = getTaintFlows(Tests.runCSPTA(DIR, "NoAllocTaint",
+                config, "taint-layer:true"));
+        assertEquals(List.of("L4 -> L5"),
+                layerTaintFlows.stream().map(TaintTest::getLines).toList());
+    }
+
+    @Test
+    public void testSimpleTaintLayer() {
+        testTaintLayer("SimpleTaint", "cs:ci");
+    }
+
+    @Test
+    public void testArgToResultTaintLayer() {
+        testTaintLayer("ArgToResult", "cs:ci");
+    }
+
+    @Test
+    public void testBaseToResultTaintLayer() {
+        testTaintLayer("BaseToResult", "cs:ci");
+    }
+
+    @Test
+    public void testStringAppendTaintLayer() {
+        testTaintLayer("StringAppend", "cs:ci");
+    }
+
+    @Test
+    public void testOneCallTaintLayer() {
+        testTaintLayer("OneCallTaint", "cs:1-call");
+    }
+
+    @Test
+    public void testInterTaintTransferTaintLayer() {
+        testTaintLayer("InterTaintTransfer", "cs:2-call");
+    }
+
+    @Test
+    public void testTaintInListTaintLayer() {
+        testTaintLayer("TaintInList", "cs:2-obj");
+    }
+
+    @Test
+    public void testStringAppendPruning() {
+        testPruning("StringAppend", "cs:ci");
+    }
+
+    @Test
+    public void testOneCallTaintPruning() {
+        testPruning("OneCallTaint", "cs:1-call");
+    }
+
+    @Test
+    public void testInterTaintTransferPruning() {
+        testPruning("InterTaintTransfer", "cs:2-call");
+    }
+
+    @Test
+    public void testTaintInListPruning() {
+        testPruning("TaintInList", "cs:2-obj");
+    }
+
+    @Test
+    public void testInterTaintTransferWitnessPaths() {
+        testWitnessPaths("InterTaintTransfer", "cs:2-call");
+    }
+
+    @Test
+    public void testTaintInListWitnessPaths() {
+        testWitnessPaths("TaintInList", "cs:2-obj");
+    }
+
+    @Test
+    public void testWitnessPathsOverflow() {
+        PointerAnalysisResult result = Tests.runCSPTA(DIR, "InterTaintTransfer",
+                "cs:2-call", CONFIG, "taint-layer:true",
+                "taint-provenance:true", "taint-provenance-limit:1");
+        Map<TaintFlow, List<Pointer>> paths = getWitnessPaths(result);
+        // the overflow of provenance table does not affect the taint flows,
+        // but the witness paths may not start at the source calls
+        assertEquals(List.of(
+                        "L4 -> L8", "L5 -> L9", "L6 -> L10"),
+                getTaintFlows(result).stream().map(TaintTest::getLines).toList());
+        paths.forEach((taintFlow, path) ->
+                assertEquals(getSinkArg(taintFlow), getVar(path.get(path.size() - 1))));
+        assertTrue(paths.entrySet().stream().anyMatch(e ->
+                getVar(e.getValue().get(0)) != e.getKey().sourceCall().getLValue()));
+    }
+
+    /**
+     * Checks that each taint flow has a witness path, which starts at
+     * the result of the source call and ends at the sink argument.
+     */
+    private static void testWitnessPaths(String main, String cs) {
+        PointerAnalysisResult result = Tests.runCSPTA(DIR, main, cs, CONFIG,
+                "taint-layer:true", "taint-provenance:true");
+        Map<TaintFlow, List<Pointer>> paths = getWitnessPaths(result);
+        Set<TaintFlow> taintFlows = result.getResult(TaintAnalysiss.class.getName());
+        assertFalse(taintFlows.isEmpty());
+        assertEquals(taintFlows, paths.keySet());
+        paths.forEach((taintFlow, path) -> {
+            assertEquals(taintFlow.sourceCall().getLValue(), getVar(path.get(0)));
+            assertEquals(getSinkArg(taintFlow), getVar(path.get(path.size() - 1)));
+        });
+    }
+
+    private static Map<TaintFlow, List<Pointer>> getWitnessPaths(
+            PointerAnalysisResult result) {
+        return result.getResult(TaintAnalysiss.WITNESS_PATHS);
+    }
+
+    private static Var getSinkArg(TaintFlow taintFlow) {
+        return taintFlow.sinkCall().getInvokeExp().getArg(taintFlow.index());
+    }
+
+    /**
+     * @return the variable of given pointer, or null if it is not a variable.
+     */
+    private static Var getVar(Pointer pointer) {
+        return pointer instanceof CSVar csVar ? csVar.getVar() : null;
+    }
+
+    /**
+     * Checks that the taint flows detected with the taint layer
+     * are the same as the ones detected on the points-to sets.
+     */
+    private static void testTaintLayer(String main, String cs) {
+        assertSameTaintFlows(main, cs, "taint-layer:false", "taint-layer:true");
+    }
+
+    /**
+     * Checks that limiting the propagation on the taint layer
+     * to the pointers reaching sinks does not change the taint flows.
+     */
+    private static void testPruning(String main, String cs) {
+        assertSameTaintFlows(main, cs,
+                "taint-layer:true;taint-pruning:false",
+                "taint-layer:true;taint-pruning:true");
+    }
+
+    private static void assertSameTaintFlows(
+            String main, String cs, String expectedOpts, String actualOpts) {
+        List<String> expected = getTaintFlows(
+                Tests.runCSPTA(DIR, main, cs, CONFIG, expectedOpts));
+        List<String> actual = getTaintFlows(
+                Tests.runCSPTA(DIR, main, cs, CONFIG, actualOpts));
+        assertEquals(expected, actual);
+    }
+
+    /**
+     * @return the taint flows in given result as strings, so that
+     * the results of different runs can be compared.
+     */
+    static List<String> getTaintFlows(PointerAnalysisResult result) {
+        Set<?> taintFlows = result.getResult(TaintAnalysiss.class.getName());
+        return taintFlows.stream().map(Object::toString).toList();
+    }
+
+    /**
+     * @return the line numbers of the source call and the sink call
+     * of given taint flow, e.g., "L4 -> L5".
+     */
+    private static String getLines(String taintFlow) {
+        Matcher matcher = LINE_NUMBER.matcher(taintFlow);
+        List<String> lines = new ArrayList<>();
+        while (matcher.find()) {
+            lines.add("L" + matcher.group(1));
+        }
+        return String.join(" -> ", lines);
+    }
 }
@@ -0,0 +1,146 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin;
+
+import org.junit.Test;
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.context.ListContext;
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.cs.element.MapBasedCSManager;
+import pascal.taie.analysis.pta.core.heap.MockObj;
+import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.analysis.pta.pts.PointsToSetFactory;
+import pascal.taie.ir.exp.Var;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CompositePluginTest {
+
+    private final CSManager csManager = new MapBasedCSManager();
+
+    private final Context context = ListContext.make();
+
+    /**
+     * Records the delivered points-to set events.
+     */
+    private static class Recorder implements Plugin {
+
+        private final List<CSVar> vars = new ArrayList<>();
+
+        private final List<Set<CSObj>> objs = new ArrayList<>();
+
+        @Override
+        public void onNewPointsToSet(CSVar csVar, PointsToSet pts) {
+            vars.add(csVar);
+            objs.add(pts.getObjects());
+        }
+    }
+
+    private CSVar var(int i) {
+        return csManager.getCSVar(context, new Var(null, "v" + i, null, i));
+    }
+
+    private CSObj obj(String desc) {
+        return csManager.getCSObj(context, new MockObj(desc, desc, null));
+    }
+
+    @Test
+    public void testMergeEventsOfSameVar() {
+        CompositePlugin plugin = new CompositePlugin();
+        Recorder recorder = new Recorder();
+        plugin.addPlugin(recorder);
+        CSVar v = var(0);
+        CSObj o1 = obj("o1"), o2 = obj("o2");
+        plugin.onNewPointsToSet(v, PointsToSetFactory.make(o1));
+        plugin.onNewPointsToSet(v, PointsToSetFactory.make(o2));
+        assertTrue(recorder.vars.isEmpty());
+        assertTrue(plugin.flush());
+        assertEquals(List.of(v), recorder.vars);
+        assertEquals(Set.of(o1, o2), recorder.objs.get(0));
+        assertFalse(plugin.flush());
+    }
+
+    @Test
+    public void testFlushWhenBatchIsFull() {
+        CompositePlugin plugin = new CompositePlugin();
+        Recorder recorder = new Recorder();
+        plugin.addPlugin(recorder);
+        CSObj o = obj("o");
+        List<CSVar> vars = new ArrayList<>();
+        for (int i = 0; i < CompositePlugin.BATCH_SIZE; ++i) {
+            vars.add(var(i));
+        }
+        for (int i = 0; i < CompositePlugin.BATCH_SIZE - 1; ++i) {
+            plugin.onNewPointsToSet(vars.get(i), PointsToSetFactory.make(o));
+        }
+        assertTrue(recorder.vars.isEmpty());
+        plugin.onNewPointsToSet(vars.get(CompositePlugin.BATCH_SIZE - 1),
+                PointsToSetFactory.make(o));
+        // events are delivered in the order of their first arrival
+        assertEquals(vars, recorder.vars);
+        assertFalse(plugin.flush());
+    }
+
+    @Test
+    public void testEventsTriggeredDuringFlush() {
+        CompositePlugin plugin = new CompositePlugin();
+        CSVar v1 = var(1), v2 = var(2);
+        CSObj o = obj("o");
+        Recorder recorder = new Recorder();
+        // forwards the event of v1 to v2, like a plugin which
+        // propagates objects during delivery
+        plugin.addPlugin(new Plugin() {
+            @Override
+            public void onNewPointsToSet(CSVar csVar, PointsToSet pts) {
+                if (csVar.equals(v1)) {
+                    plugin.onNewPointsToSet(v2, pts);
+                }
+            }
+        }, recorder);
+        plugin.onNewPointsToSet(v1, PointsToSetFactory.make(o));
+        assertTrue(plugin.flush());
+        assertEquals(List.of(v1), recorder.vars);
+        // the event of v2 is buffered for the next round
+        assertTrue(plugin.flush());
+        assertEquals(List.of(v1, v2), recorder.vars);
+        assertFalse(plugin.flush());
+    }
+
+    @Test
+    public void testOnFinishFlushes() {
+        CompositePlugin plugin = new CompositePlugin();
+        Recorder recorder = new Recorder();
+        plugin.addPlugin(recorder);
+        plugin.onNewPointsToSet(var(0), PointsToSetFactory.make(obj("o")));
+        plugin.onFinish();
+        assertEquals(1, recorder.vars.size());
+    }
+}
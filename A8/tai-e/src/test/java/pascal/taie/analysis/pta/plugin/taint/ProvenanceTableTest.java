@@ -0,0 +1,92 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.plugin.taint;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ProvenanceTableTest {
+
+    @Test
+    public void testPutIfAbsent() {
+        ProvenanceTable table = new ProvenanceTable(10);
+        assertEquals(-1, table.find(1, 2));
+        table.putIfAbsent(1, 2, 3, 4);
+        // the first parent is kept
+        table.putIfAbsent(1, 2, 5, 6);
+        int slot = table.find(1, 2);
+        assertTrue(slot >= 0);
+        assertEquals(3, table.getParentPointer(slot));
+        assertEquals(4, table.getParentTaint(slot));
+        assertEquals(-1, table.find(2, 1));
+        assertEquals(1, table.size());
+        assertFalse(table.isOverflowed());
+    }
+
+    @Test
+    public void testGrow() {
+        int n = 5000;
+        ProvenanceTable table = new ProvenanceTable(n);
+        for (int i = 0; i < n; ++i) {
+            table.putIfAbsent(i, i % 7, i + 1, i % 3);
+        }
+        assertEquals(n, table.size());
+        assertFalse(table.isOverflowed());
+        for (int i = 0; i < n; ++i) {
+            int slot = table.find(i, i % 7);
+            assertEquals(i + 1, table.getParentPointer(slot));
+            assertEquals(i % 3, table.getParentTaint(slot));
+        }
+    }
+
+    @Test
+    public void testOverflow() {
+        ProvenanceTable table = new ProvenanceTable(2);
+        table.putIfAbsent(0, 0, 1, 0);
+        table.putIfAbsent(1, 0, 2, 0);
+        // existing entries do not overflow the table
+        table.putIfAbsent(1, 0, 3, 0);
+        assertFalse(table.isOverflowed());
+        table.putIfAbsent(2, 0, 3, 0);
+        assertTrue(table.isOverflowed());
+        assertEquals(2, table.size());
+        assertEquals(-1, table.find(2, 0));
+        assertEquals(2, table.getParentPointer(table.find(1, 0)));
+    }
+
+    @Test
+    public void testIsFull() {
+        ProvenanceTable table = new ProvenanceTable(1);
+        assertFalse(table.isFull());
+        table.putIfAbsent(0, 0, 1, 0);
+        assertTrue(table.isFull());
+        assertFalse(table.isOverflowed());
+        table.markOverflowed();
+        assertTrue(table.isOverflowed());
+        assertEquals(1, table.size());
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.plugin.taint;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import pascal.taie.config.ConfigException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class TaintConfigReaderTest {
+
+    private static final String SOURCE = "<A: java.lang.String source()>";
+
+    private static final String SINK = "<A: void sink(java.lang.String)>";
+
+    /**
+     * Directory of the config files and their cache files.
+     */
+    private Path dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("taint-config");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    /**
+     * Writes given content to a new config file.
+     */
+    private Path write(String content) throws IOException {
+        Path file = Files.createTempFile(dir, "taint-config", ".yml");
+        return Files.writeString(file, content);
+    }
+
+    /**
+     * @return the given rules as strings, so that they can be compared.
+     */
+    private static List<String> toStrings(List<String[]> rules) {
+        return rules.stream().map(Arrays::toString).toList();
+    }
+
+    @Test
+    public void testParse() throws IOException {
+        Path file = write("""
+                {
+                  "sources": [
+                    { "type": "java.lang.String", "method": "%s" }
+                  ],
+                  "sinks": [
+                    { "method": "%s", "note": { "a": [ 1, 2 ] }, "index": 0 },
+                    "not a rule"
+                  ],
+                  "unknown": { "sinks": [ { "method": "%s", "index": 1 } ] },
+                  "transfers": null
+                }
+                """.formatted(SOURCE, SINK, SINK));
+        TaintConfigReader.RawRules rules = TaintConfigReader.parse(file);
+        // the fields are reordered, and unknown fields, non-object entries
+        // and unknown sections are skipped
+        assertEquals(List.of("[" + SOURCE + ", java.lang.String]"),
+                toStrings(rules.sources()));
+        assertEquals(List.of("[" + SINK + ", 0]"), toStrings(rules.sinks()));
+        assertTrue(rules.transfers().isEmpty());
+    }
+
+    @Test
+    public void testMissingField() throws IOException {
+        Path file = write("""
+                { "sinks": [ { "method": "%s" } ] }
+                """.formatted(SINK));
+        ConfigException e = assertThrows(ConfigException.class,
+                () -> TaintConfigReader.parse(file));
+        assertTrue(e.getMessage(), e.getMessage().contains("'index'"));
+    }
+
+    @Test
+    public void testSinkIndex() {
+        assertEquals(1, TaintConfigReader.toArgIndex("1"));
+        assertThrows(ConfigException.class,
+                () -> TaintConfigReader.toArgIndex("base"));
+        assertThrows(ConfigException.class,
+                () -> TaintConfigReader.toArgIndex("result"));
+        assertThrows(ConfigException.class,
+                () -> TaintConfigReader.toArgIndex("-1"));
+    }
+
+    @Test
+    public void testCacheByContent() throws IOException {
+        String content = """
+                { "sinks": [ { "method": "%s", "index": 2 } ] }
+                """.formatted(SINK);
+        TaintConfigReader.RawRules rules = TaintConfigReader.getRawRules(write(content));
+        // the files of the same content share the raw rules
+        assertSame(rules, TaintConfigReader.getRawRules(write(content)));
+        assertNotSame(rules, TaintConfigReader.getRawRules(
+                write(content.replace("2", "3"))));
+    }
+
+    @Test
+    public void testCacheFile() throws IOException {
+        String content = """
+                { "sinks": [ { "method": "%s", "index": 4 } ] }
+                """.formatted(SINK);
+        Path file = write(content);
+        String hash = TaintConfigReader.hash(Files.readAllBytes(file));
+        Path cacheFile = TaintConfigReader.getCacheFile(file);
+        assertEquals(dir, cacheFile.getParent());
+        List<String> expected = List.of("[" + SINK + ", 4]");
+        assertEquals(expected, toStrings(
+                TaintConfigReader.loadRules(file, hash).sinks()));
+        assertTrue(Files.exists(cacheFile));
+        // the rules are read from the cache file without
+        // reading the config file
+        Files.delete(file);
+        assertEquals(expected, toStrings(
+                TaintConfigReader.loadRules(file, hash).sinks()));
+        // corrupted cache file is ignored
+        Files.writeString(cacheFile, "corrupted");
+        Files.writeString(file, content);
+        assertEquals(expected, toStrings(
+                TaintConfigReader.loadRules(file, hash).sinks()));
+    }
+
+    @Test
+    public void testStaleCacheFile() throws IOException {
+        String content = """
+                { "sinks": [ { "method": "%s", "index": 5 } ] }
+                """.formatted(SINK);
+        Path file = write(content);
+        TaintConfigReader.loadRules(file, TaintConfigReader.hash(Files.readAllBytes(file)));
+        // the cache file of other content is ignored and rewritten
+        Files.writeString(file, content.replace("5", "6"));
+        String hash = TaintConfigReader.hash(Files.readAllBytes(file));
+        List<String> expected = List.of("[" + SINK + ", 6]");
+        assertEquals(expected, toStrings(
+                TaintConfigReader.loadRules(file, hash).sinks()));
+        Files.delete(file);
+        assertEquals(expected, toStrings(
+                TaintConfigReader.loadRules(file, hash).sinks()));
+    }
+}
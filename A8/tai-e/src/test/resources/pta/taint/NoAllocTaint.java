@@ -0,0 +1,15 @@
+class NoAllocTaint {
+
+    public static void main(String[] args) {
+        String s = NoAllocSource.source();
+        SourceSink.sink(s); // taint
+        SourceSink.sink(s.concat("x")); // taint, unless taint-layer is true
+    }
+}
+
+class NoAllocSource {
+
+    static String source() {
+        return null; // the taint object is the only object of the result
+    }
+}
@@ -0,0 +1,46 @@
+class OverrideTaint {
+
+    public static void main(String[] args) {
+        Base b = new Sub();
+        String s1 = b.source(); // dispatched to Sub.source()
+        b.sink(s1); // taint
+
+        Sub sub = new Sub();
+        String s2 = sub.source();
+        sub.sink(s2); // taint
+
+        Base base = new Base();
+        String s3 = base.source();
+        base.sink(s3); // taint
+
+        String s4 = new Other().source();
+        base.sink(s4); // no taint
+    }
+}
+
+class Base {
+
+    String source() {
+        return new String();
+    }
+
+    void sink(String s) {
+    }
+}
+
+class Sub extends Base {
+
+    String source() {
+        return new String();
+    }
+
+    void sink(String s) {
+    }
+}
+
+class Other {
+
+    String source() {
+        return new String();
+    }
+}